@@ -0,0 +1,104 @@
+package com.example.demo.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * First Java release where blocking inside synchronized no longer pins the
+     * carrier thread (JEP 491). Jakarta Mail's SMTPTransport sends under its
+     * monitor, so before this release every virtual thread in an SMTP call holds
+     * a carrier, and a few slow sends would stall all virtual request threads.
+     */
+    private static final int UNPINNED_MONITORS_RELEASE = 24;
+
+    /**
+     * Workers that drain the email outbox. The queue is bounded and overflow is
+     * rejected rather than run by the caller: the caller is a request thread
+     * committing a transaction, and a rejected mail simply waits for the poller.
+     */
+    @Bean(name = "outboxExecutor")
+    ThreadPoolTaskExecutor outboxExecutor(@Value("${lms.mail.outbox.workers:4}") int threads,
+                                          @Value("${lms.mail.outbox.queue-capacity:500}") int queueCapacity,
+                                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mail-outbox-");
+        useVirtualThreadsForMail(executor, virtualThreads);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Workers for the auto-debit run, one per partition being processed at a time.
+     */
+    @Bean(name = "autoDebitExecutor")
+    ThreadPoolTaskExecutor autoDebitExecutor(@Value("${lms.autodebit.workers:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("auto-debit-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Runs an auto-debit collection started over HTTP, so the request returns as soon
+     * as the run is under way. One thread and no queue: a node runs one collection
+     * at a time, and AutoDebitService turns away a second start before it gets here.
+     */
+    @Bean(name = "autoDebitLauncher")
+    ThreadPoolTaskExecutor autoDebitLauncher() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("auto-debit-run-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * BCrypt workers for sign-in, sign-up and password reset, sized apart from the
+     * Tomcat pool so hashing can never occupy every request thread. Overflow is
+     * rejected and answered with 503 rather than queued without bound. Always
+     * platform threads: hashing is CPU work, which virtual threads do not speed up.
+     */
+    @Bean(name = "passwordHashExecutor")
+    ThreadPoolTaskExecutor passwordHashExecutor(@Value("${lms.security.hashing.threads:4}") int threads,
+                                                @Value("${lms.security.hashing.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * With spring.threads.virtual.enabled, mail workers become virtual threads once
+     * the runtime no longer pins them inside SMTPTransport. The pool size still caps
+     * concurrent SMTP sessions, so the mail server sees the same load either way.
+     */
+    private static void useVirtualThreadsForMail(ThreadPoolTaskExecutor executor, boolean virtualThreads) {
+        if (virtualThreads && Runtime.version().feature() >= UNPINNED_MONITORS_RELEASE) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(executor.getThreadNamePrefix()).getVirtualThreadFactory());
+        }
+    }
+}
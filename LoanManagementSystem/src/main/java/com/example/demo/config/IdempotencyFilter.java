@@ -0,0 +1,185 @@
+package com.example.demo.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.demo.model.IdempotentResponse;
+import com.example.demo.service.IdempotencyService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * De-duplicates retries of the money-moving endpoints. A request to one of the
+ * configured paths that carries an Idempotency-Key header runs at most once; every
+ * retry with the same key gets the first response back, marked with
+ * Idempotent-Replayed: true. Requests without the header are passed through.
+ * Keys are scoped to the signed-in caller, so a keyed request from an anonymous
+ * caller is refused with 401 rather than shared with every other anonymous client.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String REPLAYED = "Idempotent-Replayed";
+
+    private final IdempotencyService idempotencyService;
+    private final List<String> paths;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService,
+                             @Value("${lms.idempotency.paths:/banktransaction/transferFunds,/banktransaction/manualPayments,/loanRepayments/process-preclosure}") List<String> paths) {
+        this.idempotencyService = idempotencyService;
+        this.paths = paths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        return key == null || key.isBlank() || "GET".equals(request.getMethod())
+                || !paths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated()) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), IDEMPOTENCY_KEY + " requires an authenticated caller");
+            return;
+        }
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        // Hashed so a header of any length fits the key column
+        String key = sha256(scope(authentication, request) + ':' + request.getHeader(IDEMPOTENCY_KEY).trim());
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        String requestHash = fingerprint(cachedRequest);
+        boolean[] executed = { false };
+
+        IdempotentResponse outcome;
+        try {
+            outcome = idempotencyService.execute(key, requestHash, () -> {
+                executed[0] = true;
+                filterChain.doFilter(cachedRequest, wrapper);
+                return new IdempotentResponse(requestHash, wrapper.getStatus(), wrapper.getContentType(),
+                        new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+            });
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+
+        if (executed[0]) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        response.setStatus(outcome.getStatus());
+        response.setHeader(REPLAYED, "true");
+        if (outcome.getContentType() != null) {
+            response.setContentType(outcome.getContentType());
+        }
+        if (outcome.getBody() != null) {
+            byte[] body = outcome.getBody().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // Keys are per signed-in caller and endpoint, so two callers cannot collide on the same value
+    private static String scope(Authentication authentication, HttpServletRequest request) {
+        return authentication.getName() + ':' + request.getMethod() + ':' + request.getRequestURI();
+    }
+
+    private static String sha256(String value) {
+        MessageDigest digest = newDigest();
+        return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String fingerprint(CachedBodyRequest request) {
+        MessageDigest digest = newDigest();
+        // Parameters sorted so the same request hashes the same whatever their order
+        for (Map.Entry<String, String[]> parameter : new TreeMap<>(request.getParameterMap()).entrySet()) {
+            digest.update(parameter.getKey().getBytes(StandardCharsets.UTF_8));
+            for (String value : parameter.getValue()) {
+                digest.update((byte) '=');
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '&');
+        }
+        digest.update(request.body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Reads the body once so it can be hashed and still be read by the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            // Form parameters must be parsed before the stream is drained
+            request.getParameterMap();
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
@@ -1,24 +1,57 @@
 package com.example.demo.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the HS256 bearer tokens. The signing key and the parser are
+ * built once; a token is parsed and its signature checked once per request through
+ * verify(), and the result may be kept for a short TTL so repeat requests with the
+ * same token skip the parse entirely.
+ */
 @Component
 public class JwtService {
 
     public static final String SECRET = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private final Key signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+
+    private final long cacheTtlMillis;
+    private final int cacheMaxEntries;
+    // SHA-256 of the token -> verified claims; the raw tokens are never held
+    private final Map<String, CachedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheTtlMillis how long a verified token is remembered; 0 disables the cache.
+     * @param cacheMaxEntries most tokens remembered at once.
+     */
+    public JwtService(@Value("${lms.jwt.cache.ttl-ms:60000}") long cacheTtlMillis,
+                      @Value("${lms.jwt.cache.max-entries:10000}") int cacheMaxEntries) {
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
     public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, username);
@@ -30,12 +63,44 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+                .signWith(signKey, SignatureAlgorithm.HS256).compact();
+    }
+
+    /**
+     * Parses the token and checks its signature, once.
+     * @return the verified claims, or null when the token is malformed, forged or expired.
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        String digest = cacheTtlMillis > 0 ? digest(token) : null;
+        if (digest != null) {
+            CachedToken cached = verifiedTokens.get(digest);
+            if (cached != null && cached.cachedUntil > now) {
+                return cached.token.isExpired() ? null : cached.token;
+            }
+        }
+        VerifiedToken verified;
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (digest != null) {
+            remember(digest, verified, now);
+        }
+        return verified;
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes= Decoders.BASE64.decode(SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Checks already verified claims against the user they name.
+     */
+    public boolean isValidFor(VerifiedToken token, UserDetails userDetails) {
+        return token != null && !token.isExpired() && token.getUsername() != null
+                && token.getUsername().equals(userDetails.getUsername());
     }
 
     public String extractUsername(String token) {
@@ -52,20 +117,40 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return isValidFor(verify(token), userDetails);
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    private void remember(String digest, VerifiedToken token, long now) {
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            verifiedTokens.values().removeIf(cached -> cached.cachedUntil <= now);
+            if (verifiedTokens.size() >= cacheMaxEntries) {
+                // Still full of live entries: start over rather than scan on every miss
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(digest, new CachedToken(token, now + cacheTtlMillis));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedToken {
+        final VerifiedToken token;
+        final long cachedUntil;
+
+        CachedToken(VerifiedToken token, long cachedUntil) {
+            this.token = token;
+            this.cachedUntil = cachedUntil;
+        }
     }
 }
@@ -1,5 +1,7 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,10 +15,12 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import com.example.demo.service.SignUpService;
+import com.example.demo.service.UserDetailsCache;
 
 
 @Configuration
@@ -30,8 +34,8 @@ private final JwtService jwtService;
     	this.jwtService=jwtService;
     }
     
-    public JwtAuthFilter jwtAuthFilter(UserDetailsService userDetailsService) {
-    	return new JwtAuthFilter(jwtService, userDetailsService);
+    public JwtAuthFilter jwtAuthFilter(UserDetailsService userDetailsService, UserDetailsCache userDetailsCache) {
+    	return new JwtAuthFilter(jwtService, userDetailsService, userDetailsCache);
     }
     
     @Bean
@@ -42,7 +46,8 @@ private final JwtService jwtService;
    
     // Configuring HttpSecurity
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http,JwtAuthFilter jwtAuthFilter) throws Exception {
+    SecurityFilterChain securityFilterChain(HttpSecurity http,JwtAuthFilter jwtAuthFilter,
+                                            AuthenticationProvider authenticationProvider) throws Exception {
         return http.csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth.requestMatchers("/signup/**").permitAll())
                 .authorizeHttpRequests(auth -> auth.requestMatchers("/accountdetails/**").permitAll())
@@ -52,24 +57,25 @@ private final JwtService jwtService;
                 .authorizeHttpRequests(auth -> auth.requestMatchers("/loanRepayments/**").permitAll())
                 .authorizeHttpRequests(auth -> auth.requestMatchers("/loanSanction/**").permitAll())
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authenticationProvider(authenticationProvider(userDetailsService(null)))
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
     
 
-    // Password Encoding
+    // Password Encoding, run on the passwordHashExecutor instead of the request thread
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    BoundedPasswordEncoder passwordEncoder(@Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor passwordHashExecutor,
+                                           @Value("${lms.security.hashing.timeout-ms:5000}") long timeoutMillis) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashExecutor, timeoutMillis);
     }
    
     
     @Bean
-    AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService) {
+    AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
         return authenticationProvider;
     }
 
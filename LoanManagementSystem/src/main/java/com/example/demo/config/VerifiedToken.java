@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The claims of a token whose signature has been checked. Immutable, so one
+ * parse can serve every check made on the request, and can be cached.
+ */
+@Getter
+@AllArgsConstructor
+public final class VerifiedToken {
+
+    private final String username;
+    private final Date expiration;
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
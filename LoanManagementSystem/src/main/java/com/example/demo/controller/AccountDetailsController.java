@@ -12,9 +12,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.AccountDetails;
 import com.example.demo.service.AccountDetailsService;
 
@@ -36,6 +39,12 @@ public class AccountDetailsController {
 		return accountdetailsService.showAccountDetails();
 	}
 
+	@GetMapping(value = "/showAccountDetails/page")
+	public KeysetPage<AccountDetails> showAccountDetailsPage(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = Constants.DEFAULT_PAGE_SIZE) int size) {
+		return accountdetailsService.showAccountDetailsPage(cursor, size);
+	}
+
 	@GetMapping(value = "/searchAccountDetails/{accountNumber}")
 	public ResponseEntity<AccountDetails> searchAccountDetailsById(@PathVariable int accountNumber) {
 		Optional<AccountDetails> accountOpt = accountdetailsService.searchAccountDetailsById(accountNumber);
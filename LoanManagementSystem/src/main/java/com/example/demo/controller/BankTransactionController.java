@@ -1,11 +1,17 @@
 package com.example.demo.controller;
 
  
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
  
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,13 +22,16 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.exception.AccountNotFoundException;
 import com.example.demo.exception.InsufficientBalanceException;
-import com.example.demo.model.AccountDetails;
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.BankTransaction;
 import com.example.demo.repo.AccountDetailsRepo;
 import com.example.demo.service.BankTransactionService;
+import com.example.demo.service.StatementService;
  
 @RestController
 @RequestMapping(value="/banktransaction")
@@ -33,18 +42,27 @@ public class BankTransactionController {
     
     private final AccountDetailsRepo accountDetailsRepo;
 
+    private final StatementService statementService;
+
     // Constructor Injection
   
     public BankTransactionController(BankTransactionService bankTransactionService,
-                               AccountDetailsRepo accountDetailsRepo) {
+                               AccountDetailsRepo accountDetailsRepo,
+                               StatementService statementService) {
         this.bankTransactionService = bankTransactionService;
         
         this.accountDetailsRepo = accountDetailsRepo;
+        this.statementService = statementService;
     }
 	@GetMapping(value="/showTransactionInfo")
 	public List<BankTransaction> showTransactionInfo(){
 		return bankTransactionService.showTransactionInfo();
 	}
+	@GetMapping(value="/showTransactionInfo/page")
+	public KeysetPage<BankTransaction> showTransactionInfoPage(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = Constants.DEFAULT_PAGE_SIZE) int size){
+		return bankTransactionService.showTransactionInfoPage(cursor, size);
+	}
 	@GetMapping(value="/searchByTransactionId/{transactionId}")
 	public ResponseEntity<BankTransaction> searchByTransactionId(@PathVariable int transactionId) {
 		try {
@@ -54,6 +72,30 @@ public class BankTransactionController {
 			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		}
 	}
+	@GetMapping(value="/statement/{accountNumber}")
+	public ResponseEntity<StreamingResponseBody> statement(@PathVariable int accountNumber,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = Constants.STATEMENT_CSV) String format) {
+		if (!Constants.STATEMENT_CSV.equals(format) && !Constants.STATEMENT_JSONL.equals(format)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+		if (to.isBefore(from)) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+		// Checked up front: once streaming starts the status is already committed
+		if (accountDetailsRepo.findByAccountNumber(accountNumber) == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+		}
+		Date start = Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+		Date end = Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		boolean csv = Constants.STATEMENT_CSV.equals(format);
+		return ResponseEntity.ok()
+				.contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement-" + accountNumber + "-" + from
+						+ "-" + to + "." + format + "\"")
+				.body(out -> statementService.exportStatement(accountNumber, start, end, format, out));
+	}
 	@GetMapping(value="/searchByAccountNumber/{accountNumber}")
 	public ResponseEntity<List<BankTransaction>> searchByAccountNumber(@PathVariable int accountNumber) {
 	    try {
@@ -77,34 +119,13 @@ public class BankTransactionController {
     }
     @PutMapping("/manualPayments")
     public ResponseEntity<String> processPayment(@RequestParam int accountNumber, @RequestParam double paymentAmount) {
-        // Fetch the account details
-        AccountDetails account = accountDetailsRepo.findByAccountNumber(accountNumber);
-        if (account == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Account not found");
-        }
- 
-      
-     
- 
-        // Check if balance is sufficient
-        if (account.getBalance() < paymentAmount) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Insufficient balance");
-        }
- 
-        // Deduct the payment amount from balance
-        account.setBalance(account.getBalance() - paymentAmount);
- 
-        // Log the new balance after deduction
-        
- 
-        // Save updated account balance
         try {
-            accountDetailsRepo.save(account);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error saving account: " + e.getMessage());
+            bankTransactionService.manualPayment(accountNumber, paymentAmount);
+            return ResponseEntity.ok("Payment processed successfully");
+        } catch (InsufficientBalanceException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (AccountNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
- 
-        // Proceed with payment processing (log transaction, etc.)
-        return ResponseEntity.ok("Payment processed successfully");
     }
 }
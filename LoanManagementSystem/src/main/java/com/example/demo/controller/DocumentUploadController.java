@@ -0,0 +1,82 @@
+package com.example.demo.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.DocumentUpload;
+import com.example.demo.service.DocumentUploadService;
+
+/**
+ * Chunked, resumable document uploads, for files too large or networks too
+ * flaky for the one-shot multipart upload. Start an upload with its total size,
+ * PATCH the raw bytes in chunks with the Upload-Offset they start at, and after a
+ * dropped connection HEAD the upload to learn where to resume.
+ */
+@RestController
+@RequestMapping(value = "/documents/uploads")
+@CrossOrigin(origins = "*", exposedHeaders = { Constants.UPLOAD_OFFSET, Constants.UPLOAD_LENGTH })
+public class DocumentUploadController {
+
+    private final DocumentUploadService documentUploadService;
+
+    // Constructor Injection
+    public DocumentUploadController(DocumentUploadService documentUploadService) {
+        this.documentUploadService = documentUploadService;
+    }
+
+    /**
+     * Start an upload of totalSize bytes for one document of an account.
+     */
+    @PostMapping
+    public ResponseEntity<DocumentUpload> startUpload(@RequestParam int accountNumber,
+            @RequestParam String documentName, @RequestParam String fileType, @RequestParam long totalSize) {
+        DocumentUpload upload = documentUploadService.start(accountNumber, documentName, fileType, totalSize);
+        return ResponseEntity.created(URI.create("/documents/uploads/" + upload.getUploadId()))
+                .header(Constants.UPLOAD_OFFSET, "0")
+                .header(Constants.UPLOAD_LENGTH, Long.toString(totalSize))
+                .body(upload);
+    }
+
+    /**
+     * How many bytes of the upload have arrived, in the Upload-Offset header.
+     */
+    @RequestMapping(value = "/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> uploadOffset(@PathVariable String uploadId) throws IOException {
+        DocumentUpload upload = documentUploadService.getUpload(uploadId);
+        return ResponseEntity.ok()
+                .header(Constants.UPLOAD_OFFSET, Long.toString(documentUploadService.offset(upload)))
+                .header(Constants.UPLOAD_LENGTH, Long.toString(upload.getTotalSize()))
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
+    /**
+     * Append the request body at Upload-Offset. The response carries the new
+     * offset; the chunk that reaches the total size saves the document.
+     */
+    @PatchMapping("/{uploadId}")
+    public ResponseEntity<String> uploadChunk(@PathVariable String uploadId,
+            @RequestHeader(Constants.UPLOAD_OFFSET) long offset, InputStream chunk) throws IOException {
+        DocumentUpload upload = documentUploadService.getUpload(uploadId);
+        long received = documentUploadService.append(upload, offset, chunk);
+        return ResponseEntity.ok()
+                .header(Constants.UPLOAD_OFFSET, Long.toString(received))
+                .header(Constants.UPLOAD_LENGTH, Long.toString(upload.getTotalSize()))
+                .body(received == upload.getTotalSize() ? "Document uploaded successfully!" : "Chunk received.");
+    }
+
+    /**
+     * Cancel an upload and discard what was received.
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<String> cancelUpload(@PathVariable String uploadId) throws IOException {
+        documentUploadService.cancel(uploadId);
+        return ResponseEntity.ok("Upload cancelled.");
+    }
+}
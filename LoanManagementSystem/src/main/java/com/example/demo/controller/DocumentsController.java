@@ -2,12 +2,16 @@ package com.example.demo.controller;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -15,6 +19,7 @@ import com.example.demo.exception.DocumentNotFoundException;
 import com.example.demo.exception.FileUploadException;
 import com.example.demo.exception.LoanApprovalException;
 import com.example.demo.model.Constants;
+import com.example.demo.model.DocumentSummary;
 import com.example.demo.model.Documents;
 import com.example.demo.service.DocumentsService;
 
@@ -41,8 +46,7 @@ public class DocumentsController {
             @RequestParam(Constants.PAN) MultipartFile panFile,
             @RequestParam(Constants.BANK_STATEMENT) MultipartFile bankStatmentFile) {
         try {
-            List<Documents> existingDocs = documentsService.getDocumentsByAccountNumber(accountNumber);
-            if (!existingDocs.isEmpty()) {
+            if (documentsService.hasDocuments(accountNumber)) {
                 // Return the message instead of throwing an exception
                 return ResponseEntity.ok("Documents already exist. Please fetch and update if needed.");
             }
@@ -59,11 +63,12 @@ public class DocumentsController {
  
 
 	/**
-	 * Fetch all documents for an account number.
+	 * Fetch the metadata of all documents for an account number. The files
+	 * themselves are fetched one at a time through download.
 	 */
 	@GetMapping("/{accountNumber}")
-	public ResponseEntity<List<Documents>> getDocuments(@PathVariable int accountNumber) {
-		List<Documents> documents = documentsService.getDocumentsByAccountNumber(accountNumber);
+	public ResponseEntity<List<DocumentSummary>> getDocuments(@PathVariable int accountNumber) {
+		List<DocumentSummary> documents = documentsService.getDocumentSummariesByAccountNumber(accountNumber);
 		if (documents.isEmpty()) {
 			throw new DocumentNotFoundException("No documents found for account number " + accountNumber);
 		}
@@ -71,10 +76,12 @@ public class DocumentsController {
 	}
 
 	/**
-	 * Download a document by its ID.
+	 * Download a document by its ID. The file is streamed from the document store;
+	 * Range requests get 206 with the requested bytes, and the content hash is the
+	 * ETag, so a client revalidating with If-None-Match gets 304 and no body.
 	 */
 	@GetMapping("/download/{id}")
-	public ResponseEntity<byte[]> downloadDocument(@PathVariable int id) {
+	public ResponseEntity<Resource> downloadDocument(@PathVariable int id) {
 		Optional<Documents> documentOptional = documentsService.getDocumentById(id);
 
 		if (documentOptional.isPresent()) {
@@ -83,11 +90,22 @@ public class DocumentsController {
 
 			return ResponseEntity.ok()
 					.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + document.getDocumentName())
-					.contentType(mediaType).body(document.getFileData());
+					.eTag(document.getContentHash())
+					.cacheControl(CacheControl.noCache().cachePrivate())
+					.contentType(mediaType).body(documentsService.getDocumentContent(document));
 		}
 		return ResponseEntity.notFound().build();
 	}
 
+	/**
+	 * Hit rate and off-heap use of the download cache - Only accessible by users with 'ROLE_ADMIN'
+	 */
+	@GetMapping("/admin/content-cache")
+	@PreAuthorize("hasAuthority('ADMIN')")
+	public Map<String, Number> contentCacheStats() {
+		return documentsService.contentCacheStats();
+	}
+
 	/**
 	 * Update a document by document ID.
 	 */
@@ -149,7 +167,7 @@ public class DocumentsController {
 			documentsService.saveOrUpdateDocument(document); // Update document status
 
 			// Check if all documents are verified
-			List<Documents> allDocuments = documentsService.getDocumentsByAccountNumber(document.getAccountNumber());
+			List<DocumentSummary> allDocuments = documentsService.getDocumentSummariesByAccountNumber(document.getAccountNumber());
 			boolean allVerified = allDocuments.stream().allMatch(doc -> "Verified".equals(doc.getVerificationStatus()));
 
 			if (allVerified) {
@@ -166,7 +184,7 @@ public class DocumentsController {
 	// Approve loan
 	@PutMapping("/approve-loan/{accountNumber}")
 	public ResponseEntity<String> approveLoan(@PathVariable int accountNumber) {
-		List<Documents> documents = documentsService.getDocumentsByAccountNumber(accountNumber);
+		List<DocumentSummary> documents = documentsService.getDocumentSummariesByAccountNumber(accountNumber);
 		boolean allVerified = documents.stream().allMatch(doc -> "Verified".equals(doc.getVerificationStatus()));
 		if (!allVerified) {
 			throw new LoanApprovalException("Cannot approve loan. Not all documents are verified.");
@@ -12,11 +12,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.exception.LoanApplicationNotFoundException;
 import com.example.demo.exception.LoanApprovalException;
 import com.example.demo.exception.LoanRejectionException;
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.LoanApplication;
 import com.example.demo.service.LoanApplicationService;
 
@@ -38,6 +41,12 @@ public class LoanApplicationController {
        return loanApplicationService.showLoanapplication();
    }
 
+   @GetMapping(value="/showloanapplication/page")
+   public KeysetPage<LoanApplication> showApplicationsPage(@RequestParam(required = false) String cursor,
+           @RequestParam(defaultValue = Constants.DEFAULT_PAGE_SIZE) int size){
+       return loanApplicationService.showLoanapplicationPage(cursor, size);
+   }
+
    @GetMapping(value="/searchloanapplicationById/{loanId}")
    public ResponseEntity<LoanApplication> searchLoanapplication(@PathVariable int loanId) {
        try {
@@ -1,10 +1,17 @@
 package com.example.demo.controller;
  
+import java.util.Map;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
  
 import com.example.demo.service.LoanCalculationService;
 import com.example.demo.service.LoanCalculationService.LoanCalculationResult;
@@ -33,5 +40,26 @@ public class LoanCalculationController {
         }
         return result;
     }
+
+    @GetMapping("/schedule")
+    public ResponseEntity<StreamingResponseBody> schedule(@RequestParam double loanAmount,
+                                                          @RequestParam double annualInterestRate,
+                                                          @RequestParam int loanTerm) {
+        if (!loanCalculationService.isSchedulable(loanAmount, annualInterestRate, loanTerm)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> loanCalculationService.writeSchedule(loanAmount, annualInterestRate, loanTerm, out));
+    }
+
+    /**
+     * Hit rate and size of the annuity factor cache - Only accessible by users with 'ROLE_ADMIN'
+     */
+    @GetMapping("/admin/factor-cache")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public Map<String, Number> factorCacheStats() {
+        return loanCalculationService.annuityFactorCacheStats();
+    }
  
 }
@@ -1,8 +1,11 @@
 package com.example.demo.controller;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,8 +13,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping; // Add this import for the PUT method
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import com.example.demo.model.JobLease;
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.LoanRepayments;
+import com.example.demo.service.AutoDebitService;
 import com.example.demo.service.LoanRepaymentsService;
 @RestController
 @RequestMapping(value = "/loanRepayments")
@@ -19,15 +27,22 @@ import com.example.demo.service.LoanRepaymentsService;
 
 public class LoanRepaymentsController {
 	private final LoanRepaymentsService loanRepaymentsService;
+	private final AutoDebitService autoDebitService;
 
     // Constructor injection
-    public LoanRepaymentsController(LoanRepaymentsService loanRepaymentsService) {
+    public LoanRepaymentsController(LoanRepaymentsService loanRepaymentsService, AutoDebitService autoDebitService) {
         this.loanRepaymentsService = loanRepaymentsService;
+        this.autoDebitService = autoDebitService;
     }
     @GetMapping(value = "/showLoanRepayments")
     public List<LoanRepayments> show() {
         return loanRepaymentsService.show();
     }
+    @GetMapping(value = "/showLoanRepayments/page")
+    public KeysetPage<LoanRepayments> showPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = Constants.DEFAULT_PAGE_SIZE) int size) {
+        return loanRepaymentsService.showPage(cursor, size);
+    }
     @GetMapping("/getLastRepayment/{loanId}")
     public ResponseEntity<LoanRepayments> getLastRepayment(@PathVariable int loanId) {
         LoanRepayments lastRepayment = loanRepaymentsService.getLastRepayment(loanId);
@@ -83,4 +98,25 @@ public class LoanRepaymentsController {
             return new ResponseEntity<>("Pre-closure failed: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+    // Starts the auto-debit collection in the background; follow it on /auto-debit/partitions
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/auto-debit/run")
+    public ResponseEntity<String> runAutoDebit(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate runDate) {
+        LocalDate today = LocalDate.now();
+        if (runDate != null && runDate.isAfter(today)) {
+            // Would collect installments that are not due yet
+            return new ResponseEntity<>("Auto-debit run date cannot be after today", HttpStatus.BAD_REQUEST);
+        }
+        if (!autoDebitService.start(runDate != null ? runDate : today)) {
+            return new ResponseEntity<>("Auto-debit run already in progress", HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>("Auto-debit run started", HttpStatus.ACCEPTED);
+    }
+    // Per-partition progress and throughput of a run, across all nodes
+    @GetMapping("/auto-debit/partitions")
+    public List<JobLease> getAutoDebitPartitions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate runDate) {
+        return autoDebitService.getPartitions(runDate != null ? runDate : LocalDate.now());
+    }
+}
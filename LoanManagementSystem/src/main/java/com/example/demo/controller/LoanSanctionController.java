@@ -9,8 +9,11 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
  
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.LoanSanction;
 import com.example.demo.service.LoanSanctionService;
  
@@ -31,6 +34,12 @@ public class LoanSanctionController {
     public List<LoanSanction> show() {
         return loanSanctionService.show();
     }
+
+    @GetMapping(value = "/showLoanSanction/page")
+    public KeysetPage<LoanSanction> showPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = Constants.DEFAULT_PAGE_SIZE) int size) {
+        return loanSanctionService.showPage(cursor, size);
+    }
  
     @GetMapping(value = "/searchById/{sanctionId}")
     public ResponseEntity<LoanSanction> searchById(@PathVariable int sanctionId) {
@@ -1,6 +1,7 @@
 package com.example.demo.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,9 +22,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import com.example.demo.config.BoundedPasswordEncoder;
 import com.example.demo.config.JwtService;
 import com.example.demo.exception.EmailSendingException;
 import com.example.demo.model.AuthRequest;
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.SignUp;
 
 import com.example.demo.service.SignUpDataDetails;
@@ -37,12 +41,15 @@ public class SignUpController {
     private final SignUpService signupService;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final BoundedPasswordEncoder passwordEncoder;
 
     // Constructor Injection
-    public SignUpController(SignUpService signupService, JwtService jwtService, AuthenticationManager authenticationManager) {
+    public SignUpController(SignUpService signupService, JwtService jwtService, AuthenticationManager authenticationManager,
+                            BoundedPasswordEncoder passwordEncoder) {
         this.signupService = signupService;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.passwordEncoder = passwordEncoder;
     }
 
     /**
@@ -100,6 +107,26 @@ public class SignUpController {
         return "Welcome to Admin Profile";
     }
 
+    /**
+     * Hit and miss counters of the cache the JWT filter loads users from - Only accessible by users with 'ROLE_ADMIN'
+     * @return The cache counters
+     */
+    @GetMapping("/admin/user-cache")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public Map<String, Number> userCacheStats() {
+        return signupService.userDetailsCacheStats();
+    }
+
+    /**
+     * Password hashing latency and rejections - Only accessible by users with 'ROLE_ADMIN'
+     * @return The hashing pool counters
+     */
+    @GetMapping("/admin/hashing")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public Map<String, Number> passwordHashingStats() {
+        return passwordEncoder.stats();
+    }
+
     /**
      * Fetch all user sign-ups
      * @return A list of all user sign-ups
@@ -109,6 +136,18 @@ public class SignUpController {
         return signupService.showSignUp();
     }
 
+    /**
+     * Fetch one keyset page of user sign-ups
+     * @param cursor nextCursor of the previous page, absent for the first page
+     * @param size Maximum number of sign-ups on the page
+     * @return A page of user sign-ups
+     */
+    @GetMapping(value="/showSignup/page")
+    public KeysetPage<SignUp> showSignUpPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = Constants.DEFAULT_PAGE_SIZE) int size) {
+        return signupService.showSignUpPage(cursor, size);
+    }
+
   
 
 
@@ -2,12 +2,14 @@ package com.example.demo.exception;
 
 import java.util.Date;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 @RestControllerAdvice
 public class ControllerExceptionHandler {
@@ -44,6 +46,27 @@ public class ControllerExceptionHandler {
 		
 	}
 
+	@ExceptionHandler(LedgerConflictException.class)
+	@ResponseStatus(value = HttpStatus.CONFLICT)
+	public ErrorMessage ledgerConflictException(LedgerConflictException ex, WebRequest request) {
+		return new ErrorMessage(HttpStatus.CONFLICT.value(), new Date(), ex.getMessage(),
+				request.getDescription(false));
+	}
+
+	@ExceptionHandler(PasswordHashingBusyException.class)
+	public ResponseEntity<ErrorMessage> passwordHashingBusyException(PasswordHashingBusyException ex, WebRequest request) {
+		ErrorMessage message = new ErrorMessage(HttpStatus.SERVICE_UNAVAILABLE.value(), new Date(), ex.getMessage(),
+				request.getDescription(false));
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(message);
+	}
+
+	@ExceptionHandler(InvalidCursorException.class)
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+	public ErrorMessage invalidCursorException(InvalidCursorException ex, WebRequest request) {
+		return new ErrorMessage(HttpStatus.BAD_REQUEST.value(), new Date(), ex.getMessage(),
+				request.getDescription(false));
+	}
+
 	@ExceptionHandler(FileUploadException.class)
 	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
 	public ErrorMessage handleFileUploadException(FileUploadException ex, WebRequest request) {
@@ -51,6 +74,20 @@ public class ControllerExceptionHandler {
 				request.getDescription(false));
 	}
 
+	@ExceptionHandler({ DocumentTooLargeException.class, MaxUploadSizeExceededException.class })
+	@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+	public ErrorMessage documentTooLargeException(Exception ex, WebRequest request) {
+		return new ErrorMessage(HttpStatus.PAYLOAD_TOO_LARGE.value(), new Date(), ex.getMessage(),
+				request.getDescription(false));
+	}
+
+	@ExceptionHandler(UploadConflictException.class)
+	@ResponseStatus(value = HttpStatus.CONFLICT)
+	public ErrorMessage uploadConflictException(UploadConflictException ex, WebRequest request) {
+		return new ErrorMessage(HttpStatus.CONFLICT.value(), new Date(), ex.getMessage(),
+				request.getDescription(false));
+	}
+
 	@ExceptionHandler(DocumentNotFoundException.class)
 	@ResponseStatus(value = HttpStatus.NOT_FOUND)
 	public ErrorMessage handleDocumentNotFoundException(DocumentNotFoundException ex, WebRequest request) {
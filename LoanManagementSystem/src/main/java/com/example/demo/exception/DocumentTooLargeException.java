@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+public class DocumentTooLargeException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DocumentTooLargeException(String message) {
+        super(message);
+    }
+}
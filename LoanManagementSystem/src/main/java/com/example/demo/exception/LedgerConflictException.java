@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+public class LedgerConflictException extends RuntimeException {
+	
+	  private static final long serialVersionUID = 1L;
+	  
+    public LedgerConflictException(String message) {
+        super(message);
+    }
+}
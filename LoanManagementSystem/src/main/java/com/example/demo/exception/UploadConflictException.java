@@ -0,0 +1,10 @@
+package com.example.demo.exception;
+
+public class UploadConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
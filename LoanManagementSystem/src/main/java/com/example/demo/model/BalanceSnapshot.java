@@ -0,0 +1,36 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Rolled-up balance of an account up to and including posting LASTSEQ. The live
+ * balance is BALANCE plus the postings after LASTSEQ. Only the ledger compactor
+ * writes these rows.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="BALANCESNAPSHOT")
+public class BalanceSnapshot {
+
+	@Id
+	@Column(name="ACCOUNTNUMBER")
+	private int accountNumber;
+	@Column(name="BALANCE")
+	private double balance;
+	@Column(name="LASTSEQ")
+	private long lastSeq;
+	@Column(name="SNAPSHOTAT")
+	private Date snapshotAt;
+}
@@ -44,6 +44,36 @@ public final class Constants {
     public static final String CLOSED = "CLOSED";
     
     public static final String COMPLETED = "COMPLETED";
+
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String DEAD = "DEAD";
+    public static final String RUNNING = "RUNNING";
+    public static final String AUTO_DEBIT = "AUTO_DEBIT";
+
+    // Ledger entry types; account 0 is the bank's own side of every journal
+    public static final String TRANSFER = "TRANSFER";
+    public static final String MANUAL_PAYMENT = "MANUAL_PAYMENT";
+    public static final String LOAN_DISBURSAL = "LOAN_DISBURSAL";
+    public static final int BANK_ACCOUNT = 0;
+
+    // Keyset-paginated listings
+    public static final String DEFAULT_PAGE_SIZE = "50";
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // Account statement export formats
+    public static final String STATEMENT_CSV = "csv";
+    public static final String STATEMENT_JSONL = "jsonl";
+
+    // Longest term the loan calculator will lay out a schedule for
+    public static final int MAX_LOAN_TERM_YEARS = 50;
+
+    // Slots in the annuity factor cache; a power of two
+    public static final int ANNUITY_FACTOR_CACHE_SLOTS = 1024;
+
+    // Resumable document uploads: bytes received so far, and the declared total
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+    public static final String UPLOAD_LENGTH = "Upload-Length";
  
     
     
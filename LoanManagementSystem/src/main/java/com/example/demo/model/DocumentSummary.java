@@ -0,0 +1,22 @@
+package com.example.demo.model;
+
+/**
+ * Read-only projection of a document's metadata, for listings and verification
+ * checks. Queries returning it select only these columns, never the content.
+ */
+public interface DocumentSummary {
+
+	int getDocumentId();
+
+	String getDocumentName();
+
+	String getFileType();
+
+	String getVerificationStatus();
+
+	Long getFileSize();
+
+	Long getOriginalSize();
+
+	Long getStoredSize();
+}
@@ -0,0 +1,40 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A resumable upload in progress. The row holds what the finished document will
+ * be; the bytes received so far sit in a part file named after UPLOADID, whose
+ * length is the offset the client resumes from.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="DOCUMENTUPLOAD")
+public class DocumentUpload {
+
+	@Id
+	@Column(name="UPLOADID", length = 36)
+	private String uploadId;
+	@Column(name="ACCOUNTNUMBER")
+	private int accountNumber;
+	@Column(name="DOCUMENTNAME")
+	private String documentName;
+	@Column(name="FILETYPE")
+	private String fileType;
+	@Column(name="TOTALSIZE")
+	private long totalSize;
+	@Column(name="CREATEDAT")
+	private Date createdAt;
+}
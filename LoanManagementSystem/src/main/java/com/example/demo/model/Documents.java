@@ -28,9 +28,20 @@ public class Documents {
     @Column(name = "VERIFICATIONSTATUS", nullable = false)
     private String verificationStatus = "Pending";
  
-    @Lob
-    @Column(name = "FILEDATA", columnDefinition = "LONGBLOB", nullable = false)
-    private byte[] fileData;
+    // SHA-256 of the file content, its address in the DocumentStore
+    @Column(name = "CONTENTHASH", length = 64)
+    private String contentHash;
+ 
+    @Column(name = "FILESIZE")
+    private Long fileSize;
+
+    // Size as uploaded, before an oversized image was scaled down
+    @Column(name = "ORIGINALSIZE")
+    private Long originalSize;
+
+    // Bytes held by the DocumentStore, less than FILESIZE when compressed
+    @Column(name = "STOREDSIZE")
+    private Long storedSize;
  
     @Column(name = "FILETYPE", nullable = false)
     private String fileType;
@@ -0,0 +1,23 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A due installment as read by the auto-debit engine, joined with the borrower's
+ * account so a chunk can be collected without further lookups.
+ */
+@Getter
+@AllArgsConstructor
+public class DueInstallment {
+
+	private final int paymentId;
+	private final int loanId;
+	private final double paymentAmount;
+	private final double dueLoanAmount;
+	private final String paymentMode;
+	private final int accountNumber;
+	private final String email;
+	private final String firstName;
+	private final String lastName;
+}
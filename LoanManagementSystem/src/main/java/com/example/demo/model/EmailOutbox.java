@@ -0,0 +1,54 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A notification mail waiting to be delivered. Rows are written in the same
+ * transaction as the business change and drained by EmailOutboxService.
+ * STATUS moves PENDING -> SENDING -> SENT, or to DEAD once retries run out.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="EMAILOUTBOX")
+public class EmailOutbox {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="OUTBOXID")
+	private long outboxId;
+	@Column(name="RECIPIENT")
+	private String recipient;
+	@Column(name="SUBJECT")
+	private String subject;
+	@Lob
+	@Column(name="BODY", columnDefinition = "LONGTEXT")
+	private String body;
+	@Column(name="STATUS")
+	private String status;
+	@Column(name="ATTEMPTS")
+	private int attempts;
+	@Column(name="NEXTATTEMPTAT")
+	private Date nextAttemptAt;
+	@Column(name="LASTERROR", length = 1000)
+	private String lastError;
+	@Column(name="CREATEDAT")
+	private Date createdAt;
+	@Column(name="SENTAT")
+	private Date sentAt;
+
+}
@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The first outcome of a request sent with an Idempotency-Key. The row is claimed
+ * as PENDING before the request runs and completed with the response it produced,
+ * which is replayed for every retry with the same key. REQUESTHASH guards against
+ * a key being reused for a different request.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="IDEMPOTENCYKEY")
+public class IdempotencyRecord {
+
+	@Id
+	@Column(name="IDEMPOTENCYKEY", length = 255)
+	private String idempotencyKey;
+	@Column(name="REQUESTHASH", length = 64)
+	private String requestHash;
+	@Column(name="STATUS")
+	private String status;
+	@Column(name="RESPONSESTATUS")
+	private int responseStatus;
+	@Column(name="CONTENTTYPE")
+	private String contentType;
+	@Lob
+	@Column(name="RESPONSEBODY", columnDefinition = "LONGTEXT")
+	private String responseBody;
+	@Column(name="CREATEDAT")
+	private Date createdAt;
+	@Column(name="COMPLETEDAT")
+	private Date completedAt;
+}
@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A response as stored for an idempotency key, together with the hash of the
+ * request that produced it.
+ */
+@Getter
+@AllArgsConstructor
+public class IdempotentResponse {
+
+	private final String requestHash;
+	private final int status;
+	private final String contentType;
+	private final String body;
+}
@@ -0,0 +1,64 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One partition of a batch job run. A node owns the partition while LEASEUNTIL
+ * is in the future; an expired lease can be taken over by any node. The row also
+ * records what the owner achieved, which doubles as the run report.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="JOBLEASE", uniqueConstraints = @UniqueConstraint(columnNames = { "JOBNAME", "RUNDATE", "PARTITIONNO" }))
+public class JobLease {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="LEASEID")
+	private long leaseId;
+	@Column(name="JOBNAME")
+	private String jobName;
+	@Temporal(TemporalType.DATE)
+	@Column(name="RUNDATE")
+	private Date runDate;
+	@Column(name="PARTITIONNO")
+	private int partitionNo;
+	@Column(name="LOWLOANID")
+	private int lowLoanId;
+	@Column(name="HIGHLOANID")
+	private int highLoanId;
+	@Column(name="OWNER")
+	private String owner;
+	@Column(name="LEASEUNTIL")
+	private Date leaseUntil;
+	@Column(name="STATUS")
+	private String status;
+	@Column(name="PROCESSED")
+	private int processed;
+	@Column(name="FAILED")
+	private int failed;
+	@Column(name="ELAPSEDMILLIS")
+	private long elapsedMillis;
+
+	// Collected installments per second for the partition, once it has completed
+	public double getThroughputPerSecond() {
+		return elapsedMillis > 0 ? processed * 1000.0 / elapsedMillis : 0;
+	}
+}
@@ -0,0 +1,55 @@
+package com.example.demo.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.example.demo.exception.InvalidCursorException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One page of a keyset-paginated listing. nextCursor is an opaque token for the
+ * page after this one, or null on the last page; clients pass it back unchanged.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+	private final List<T> content;
+	private final int size;
+	private final String nextCursor;
+
+	public static <T> KeysetPage<T> of(Slice<T> slice, ToIntFunction<T> keyOf) {
+		List<T> content = slice.getContent();
+		String nextCursor = slice.hasNext() ? encode(keyOf.applyAsInt(content.get(content.size() - 1))) : null;
+		return new KeysetPage<>(content, content.size(), nextCursor);
+	}
+
+	// The key to continue after; a missing cursor starts from the beginning
+	public static int after(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return Integer.MIN_VALUE;
+		}
+		try {
+			return Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException("Invalid cursor: " + cursor);
+		}
+	}
+
+	// Requested size clamped to 1..MAX_PAGE_SIZE; keyset queries always read from offset 0
+	public static Pageable limit(int size) {
+		return PageRequest.of(0, Math.max(1, Math.min(size, Constants.MAX_PAGE_SIZE)));
+	}
+
+	private static String encode(int key) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(Integer.toString(key).getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,23 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Live ledger position of an account as read by LedgerRepo: the balance and the
+ * sequence number of its latest posting, which the next posting must follow.
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerBalance {
+
+	private final int accountNumber;
+	private double balance;
+	private long headSeq;
+
+	// Applies a posting in memory and returns its sequence number
+	public long append(double amount) {
+		balance += amount;
+		return ++headSeq;
+	}
+}
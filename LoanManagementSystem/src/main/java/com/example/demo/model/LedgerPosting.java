@@ -0,0 +1,59 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One leg of a ledger journal. Rows are only ever inserted; the legs of a journal
+ * share JOURNALID and their AMOUNTs sum to zero (negative is money leaving the account).
+ *
+ * Customer postings carry a gapless per-account ACCOUNTSEQ. The unique key on
+ * (ACCOUNTNUMBER, ACCOUNTSEQ) is the concurrency control: two writers that read the
+ * same head cannot both append after it. Postings on the bank's own account have no
+ * sequence, so the bank side never becomes a hot spot.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name="LEDGERPOSTING", uniqueConstraints = @UniqueConstraint(columnNames = { "ACCOUNTNUMBER", "ACCOUNTSEQ" }))
+public class LedgerPosting {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="POSTINGID")
+	private long postingId;
+	@Column(name="JOURNALID", length = 36)
+	private String journalId;
+	@Column(name="ACCOUNTNUMBER")
+	private int accountNumber;
+	@Column(name="ACCOUNTSEQ")
+	private Long accountSeq;
+	@Column(name="AMOUNT")
+	private double amount;
+	@Column(name="ENTRYTYPE")
+	private String entryType;
+	@Column(name="POSTEDAT")
+	private Date postedAt;
+
+	public LedgerPosting(String journalId, int accountNumber, Long accountSeq, double amount, String entryType, Date postedAt) {
+		this.journalId = journalId;
+		this.accountNumber = accountNumber;
+		this.accountSeq = accountSeq;
+		this.amount = amount;
+		this.entryType = entryType;
+		this.postedAt = postedAt;
+	}
+}
@@ -4,6 +4,8 @@ import java.util.Date;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -20,6 +22,7 @@ import lombok.Setter;
 public class LoanSanction {
 
 	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name="SANCTIONID")
 	private int sanctionId;
 	@Column(name="LOANID")
@@ -40,5 +43,13 @@ public class LoanSanction {
 	private double interestRate;
 	@Column(name="MONTHLYINSTALLMENTSAMOUNT")
 	private double monthlyInstallmentsAmount;
+	// Running totals kept in step with the schedule so a repayment never has to
+	// rescan it. Null on sanctions created before the columns existed.
+	@Column(name="INSTALLMENTSREMAINING")
+	private Integer installmentsRemaining;
+	@Column(name="OUTSTANDINGPRINCIPAL")
+	private Double outstandingPrincipal;
+	@Column(name="NEXTDUEDATE")
+	private Date nextDueDate;
 	
 }
@@ -0,0 +1,26 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+/**
+ * Read-only projection of an overdue installment joined with its loan and borrower,
+ * used by the reminder job so it never loads full entities.
+ */
+public interface OverdueReminderView {
+
+	int getPaymentId();
+
+	int getLoanId();
+
+	Date getPaymentDate();
+
+	double getDueLoanAmount();
+
+	int getAccountNumber();
+
+	String getEmail();
+
+	String getFirstName();
+
+	String getLastName();
+}
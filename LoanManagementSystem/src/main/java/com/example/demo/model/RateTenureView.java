@@ -0,0 +1,12 @@
+package com.example.demo.model;
+
+/**
+ * Read-only projection of a distinct (interest rate, tenure) pair offered on loan
+ * applications, used to warm the annuity factor cache.
+ */
+public interface RateTenureView {
+
+	double getInterestRate();
+
+	int getTenure();
+}
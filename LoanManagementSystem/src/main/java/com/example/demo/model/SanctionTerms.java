@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A loan sanction with the amount and tenure of its loan application, read in a
+ * single join so listing sanctions never looks the application up row by row.
+ * loanAmount and tenure are null when the application no longer exists.
+ */
+@Getter
+@AllArgsConstructor
+public class SanctionTerms {
+
+	private final LoanSanction sanction;
+	private final Double loanAmount;
+	private final Integer tenure;
+}
@@ -0,0 +1,23 @@
+package com.example.demo.model;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One row of an account statement. Read as a projection, not an entity, so a
+ * streamed export never grows the persistence context.
+ */
+@Getter
+@AllArgsConstructor
+public class StatementLine {
+
+	private final int transactionId;
+	private final Date transactionDate;
+	private final String transactionType;
+	private final int toAccNo;
+	private final double transactionAmount;
+	private final double balanceAfterTransaction;
+	private final String transactionStatus;
+}
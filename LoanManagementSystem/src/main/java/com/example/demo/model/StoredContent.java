@@ -0,0 +1,18 @@
+package com.example.demo.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Where a DocumentStore put an upload: the SHA-256 of the bytes, lower-case hex,
+ * which is also the content's address in the store, the size in bytes, and the
+ * bytes the store actually holds, which is less when it compressed the content.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredContent {
+
+	private final String hash;
+	private final long size;
+	private final long storedSize;
+}
@@ -1,6 +1,11 @@
 package com.example.demo.repo;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.AccountDetails;
@@ -17,6 +22,19 @@ public interface AccountDetailsRepo extends JpaRepository<AccountDetails, Intege
 	
 	
 	boolean existsByEmailOrMobileNo(String email, String mobileNo);
+	
+	// Debits only if the balance covers the amount; returns 0 otherwise
+	@Modifying
+	@Query("UPDATE AccountDetails a SET a.balance = a.balance - :amount WHERE a.accountNumber = :accountNumber AND a.balance >= :amount")
+	int debitIfSufficient(@Param("accountNumber") int accountNumber, @Param("amount") double amount);
+	
+	@Modifying
+	@Query("UPDATE AccountDetails a SET a.balance = a.balance + :amount WHERE a.accountNumber = :accountNumber")
+	int credit(@Param("accountNumber") int accountNumber, @Param("amount") double amount);
+	
+	@Modifying
+	@Query("UPDATE AccountDetails a SET a.balance = a.balance - :amount WHERE a.accountNumber = :accountNumber")
+	int debit(@Param("accountNumber") int accountNumber, @Param("amount") double amount);
 
-
+	Slice<AccountDetails> findByAccountNumberGreaterThanOrderByAccountNumberAsc(int afterAccountNumber, Pageable pageable);
 }
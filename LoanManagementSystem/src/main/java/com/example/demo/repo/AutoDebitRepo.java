@@ -0,0 +1,183 @@
+package com.example.demo.repo;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.BankTransaction;
+import com.example.demo.model.Constants;
+import com.example.demo.model.DueInstallment;
+
+/**
+ * Set-based statements used by the auto-debit engine. Each method is one JDBC
+ * batch (or one query) for a whole chunk of installments, so the round trips per
+ * chunk stay constant however many loans the chunk covers. Callers provide the
+ * transaction.
+ */
+@Repository
+public class AutoDebitRepo {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	public AutoDebitRepo(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	// Lowest and highest loan id with an installment due, or null if nothing is due
+	public int[] findDueLoanRange(Date dueBefore) {
+		return jdbcTemplate.query(
+				"SELECT MIN(LOANID), MAX(LOANID) FROM LOANREPAYMENTS WHERE PAYMENTSTATUS = ? AND PAYMENTDATE < ?",
+				rs -> {
+					rs.next();
+					int low = rs.getInt(1);
+					return rs.wasNull() ? null : new int[] { low, rs.getInt(2) };
+				},
+				Constants.PENDING, new Timestamp(dueBefore.getTime()));
+	}
+
+	// Keyset page of due installments for one loan id range, ordered by payment id
+	public List<DueInstallment> findDueInstallments(int lowLoanId, int highLoanId, Date dueBefore,
+			int afterPaymentId, int limit) {
+		return jdbcTemplate.query(
+				"SELECT r.PAYMENTID, r.LOANID, r.PAYMENTAMOUNT, r.DUELOANAMOUNT, r.PAYMENTMODE, "
+						+ "a.ACCOUNTNUMBER, a.EMAIL, a.FIRSTNAME, a.LASTNAME "
+						+ "FROM LOANREPAYMENTS r "
+						+ "JOIN LOANAPPLICATION l ON l.LOANID = r.LOANID "
+						+ "JOIN ACCOUNTDETAILS a ON a.ACCOUNTNUMBER = l.ACCOUNTNUMBER "
+						+ "WHERE r.PAYMENTSTATUS = ? AND r.PAYMENTDATE < ? AND r.LOANID BETWEEN ? AND ? AND r.PAYMENTID > ? "
+						+ "ORDER BY r.PAYMENTID LIMIT ?",
+				(rs, rowNum) -> new DueInstallment(rs.getInt(1), rs.getInt(2), rs.getDouble(3), rs.getDouble(4),
+						rs.getString(5), rs.getInt(6), rs.getString(7), rs.getString(8), rs.getString(9)),
+				Constants.PENDING, new Timestamp(dueBefore.getTime()), lowLoanId, highLoanId, afterPaymentId, limit);
+	}
+
+	/*
+	 * Flips each installment from PENDING to COMPLETED. An update count of 0 means
+	 * someone else settled it first, so it must not be debited again.
+	 */
+	public int[] markCollected(List<DueInstallment> installments) {
+		return jdbcTemplate.batchUpdate(
+				"UPDATE LOANREPAYMENTS SET PAYMENTSTATUS = ?, PAYMENTMODE = ?, "
+						+ "DUELOANAMOUNT = GREATEST(DUELOANAMOUNT - PAYMENTAMOUNT, 0) "
+						+ "WHERE PAYMENTID = ? AND PAYMENTSTATUS = ?",
+				installments, installments.size(), (ps, due) -> {
+					ps.setString(1, Constants.COMPLETED);
+					ps.setString(2, Constants.AUTO_DEBIT);
+					ps.setInt(3, due.getPaymentId());
+					ps.setString(4, Constants.PENDING);
+				})[0];
+	}
+
+	// Conditional debit per installment; 0 means the balance did not cover it
+	public int[] debit(List<DueInstallment> installments) {
+		return jdbcTemplate.batchUpdate(
+				"UPDATE ACCOUNTDETAILS SET BALANCE = BALANCE - ? WHERE ACCOUNTNUMBER = ? AND BALANCE >= ?",
+				installments, installments.size(), (ps, due) -> {
+					ps.setDouble(1, due.getPaymentAmount());
+					ps.setInt(2, due.getAccountNumber());
+					ps.setDouble(3, due.getPaymentAmount());
+				})[0];
+	}
+
+	// Puts bounced installments back exactly as they were read
+	public void restore(List<DueInstallment> installments) {
+		jdbcTemplate.batchUpdate(
+				"UPDATE LOANREPAYMENTS SET PAYMENTSTATUS = ?, PAYMENTMODE = ?, DUELOANAMOUNT = ? WHERE PAYMENTID = ?",
+				installments, installments.size(), (ps, due) -> {
+					ps.setString(1, Constants.PENDING);
+					ps.setString(2, due.getPaymentMode());
+					ps.setDouble(3, due.getDueLoanAmount());
+					ps.setInt(4, due.getPaymentId());
+				});
+	}
+
+	public Map<Integer, Double> findBalances(Collection<Integer> accountNumbers) {
+		Map<Integer, Double> balances = new HashMap<>();
+		namedParameterJdbcTemplate.query(
+				"SELECT ACCOUNTNUMBER, BALANCE FROM ACCOUNTDETAILS WHERE ACCOUNTNUMBER IN (:accountNumbers)",
+				new MapSqlParameterSource("accountNumbers", accountNumbers),
+				rs -> {
+					balances.put(rs.getInt(1), rs.getDouble(2));
+				});
+		return balances;
+	}
+
+	public void insertTransactions(List<BankTransaction> transactions) {
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO BANKTRANSACTION (ACCOUNTNUMBER, TOACCNO, TRANSACTIONTYPE, TRANSACTIONAMOUNT, "
+						+ "TRANSACTIONDATE, BALANCEAFTERTRANSACTION, TRANSACTIONSTATUS) VALUES (?, ?, ?, ?, ?, ?, ?)",
+				transactions, transactions.size(), (ps, transaction) -> {
+					ps.setInt(1, transaction.getAccountNumber());
+					ps.setInt(2, transaction.getToAccNo());
+					ps.setString(3, transaction.getTransactionType());
+					ps.setDouble(4, transaction.getTransactionAmount());
+					ps.setTimestamp(5, new Timestamp(transaction.getTransactionDate().getTime()));
+					ps.setDouble(6, transaction.getBalanceAfterTransaction());
+					ps.setString(7, transaction.getTransactionStatus());
+				});
+	}
+
+	/*
+	 * Books the collected installments against each loan's sanction counters. The
+	 * arrays are parallel: loan id, installments collected. As for a manual repayment
+	 * (LoanSanctionRepo.recordInstallmentSettled), the outstanding principal becomes
+	 * the balance carried by the next pending installment, read as the first pending
+	 * row in index order. An update count of 0 means the sanction has no counters yet.
+	 */
+	public int[] settleSanctionCounters(int[] loanIds, int[] installments) {
+		return jdbcTemplate.batchUpdate(
+				"UPDATE LOANSANCTION SET INSTALLMENTSREMAINING = INSTALLMENTSREMAINING - ?, "
+						+ "OUTSTANDINGPRINCIPAL = COALESCE((SELECT r.DUELOANAMOUNT FROM LOANREPAYMENTS r WHERE r.LOANID = ? AND r.PAYMENTSTATUS = ? "
+						+ "ORDER BY r.PAYMENTDATE, r.PAYMENTID LIMIT 1), 0), "
+						+ "NEXTDUEDATE = (SELECT MIN(r.PAYMENTDATE) FROM LOANREPAYMENTS r WHERE r.LOANID = ? AND r.PAYMENTSTATUS = ?) "
+						+ "WHERE LOANID = ? AND INSTALLMENTSREMAINING >= ?",
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						ps.setInt(1, installments[i]);
+						ps.setInt(2, loanIds[i]);
+						ps.setString(3, Constants.PENDING);
+						ps.setInt(4, loanIds[i]);
+						ps.setString(5, Constants.PENDING);
+						ps.setInt(6, loanIds[i]);
+						ps.setInt(7, installments[i]);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return loanIds.length;
+					}
+				});
+	}
+
+	public int[] closeSettledSanctions(int[] loanIds) {
+		return jdbcTemplate.batchUpdate(
+				"UPDATE LOANSANCTION SET SANCTIONSTATUS = ? WHERE LOANID = ? AND INSTALLMENTSREMAINING = 0 AND SANCTIONSTATUS <> ?",
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						ps.setString(1, Constants.CLOSED);
+						ps.setInt(2, loanIds[i]);
+						ps.setString(3, Constants.CLOSED);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return loanIds.length;
+					}
+				});
+	}
+}
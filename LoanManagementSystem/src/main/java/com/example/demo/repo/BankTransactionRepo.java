@@ -2,13 +2,18 @@ package com.example.demo.repo;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.BankTransaction;
 
 @Repository
-public interface BankTransactionRepo extends JpaRepository<BankTransaction, Integer>{
+public interface BankTransactionRepo extends JpaRepository<BankTransaction, Integer>, BankTransactionRepoCustom {
 
 	List<BankTransaction> findByAccountNumber(int accountNumber);
+
+	// Keyset page: the rows after the cursor key, in key order; Slice skips the count query
+	Slice<BankTransaction> findByTransactionIdGreaterThanOrderByTransactionIdAsc(int afterTransactionId, Pageable pageable);
 }
@@ -0,0 +1,18 @@
+package com.example.demo.repo;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+import com.example.demo.model.StatementLine;
+
+public interface BankTransactionRepoCustom {
+
+	/**
+	 * Streams the account's transactions for [from, to) in date order without
+	 * buffering the result set. Must be consumed, and closed, inside a transaction.
+	 * @param accountNumber the account number.
+	 * @param from start of the period, inclusive.
+	 * @param to end of the period, exclusive.
+	 */
+	Stream<StatementLine> streamStatement(int accountNumber, Date from, Date to);
+}
@@ -0,0 +1,50 @@
+package com.example.demo.repo;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+
+import com.example.demo.model.StatementLine;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class BankTransactionRepoCustomImpl implements BankTransactionRepoCustom {
+
+	// Rows per round trip for drivers that honour the fetch size as given
+	private static final int FETCH_SIZE = 500;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Stream<StatementLine> streamStatement(int accountNumber, Date from, Date to) {
+		return entityManager.createQuery("SELECT new com.example.demo.model.StatementLine(t.transactionId, "
+				+ "t.transactionDate, t.transactionType, t.toAccNo, t.transactionAmount, t.balanceAfterTransaction, "
+				+ "t.transactionStatus) FROM BankTransaction t "
+				+ "WHERE t.accountNumber = :accountNumber AND t.transactionDate >= :from AND t.transactionDate < :to "
+				+ "ORDER BY t.transactionDate, t.transactionId", StatementLine.class)
+				.setParameter("accountNumber", accountNumber)
+				.setParameter("from", from)
+				.setParameter("to", to)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize())
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream();
+	}
+
+	/*
+	 * Connector/J buffers the whole result set unless the connection sets
+	 * useCursorFetch, which would turn every query into a server-side cursor. A fetch
+	 * size of Integer.MIN_VALUE streams this one result set row by row instead; the
+	 * connection cannot run another statement until the stream is closed, which the
+	 * export does not need to.
+	 */
+	private int fetchSize() {
+		SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactoryImplementor.class);
+		return sessionFactory.getJdbcServices().getDialect() instanceof MySQLDialect ? Integer.MIN_VALUE : FETCH_SIZE;
+	}
+}
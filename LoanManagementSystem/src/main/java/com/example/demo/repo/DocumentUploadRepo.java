@@ -0,0 +1,15 @@
+package com.example.demo.repo;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.DocumentUpload;
+
+@Repository
+public interface DocumentUploadRepo extends JpaRepository<DocumentUpload, String> {
+
+	List<DocumentUpload> findByCreatedAtBefore(Date before);
+}
@@ -5,10 +5,14 @@ import java.util.Optional;
  
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import com.example.demo.model.DocumentSummary;
 import com.example.demo.model.Documents;
  
 @Repository
 public interface DocumentsRepo extends JpaRepository<Documents, Integer>{
 	List<Documents> findByAccountNumber(int accountNumber);
+	List<DocumentSummary> findSummariesByAccountNumber(int accountNumber);
+	boolean existsByAccountNumber(int accountNumber);
 	Optional<Documents> findByAccountNumberAndDocumentName(int accountNumber, String documentType);
+	long countByContentHash(String contentHash);
 }
\ No newline at end of file
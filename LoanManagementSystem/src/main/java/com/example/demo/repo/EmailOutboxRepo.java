@@ -0,0 +1,39 @@
+package com.example.demo.repo;
+ 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+ 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+ 
+import com.example.demo.model.EmailOutbox;
+ 
+@Repository
+public interface EmailOutboxRepo extends JpaRepository<EmailOutbox, Long>, EmailOutboxRepoCustom {
+ 
+	/*
+	 * Ids of rows that are ready to be attempted. SENDING rows whose lease has
+	 * expired are included so a worker that died mid-send does not strand a mail.
+	 */
+	@Query("SELECT o.outboxId FROM EmailOutbox o WHERE o.status IN :statuses AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt")
+	List<Long> findDueIds(@Param("statuses") Collection<String> statuses, @Param("now") Date now, Pageable pageable);
+ 
+	/*
+	 * Claims a row for one worker. Only one concurrent caller can see an update
+	 * count of 1, the others skip the row.
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE EmailOutbox o SET o.status = :sending, o.nextAttemptAt = :leaseUntil "
+			+ "WHERE o.outboxId = :id AND o.status IN :statuses AND o.nextAttemptAt <= :now")
+	int claim(@Param("id") long id, @Param("statuses") Collection<String> statuses, @Param("sending") String sending,
+			@Param("now") Date now, @Param("leaseUntil") Date leaseUntil);
+ 
+	long countByStatus(String status);
+}
@@ -0,0 +1,15 @@
+package com.example.demo.repo;
+
+import java.util.List;
+
+import com.example.demo.model.EmailOutbox;
+
+public interface EmailOutboxRepoCustom {
+
+	/**
+	 * Inserts the rows with one JDBC batch. IDENTITY ids rule out Hibernate insert
+	 * batching, so the rows are written directly and their ids are not read back.
+	 * @param rows the rows to insert.
+	 */
+	void insertAll(List<EmailOutbox> rows);
+}
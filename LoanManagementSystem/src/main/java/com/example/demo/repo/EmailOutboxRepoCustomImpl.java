@@ -0,0 +1,33 @@
+package com.example.demo.repo;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.model.EmailOutbox;
+
+public class EmailOutboxRepoCustomImpl implements EmailOutboxRepoCustom {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public EmailOutboxRepoCustomImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void insertAll(List<EmailOutbox> rows) {
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO EMAILOUTBOX (RECIPIENT, SUBJECT, BODY, STATUS, ATTEMPTS, NEXTATTEMPTAT, CREATEDAT) "
+						+ "VALUES (?, ?, ?, ?, ?, ?, ?)",
+				rows, rows.size(), (ps, row) -> {
+					ps.setString(1, row.getRecipient());
+					ps.setString(2, row.getSubject());
+					ps.setString(3, row.getBody());
+					ps.setString(4, row.getStatus());
+					ps.setInt(5, row.getAttempts());
+					ps.setTimestamp(6, new Timestamp(row.getNextAttemptAt().getTime()));
+					ps.setTimestamp(7, new Timestamp(row.getCreatedAt().getTime()));
+				});
+	}
+}
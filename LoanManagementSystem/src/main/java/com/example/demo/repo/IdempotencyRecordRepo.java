@@ -0,0 +1,44 @@
+package com.example.demo.repo;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepo extends JpaRepository<IdempotencyRecord, String> {
+
+	// Plain insert so a key another request already holds fails on the primary key instead of merging
+	@Modifying
+	@Transactional
+	@Query(value = "INSERT INTO IDEMPOTENCYKEY (IDEMPOTENCYKEY, REQUESTHASH, STATUS, RESPONSESTATUS, CREATEDAT) "
+			+ "VALUES (:key, :requestHash, :pending, 0, :createdAt)", nativeQuery = true)
+	int claim(@Param("key") String key, @Param("requestHash") String requestHash, @Param("pending") String pending,
+			@Param("createdAt") Date createdAt);
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE IdempotencyRecord r SET r.status = :completed, r.responseStatus = :responseStatus, "
+			+ "r.contentType = :contentType, r.responseBody = :responseBody, r.completedAt = :completedAt "
+			+ "WHERE r.idempotencyKey = :key AND r.status = :pending")
+	int complete(@Param("key") String key, @Param("responseStatus") int responseStatus,
+			@Param("contentType") String contentType, @Param("responseBody") String responseBody,
+			@Param("completedAt") Date completedAt, @Param("pending") String pending, @Param("completed") String completed);
+
+	// Gives the key back when the request failed without an outcome worth replaying
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.status = :pending")
+	int release(@Param("key") String key, @Param("pending") String pending);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+	int purgeCreatedBefore(@Param("before") Date before);
+}
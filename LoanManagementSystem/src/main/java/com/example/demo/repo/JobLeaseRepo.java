@@ -0,0 +1,48 @@
+package com.example.demo.repo;
+ 
+import java.util.Date;
+import java.util.List;
+ 
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+ 
+import com.example.demo.model.JobLease;
+ 
+@Repository
+public interface JobLeaseRepo extends JpaRepository<JobLease, Long> {
+ 
+	List<JobLease> findByJobNameAndRunDateOrderByPartitionNo(String jobName, Date runDate);
+ 
+	// Takes a partition that is unowned or whose owner let the lease lapse
+	@Modifying
+	@Transactional
+	@Query("UPDATE JobLease j SET j.owner = :owner, j.leaseUntil = :leaseUntil, j.status = :running "
+			+ "WHERE j.leaseId = :leaseId AND j.status <> :completed AND (j.owner IS NULL OR j.leaseUntil < :now)")
+	int claim(@Param("leaseId") long leaseId, @Param("owner") String owner, @Param("now") Date now,
+			@Param("leaseUntil") Date leaseUntil, @Param("running") String running, @Param("completed") String completed);
+ 
+	// Returns 0 if the lease was lost to another node, which must stop the owner
+	@Modifying
+	@Transactional
+	@Query("UPDATE JobLease j SET j.leaseUntil = :leaseUntil WHERE j.leaseId = :leaseId AND j.owner = :owner AND j.status = :running")
+	int renew(@Param("leaseId") long leaseId, @Param("owner") String owner, @Param("leaseUntil") Date leaseUntil,
+			@Param("running") String running);
+ 
+	@Modifying
+	@Transactional
+	@Query("UPDATE JobLease j SET j.status = :completed, j.processed = :processed, j.failed = :failed, "
+			+ "j.elapsedMillis = :elapsedMillis WHERE j.leaseId = :leaseId AND j.owner = :owner AND j.status = :running")
+	int complete(@Param("leaseId") long leaseId, @Param("owner") String owner, @Param("processed") int processed,
+			@Param("failed") int failed, @Param("elapsedMillis") long elapsedMillis,
+			@Param("running") String running, @Param("completed") String completed);
+ 
+	// Gives the partition back immediately, e.g. after an unexpected error
+	@Modifying
+	@Transactional
+	@Query("UPDATE JobLease j SET j.leaseUntil = :now WHERE j.leaseId = :leaseId AND j.owner = :owner")
+	int release(@Param("leaseId") long leaseId, @Param("owner") String owner, @Param("now") Date now);
+}
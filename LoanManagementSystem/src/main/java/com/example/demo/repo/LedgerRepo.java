@@ -0,0 +1,185 @@
+package com.example.demo.repo;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.LedgerBalance;
+import com.example.demo.model.LedgerPosting;
+
+/**
+ * Statements behind the append-only ledger. A balance is read as the account's
+ * snapshot plus the tail of postings after it; an account that was never compacted
+ * starts from its ACCOUNTDETAILS.BALANCE. Callers provide the transaction.
+ */
+@Repository
+public class LedgerRepo {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	public LedgerRepo(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+	}
+
+	// Live balance and head sequence per account; accounts that do not exist are missing from the map
+	public Map<Integer, LedgerBalance> findBalances(Collection<Integer> accountNumbers) {
+		Map<Integer, LedgerBalance> balances = new HashMap<>();
+		namedParameterJdbcTemplate.query(
+				"SELECT a.ACCOUNTNUMBER, COALESCE(s.BALANCE, a.BALANCE) + COALESCE(SUM(p.AMOUNT), 0), "
+						+ "COALESCE(MAX(p.ACCOUNTSEQ), s.LASTSEQ, 0) "
+						+ "FROM ACCOUNTDETAILS a "
+						+ "LEFT JOIN BALANCESNAPSHOT s ON s.ACCOUNTNUMBER = a.ACCOUNTNUMBER "
+						+ "LEFT JOIN LEDGERPOSTING p ON p.ACCOUNTNUMBER = a.ACCOUNTNUMBER AND p.ACCOUNTSEQ > COALESCE(s.LASTSEQ, 0) "
+						+ "WHERE a.ACCOUNTNUMBER IN (:accountNumbers) "
+						+ "GROUP BY a.ACCOUNTNUMBER, a.BALANCE, s.BALANCE, s.LASTSEQ",
+				new MapSqlParameterSource("accountNumbers", accountNumbers),
+				rs -> {
+					balances.put(rs.getInt(1), new LedgerBalance(rs.getInt(1), rs.getDouble(2), rs.getLong(3)));
+				});
+		return balances;
+	}
+
+	/*
+	 * The same positions read with locking reads, which return the latest committed
+	 * rows rather than the transaction's snapshot. Appenders queue on the account's
+	 * BALANCESNAPSHOT row, taken in account-number order, so the account row itself is
+	 * never locked; an account's first append opens that row at sequence 0 from
+	 * ACCOUNTDETAILS.BALANCE, which the ledger does not rewrite before a snapshot
+	 * exists. Accounts that do not exist are missing from the map.
+	 */
+	public Map<Integer, LedgerBalance> findBalancesForUpdate(Collection<Integer> accountNumbers) {
+		Map<Integer, LedgerBalance> balances = lockHeads(accountNumbers);
+		if (balances.size() < accountNumbers.size()) {
+			openHeads(accountNumbers.stream().filter(n -> !balances.containsKey(n)).sorted().toList());
+			balances.putAll(lockHeads(accountNumbers));
+		}
+		if (balances.isEmpty()) {
+			return balances;
+		}
+		// The tail is gapless, so applying it in sequence order ends on the head
+		namedParameterJdbcTemplate.query(
+				"SELECT p.ACCOUNTNUMBER, p.AMOUNT FROM LEDGERPOSTING p "
+						+ "JOIN BALANCESNAPSHOT s ON s.ACCOUNTNUMBER = p.ACCOUNTNUMBER "
+						+ "WHERE p.ACCOUNTNUMBER IN (:accountNumbers) AND p.ACCOUNTSEQ > s.LASTSEQ "
+						+ "ORDER BY p.ACCOUNTNUMBER, p.ACCOUNTSEQ FOR UPDATE",
+				new MapSqlParameterSource("accountNumbers", balances.keySet()),
+				rs -> {
+					balances.get(rs.getInt(1)).append(rs.getDouble(2));
+				});
+		return balances;
+	}
+
+	public LedgerBalance findBalanceForUpdate(int accountNumber) {
+		return findBalancesForUpdate(List.of(accountNumber)).get(accountNumber);
+	}
+
+	private Map<Integer, LedgerBalance> lockHeads(Collection<Integer> accountNumbers) {
+		Map<Integer, LedgerBalance> heads = new HashMap<>();
+		namedParameterJdbcTemplate.query(
+				"SELECT ACCOUNTNUMBER, BALANCE, LASTSEQ FROM BALANCESNAPSHOT WHERE ACCOUNTNUMBER IN (:accountNumbers) "
+						+ "ORDER BY ACCOUNTNUMBER FOR UPDATE",
+				new MapSqlParameterSource("accountNumbers", accountNumbers),
+				rs -> {
+					heads.put(rs.getInt(1), new LedgerBalance(rs.getInt(1), rs.getDouble(2), rs.getLong(3)));
+				});
+		return heads;
+	}
+
+	private void openHeads(List<Integer> accountNumbers) {
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<LedgerBalance> starts = namedParameterJdbcTemplate.query(
+				"SELECT ACCOUNTNUMBER, BALANCE FROM ACCOUNTDETAILS WHERE ACCOUNTNUMBER IN (:accountNumbers) ORDER BY ACCOUNTNUMBER",
+				new MapSqlParameterSource("accountNumbers", accountNumbers),
+				(rs, rowNum) -> new LedgerBalance(rs.getInt(1), rs.getDouble(2), 0));
+		for (LedgerBalance start : starts) {
+			try {
+				jdbcTemplate.update("INSERT INTO BALANCESNAPSHOT (ACCOUNTNUMBER, BALANCE, LASTSEQ, SNAPSHOTAT) VALUES (?, ?, 0, ?)",
+						start.getAccountNumber(), start.getBalance(), now);
+			} catch (DuplicateKeyException e) {
+				// Another appender opened it first; the locking read that follows waits for it
+			}
+		}
+	}
+
+	/*
+	 * One batch for all legs. A DuplicateKeyException means another writer appended
+	 * after the same head without holding it.
+	 */
+	public void insertPostings(List<LedgerPosting> postings) {
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO LEDGERPOSTING (JOURNALID, ACCOUNTNUMBER, ACCOUNTSEQ, AMOUNT, ENTRYTYPE, POSTEDAT) "
+						+ "VALUES (?, ?, ?, ?, ?, ?)",
+				postings, postings.size(), (ps, posting) -> {
+					ps.setString(1, posting.getJournalId());
+					ps.setInt(2, posting.getAccountNumber());
+					ps.setObject(3, posting.getAccountSeq(), Types.BIGINT);
+					ps.setDouble(4, posting.getAmount());
+					ps.setString(5, posting.getEntryType());
+					ps.setTimestamp(6, new Timestamp(posting.getPostedAt().getTime()));
+				});
+	}
+
+	// Accounts whose tail has grown to at least minTail postings
+	public List<Integer> findAccountsToCompact(int minTail, int limit) {
+		return jdbcTemplate.queryForList(
+				"SELECT p.ACCOUNTNUMBER FROM LEDGERPOSTING p "
+						+ "LEFT JOIN BALANCESNAPSHOT s ON s.ACCOUNTNUMBER = p.ACCOUNTNUMBER "
+						+ "WHERE p.ACCOUNTSEQ > COALESCE(s.LASTSEQ, 0) "
+						+ "GROUP BY p.ACCOUNTNUMBER HAVING COUNT(*) >= ? ORDER BY p.ACCOUNTNUMBER LIMIT ?",
+				Integer.class, minTail, limit);
+	}
+
+	public Set<Integer> findSnapshotAccounts(Collection<Integer> accountNumbers) {
+		return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+				"SELECT ACCOUNTNUMBER FROM BALANCESNAPSHOT WHERE ACCOUNTNUMBER IN (:accountNumbers)",
+				new MapSqlParameterSource("accountNumbers", accountNumbers), Integer.class));
+	}
+
+	// Moves snapshots forward only; 0 means a newer snapshot is already in place
+	public int[] updateSnapshots(List<LedgerBalance> balances, Date snapshotAt) {
+		return jdbcTemplate.batchUpdate(
+				"UPDATE BALANCESNAPSHOT SET BALANCE = ?, LASTSEQ = ?, SNAPSHOTAT = ? WHERE ACCOUNTNUMBER = ? AND LASTSEQ < ?",
+				balances, balances.size(), (ps, balance) -> {
+					ps.setDouble(1, balance.getBalance());
+					ps.setLong(2, balance.getHeadSeq());
+					ps.setTimestamp(3, new Timestamp(snapshotAt.getTime()));
+					ps.setInt(4, balance.getAccountNumber());
+					ps.setLong(5, balance.getHeadSeq());
+				})[0];
+	}
+
+	public void insertSnapshots(List<LedgerBalance> balances, Date snapshotAt) {
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO BALANCESNAPSHOT (ACCOUNTNUMBER, BALANCE, LASTSEQ, SNAPSHOTAT) VALUES (?, ?, ?, ?)",
+				balances, balances.size(), (ps, balance) -> {
+					ps.setInt(1, balance.getAccountNumber());
+					ps.setDouble(2, balance.getBalance());
+					ps.setLong(3, balance.getHeadSeq());
+					ps.setTimestamp(4, new Timestamp(snapshotAt.getTime()));
+				});
+	}
+
+	// ACCOUNTDETAILS.BALANCE becomes a read model of the latest snapshot
+	public void refreshAccountBalances(List<LedgerBalance> balances) {
+		jdbcTemplate.batchUpdate(
+				"UPDATE ACCOUNTDETAILS SET BALANCE = ? WHERE ACCOUNTNUMBER = ?",
+				balances, balances.size(), (ps, balance) -> {
+					ps.setDouble(1, balance.getBalance());
+					ps.setInt(2, balance.getAccountNumber());
+				});
+	}
+}
@@ -3,10 +3,16 @@ package com.example.demo.repo;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.LoanApplication;
+import com.example.demo.model.RateTenureView;
 
 @Repository
 public interface LoanApplicationRepo extends JpaRepository<LoanApplication, Integer>{
@@ -18,4 +24,13 @@ public interface LoanApplicationRepo extends JpaRepository<LoanApplication, Inte
 	 List<LoanApplication> findByAccountNumberAndLoanType(int accountNumber, String loanType);
 	 
 	 Optional<LoanApplication> findByloanId(int loanId);
+	 
+	 @Modifying
+	 @Query("UPDATE LoanApplication l SET l.status = :status WHERE l.loanId = :loanId")
+	 int updateStatus(@Param("loanId") int loanId, @Param("status") String status);
+
+	Slice<LoanApplication> findByLoanIdGreaterThanOrderByLoanIdAsc(int afterLoanId, Pageable pageable);
+
+	@Query("SELECT DISTINCT l.interestRate AS interestRate, l.tenure AS tenure FROM LoanApplication l")
+	List<RateTenureView> findDistinctRateAndTenure();
 }
@@ -2,11 +2,17 @@ package com.example.demo.repo;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.demo.model.LoanRepayments;
+import com.example.demo.model.OverdueReminderView;
 @Repository
-public interface LoanRepaymentsRepo extends JpaRepository<LoanRepayments, Integer>{
+public interface LoanRepaymentsRepo extends JpaRepository<LoanRepayments, Integer>, LoanRepaymentsRepoCustom {
     public List<LoanRepayments> findByLoanId(int loanId);
     public List<LoanRepayments> findByPaymentStatus(String paymentStatus);
     List<LoanRepayments> findByPaymentDateAndPaymentMode(Date paymentDate, String paymentMode);
@@ -15,4 +21,28 @@ public interface LoanRepaymentsRepo extends JpaRepository<LoanRepayments, Intege
             int loanId, Date startDate, Date endDate);
 	public List<LoanRepayments> findByLoanIdAndPaymentStatus(int loanId, String accountStatus);
 	public List<LoanRepayments> findByPaymentDateBeforeAndPaymentStatus(Date today, String string);
-}
\ No newline at end of file
+
+	// Keyset page over (accountNumber, paymentId) so each borrower's installments arrive together
+	@Query("select r.paymentId as paymentId, r.loanId as loanId, r.paymentDate as paymentDate, "
+			+ "r.dueLoanAmount as dueLoanAmount, a.accountNumber as accountNumber, a.email as email, "
+			+ "a.firstName as firstName, a.lastName as lastName "
+			+ "from LoanRepayments r "
+			+ "join LoanApplication l on l.loanId = r.loanId "
+			+ "join AccountDetails a on a.accountNumber = l.accountNumber "
+			+ "where r.paymentStatus = :paymentStatus and r.paymentDate < :before "
+			+ "and (a.accountNumber > :afterAccountNumber "
+			+ "or (a.accountNumber = :afterAccountNumber and r.paymentId > :afterPaymentId)) "
+			+ "order by a.accountNumber, r.paymentId")
+	List<OverdueReminderView> findOverdueReminderPage(@Param("paymentStatus") String paymentStatus,
+			@Param("before") Date before, @Param("afterAccountNumber") int afterAccountNumber,
+			@Param("afterPaymentId") int afterPaymentId, Pageable pageable);
+
+	// Settles every outstanding installment of a loan in one statement (pre-closure)
+	@Modifying
+	@Query("update LoanRepayments r set r.paymentStatus = :completed, r.paymentMode = :paymentMode, r.dueLoanAmount = 0 "
+			+ "where r.loanId = :loanId and r.paymentStatus = :pending")
+	int settlePendingInstallments(@Param("loanId") int loanId, @Param("paymentMode") String paymentMode,
+			@Param("pending") String pending, @Param("completed") String completed);
+
+	Slice<LoanRepayments> findByPaymentIdGreaterThanOrderByPaymentIdAsc(int afterPaymentId, Pageable pageable);
+}
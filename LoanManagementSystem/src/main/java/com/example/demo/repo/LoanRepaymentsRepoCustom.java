@@ -0,0 +1,15 @@
+package com.example.demo.repo;
+
+import java.util.List;
+
+import com.example.demo.model.LoanRepayments;
+
+public interface LoanRepaymentsRepoCustom {
+
+	/**
+	 * Persists the given repayments using JDBC batch inserts, flushing and clearing
+	 * the persistence context after every batch so memory stays bounded.
+	 * @param repayments the repayments to insert.
+	 */
+	void saveAllInBatches(List<LoanRepayments> repayments);
+}
@@ -0,0 +1,33 @@
+package com.example.demo.repo;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import com.example.demo.model.LoanRepayments;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class LoanRepaymentsRepoCustomImpl implements LoanRepaymentsRepoCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// Kept equal to hibernate.jdbc.batch_size so every flush sends full batches
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int batchSize;
+
+	@Override
+	public void saveAllInBatches(List<LoanRepayments> repayments) {
+		for (int i = 0; i < repayments.size(); i++) {
+			entityManager.persist(repayments.get(i));
+			if ((i + 1) % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+}
@@ -2,14 +2,82 @@ package com.example.demo.repo;
  
 import java.util.List;
  
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
  
 import com.example.demo.model.LoanSanction;
+import com.example.demo.model.SanctionTerms;
+
+import jakarta.persistence.QueryHint;
  
 @Repository
 public interface LoanSanctionRepo extends JpaRepository<LoanSanction, Integer> {
  
 	LoanSanction findByLoanId(int loanId);
 	List<LoanSanction> findBySanctionStatus(String sanctionStatus);
-}
\ No newline at end of file
+ 
+	/*
+	 * Books one installment against the loan's counters, once its row has left
+	 * PENDING. The outstanding principal becomes the amortized balance carried by the
+	 * next pending installment; an installment also pays interest, so subtracting it
+	 * would run ahead of the schedule. Both subqueries take the first pending row in
+	 * IDX_LOANREPAYMENTS_LOAN_STATUS_DATE order, so neither reads the rest of the
+	 * schedule. Returns 0 when the counters were never initialised (legacy sanction)
+	 * or are already at zero.
+	 */
+	@Modifying
+	@Query("UPDATE LoanSanction s SET s.installmentsRemaining = s.installmentsRemaining - 1, "
+			+ "s.outstandingPrincipal = COALESCE((SELECT r.dueLoanAmount FROM LoanRepayments r WHERE r.loanId = :loanId AND r.paymentStatus = :pending "
+			+ "ORDER BY r.paymentDate, r.paymentId LIMIT 1), 0), "
+			+ "s.nextDueDate = (SELECT MIN(r.paymentDate) FROM LoanRepayments r WHERE r.loanId = :loanId AND r.paymentStatus = :pending) "
+			+ "WHERE s.loanId = :loanId AND s.installmentsRemaining > 0")
+	int recordInstallmentSettled(@Param("loanId") int loanId, @Param("pending") String pending);
+ 
+	// One-off derivation of the counters for sanctions approved before they existed
+	@Modifying
+	@Query("UPDATE LoanSanction s SET "
+			+ "s.installmentsRemaining = (SELECT COUNT(r) FROM LoanRepayments r WHERE r.loanId = :loanId AND r.paymentStatus = :pending), "
+			+ "s.outstandingPrincipal = (SELECT COALESCE(MAX(r.dueLoanAmount), 0) FROM LoanRepayments r WHERE r.loanId = :loanId AND r.paymentStatus = :pending), "
+			+ "s.nextDueDate = (SELECT MIN(r.paymentDate) FROM LoanRepayments r WHERE r.loanId = :loanId AND r.paymentStatus = :pending) "
+			+ "WHERE s.loanId = :loanId AND s.installmentsRemaining IS NULL")
+	int initializeCounters(@Param("loanId") int loanId, @Param("pending") String pending);
+ 
+	// Closes the sanction only if nothing is left to pay; returns 1 on the closing call
+	@Modifying
+	@Query("UPDATE LoanSanction s SET s.sanctionStatus = :closed "
+			+ "WHERE s.loanId = :loanId AND s.installmentsRemaining = 0 AND s.sanctionStatus <> :closed")
+	int closeIfSettled(@Param("loanId") int loanId, @Param("closed") String closed);
+ 
+	// Pre-closure: nothing is left to pay, whatever the counters said
+	@Modifying
+	@Query("UPDATE LoanSanction s SET s.sanctionStatus = :closed, s.installmentsRemaining = 0, "
+			+ "s.outstandingPrincipal = 0, s.nextDueDate = NULL WHERE s.loanId = :loanId")
+	int closeSettled(@Param("loanId") int loanId, @Param("closed") String closed);
+
+	/*
+	 * Sanctions joined with the loan amount and tenure of their application, for the
+	 * list endpoints. Loaded read-only: the installment the service sets on each one is
+	 * for display and must never be flushed back.
+	 */
+	String WITH_TERMS = "SELECT new com.example.demo.model.SanctionTerms(s, a.loanAmount, a.tenure) "
+			+ "FROM LoanSanction s LEFT JOIN LoanApplication a ON a.loanId = s.loanId";
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query(WITH_TERMS)
+	List<SanctionTerms> findAllWithTerms();
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query(WITH_TERMS + " WHERE s.sanctionStatus = :sanctionStatus")
+	List<SanctionTerms> findBySanctionStatusWithTerms(@Param("sanctionStatus") String sanctionStatus);
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query(WITH_TERMS + " WHERE s.sanctionId > :afterSanctionId ORDER BY s.sanctionId ASC")
+	Slice<SanctionTerms> findWithTermsAfter(@Param("afterSanctionId") int afterSanctionId, Pageable pageable);
+}
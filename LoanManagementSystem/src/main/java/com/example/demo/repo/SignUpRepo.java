@@ -3,6 +3,8 @@ package com.example.demo.repo;
 
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -27,5 +29,5 @@ public interface SignUpRepo extends JpaRepository<SignUp, Integer> {
 	
     SignUp searchByEmail(String email);
 
-
+	Slice<SignUp> findByIdGreaterThanOrderByIdAsc(int afterId, Pageable pageable);
 }
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 
 import com.example.demo.exception.EmailSendingException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.AccountDetails;
 import com.example.demo.repo.AccountDetailsRepo;
 import jakarta.transaction.Transactional;
@@ -48,6 +49,17 @@ public class AccountDetailsService {
         logger.info("Fetched {} account details." + accountDetailsList.size());
         return accountDetailsList;
     }
+
+    /**
+     * This method retrieves one keyset page of account details, in account number order.
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param size maximum number of accounts on the page.
+     * @return KeysetPage<AccountDetails> page of account details.
+     */
+    public KeysetPage<AccountDetails> showAccountDetailsPage(String cursor, int size) {
+        return KeysetPage.of(accountdetailsRepo.findByAccountNumberGreaterThanOrderByAccountNumberAsc(
+                KeysetPage.after(cursor), KeysetPage.limit(size)), AccountDetails::getAccountNumber);
+    }
  
     /**
      * This method searches for an account by its ID (AccountNumber).
@@ -0,0 +1,204 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Single-writer engine for account balance mutations.
+ *
+ * Every account number hashes onto one of N shards, and each shard is a single
+ * thread draining its own queue. All mutations of an account therefore run one at
+ * a time on the same thread, which rules out lost updates without any locking.
+ *
+ * Work touching two accounts on different shards is queued on the lower shard,
+ * whose thread then hands it to the higher shard and waits. The lower shard is
+ * parked for the duration, so both accounts are owned exclusively, and because a
+ * shard only ever waits on a higher one the wait graph has no cycles.
+ *
+ * Each unit of work runs in its own transaction on the shard thread. On shutdown,
+ * work still queued is failed rather than dropped, so no caller waits forever.
+ */
+@Component
+public class AccountShardEngine implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountShardEngine.class);
+
+    private final Shard[] shards;
+    private final TransactionOperations transactionOperations;
+
+    @Autowired
+    public AccountShardEngine(PlatformTransactionManager transactionManager,
+                              @Value("${lms.accounts.shards:0}") int shardCount,
+                              @Value("${lms.accounts.shard-queue-capacity:1024}") int queueCapacity) {
+        this(shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors(), queueCapacity,
+                new TransactionTemplate(transactionManager));
+    }
+
+    public AccountShardEngine(int shardCount, int queueCapacity, TransactionOperations transactionOperations) {
+        this.transactionOperations = transactionOperations;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+        }
+        logger.info("Account engine started with {} shards", shardCount);
+    }
+
+    /**
+     * Runs work that mutates a single account on the account's shard and waits for it.
+     */
+    public <T> T execute(int accountNumber, Supplier<T> work) {
+        return await(shards[shardOf(accountNumber)].submit(() -> transactionOperations.execute(status -> work.get())));
+    }
+
+    /**
+     * Runs work that mutates two accounts with exclusive ownership of both and waits for it.
+     */
+    public <T> T execute(int accountA, int accountB, Supplier<T> work) {
+        int first = shardOf(accountA);
+        int second = shardOf(accountB);
+        if (first == second) {
+            return execute(accountA, work);
+        }
+        Shard low = shards[Math.min(first, second)];
+        Shard high = shards[Math.max(first, second)];
+        Supplier<T> transactional = () -> transactionOperations.execute(status -> work.get());
+        return await(low.submit(() -> high.submit(transactional).join()));
+    }
+
+    public int shardOf(int accountNumber) {
+        // Spread sequential account numbers before reducing them to a shard index
+        int hash = accountNumber * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void destroy() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            // Surface the business exception (e.g. InsufficientBalanceException) unchanged
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Shard {
+
+        private final String name;
+        private final BlockingQueue<Task<?>> queue;
+        private final Thread thread;
+        private volatile boolean closed;
+
+        Shard(int index, int queueCapacity) {
+            this.name = "account-shard-" + index;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::drain, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> work) {
+            Task<T> task = new Task<>(work);
+            if (Thread.currentThread() == thread) {
+                // Already on this shard: queueing would wait on ourselves
+                task.run();
+                return task.result;
+            }
+            if (closed) {
+                task.reject(name);
+                return task.result;
+            }
+            try {
+                // Blocks the submitter when the shard is saturated instead of growing without bound
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                task.result.completeExceptionally(e);
+                return task.result;
+            }
+            // Closed while queueing: unless close() already failed it, nothing will run it
+            if (closed && queue.remove(task)) {
+                task.reject(name);
+            }
+            return task.result;
+        }
+
+        void close() {
+            closed = true;
+            thread.interrupt();
+            List<Task<?>> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            for (Task<?> task : pending) {
+                task.reject(name);
+            }
+            if (!pending.isEmpty()) {
+                logger.warn("{} shut down with {} queued mutations, failed them", name, pending.size());
+            }
+        }
+
+        private void drain() {
+            while (!closed && !Thread.currentThread().isInterrupted()) {
+                try {
+                    queue.take().run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static final class Task<T> implements Runnable {
+
+        private final Supplier<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Task(Supplier<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.complete(work.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+
+        void reject(String shard) {
+            result.completeExceptionally(new RejectedExecutionException(shard + " is shut down"));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+/**
+ * Level-payment (EMI) amortization shared by the loan calculator, the sanction
+ * view and loan approval. Works on primitives only: a schedule is written into
+ * arrays supplied by the caller, so computing one allocates nothing per month.
+ */
+public final class AmortizationKernel {
+
+    private AmortizationKernel() {
+    }
+
+    /**
+     * Monthly rate for an annual percentage rate, e.g. 12 gives 0.01.
+     */
+    public static double monthlyRate(double annualInterestRate) {
+        return annualInterestRate / 1200;
+    }
+
+    /**
+     * Fixed monthly installment that repays the principal over the given number of
+     * months. A zero rate repays the principal in equal parts.
+     * @return the installment, or NaN when the loan cannot be amortized.
+     */
+    public static double installment(double principal, double monthlyRate, int months) {
+        return principal * annuityFactor(monthlyRate, months);
+    }
+
+    /**
+     * Installment per unit of principal, r(1+r)^n / ((1+r)^n - 1). It depends only on
+     * the rate and the term, so callers may cache it; see AnnuityFactorCache.
+     * @return the factor, or NaN when the loan cannot be amortized.
+     */
+    public static double annuityFactor(double monthlyRate, int months) {
+        if (months <= 0 || monthlyRate < 0) {
+            return Double.NaN;
+        }
+        if (monthlyRate == 0) {
+            return 1.0 / months;
+        }
+        double growth = Math.pow(1 + monthlyRate, months);
+        return monthlyRate * growth / (growth - 1);
+    }
+
+    /**
+     * Fills in the schedule of a loan repaid by the given installment. Entry i of each
+     * array is month i + 1: the interest charged, the principal repaid and the balance
+     * left after the payment. The last month repays whatever remains, so the balance
+     * ends at exactly zero even when the installment was rounded.
+     * The arrays must hold at least months entries.
+     */
+    public static void schedule(double principal, double monthlyRate, int months, double installment,
+                                double[] interest, double[] principalRepaid, double[] balance) {
+        double open = principal;
+        for (int i = 0; i < months; i++) {
+            double due = open * monthlyRate;
+            double repaid = repaid(open, due, installment, i == months - 1);
+            open -= repaid;
+            interest[i] = due;
+            principalRepaid[i] = repaid;
+            balance[i] = open;
+        }
+    }
+
+    /**
+     * The balance column of schedule on its own, for callers that need nothing else.
+     * The array must hold at least months entries.
+     */
+    public static void balances(double principal, double monthlyRate, int months, double installment, double[] balance) {
+        double open = principal;
+        for (int i = 0; i < months; i++) {
+            open -= repaid(open, open * monthlyRate, installment, i == months - 1);
+            balance[i] = open;
+        }
+    }
+
+    private static double repaid(double open, double due, double installment, boolean lastMonth) {
+        return lastMonth ? open : Math.min(installment - due, open);
+    }
+}
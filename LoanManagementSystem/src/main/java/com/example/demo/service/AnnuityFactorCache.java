@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.Constants;
+
+/**
+ * Bounded, lock-free cache of annuity factors keyed by (annual rate in basis points,
+ * months). Rates and tenures in use are a small discrete set, so the calculator, the
+ * sanction view and loan approval mostly find the factor here instead of calling
+ * Math.pow.
+ *
+ * The cache is direct-mapped: each key hashes to one slot holding an immutable entry,
+ * and a colliding key simply replaces it. Readers never block and a hit allocates nothing.
+ * Rates that are not a whole number of basis points bypass the cache, so a cached
+ * factor is always exactly the one the kernel would compute.
+ */
+@Component
+public class AnnuityFactorCache {
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicInteger entries = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AnnuityFactorCache() {
+        this(Constants.ANNUITY_FACTOR_CACHE_SLOTS);
+    }
+
+    /**
+     * @param slots capacity of the cache; must be a power of two.
+     */
+    public AnnuityFactorCache(int slots) {
+        if (slots <= 0 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two: " + slots);
+        }
+        this.slots = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Fixed monthly installment for the principal, from the cached factor.
+     * @return the installment, or NaN when the loan cannot be amortized.
+     */
+    public double installment(double principal, double annualInterestRate, int months) {
+        return principal * factor(annualInterestRate, months);
+    }
+
+    /**
+     * Installment per unit of principal for an annual percentage rate and a term in months.
+     * @return the factor, or NaN when the loan cannot be amortized.
+     */
+    public double factor(double annualInterestRate, int months) {
+        long key = key(annualInterestRate, months);
+        if (key < 0) {
+            return AmortizationKernel.annuityFactor(AmortizationKernel.monthlyRate(annualInterestRate), months);
+        }
+        int index = index(key);
+        Entry entry = slots.get(index);
+        if (entry != null && entry.key == key) {
+            hits.increment();
+            return entry.factor;
+        }
+        misses.increment();
+        return store(index, key, annualInterestRate, months);
+    }
+
+    /**
+     * Computes and stores the factor ahead of the first request. Counts as neither a hit nor a miss.
+     */
+    public void preload(double annualInterestRate, int months) {
+        long key = key(annualInterestRate, months);
+        if (key >= 0) {
+            store(index(key), key, annualInterestRate, months);
+        }
+    }
+
+    /**
+     * Counters since startup, for monitoring.
+     */
+    public Map<String, Number> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("entries", entries.get());
+        stats.put("capacity", slots.length());
+        return stats;
+    }
+
+    private double store(int index, long key, double annualInterestRate, int months) {
+        double factor = AmortizationKernel.annuityFactor(AmortizationKernel.monthlyRate(annualInterestRate), months);
+        Entry previous = slots.getAndSet(index, new Entry(key, factor));
+        if (previous == null) {
+            entries.incrementAndGet();
+        }
+        return factor;
+    }
+
+    // Non-negative key for a cacheable (rate, months) pair, -1 otherwise
+    private static long key(double annualInterestRate, int months) {
+        if (months <= 0 || !(annualInterestRate >= 0) || annualInterestRate > Integer.MAX_VALUE / 100) {
+            return -1;
+        }
+        long basisPoints = Math.round(annualInterestRate * 100);
+        if (basisPoints / 100.0 != annualInterestRate) {
+            return -1;
+        }
+        return basisPoints << 32 | months;
+    }
+
+    private int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private static final class Entry {
+        final long key;
+        final double factor;
+
+        Entry(long key, double factor) {
+            this.key = key;
+            this.factor = factor;
+        }
+    }
+}
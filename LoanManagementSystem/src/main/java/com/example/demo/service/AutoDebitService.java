@@ -0,0 +1,358 @@
+package com.example.demo.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.model.BankTransaction;
+import com.example.demo.model.Constants;
+import com.example.demo.model.DueInstallment;
+import com.example.demo.model.JobLease;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.JobLeaseRepo;
+import com.example.demo.repo.LoanSanctionRepo;
+
+/**
+ * Collects due installments straight from the borrower's account.
+ *
+ * A run is split into loan id ranges, one JOBLEASE row per range. Every node that
+ * runs the job competes for those rows; a node only works on a range while it holds
+ * the lease, and renews it after each chunk. Inside a range installments are read
+ * in keyset chunks and each chunk is collected in one transaction with a handful of
+ * JDBC batches (see AutoDebitRepo). An installment is flipped from PENDING before
+ * the account is debited, so even two nodes on the same range cannot debit it twice.
+ */
+@Service
+@EnableScheduling
+public class AutoDebitService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoDebitService.class);
+    public static final String JOB_NAME = "AUTO_DEBIT";
+
+    private final AutoDebitRepo autoDebitRepo;
+    private final JobLeaseRepo jobLeaseRepo;
+    private final LoanSanctionRepo loanSanctionRepo;
+    private final EmailService emailService;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor autoDebitExecutor;
+    private final Executor autoDebitLauncher;
+    private final int partitions;
+    private final int chunkSize;
+    private final long leaseMillis;
+    private final int workers;
+    private final String nodeId;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public AutoDebitService(AutoDebitRepo autoDebitRepo, JobLeaseRepo jobLeaseRepo, LoanSanctionRepo loanSanctionRepo,
+                            EmailService emailService, LedgerService ledgerService,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier("autoDebitExecutor") Executor autoDebitExecutor,
+                            @Qualifier("autoDebitLauncher") Executor autoDebitLauncher,
+                            @Value("${lms.autodebit.partitions:16}") int partitions,
+                            @Value("${lms.autodebit.chunk-size:500}") int chunkSize,
+                            @Value("${lms.autodebit.lease-ms:300000}") long leaseMillis,
+                            @Value("${lms.autodebit.workers:4}") int workers,
+                            @Value("${lms.autodebit.node-id:}") String nodeId) {
+        this.autoDebitRepo = autoDebitRepo;
+        this.jobLeaseRepo = jobLeaseRepo;
+        this.loanSanctionRepo = loanSanctionRepo;
+        this.emailService = emailService;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.autoDebitExecutor = autoDebitExecutor;
+        this.autoDebitLauncher = autoDebitLauncher;
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.leaseMillis = leaseMillis;
+        this.workers = workers;
+        this.nodeId = nodeId.isEmpty() ? defaultNodeId() : nodeId;
+    }
+
+    @Scheduled(cron = "${lms.autodebit.cron:0 0 6 * * ?}")
+    public void collectDueInstallments() {
+        run(LocalDate.now());
+    }
+
+    /**
+     * Collects everything due on or before the given day. Safe to call on several
+     * nodes at once and to call again after a crash: finished partitions are skipped
+     * and settled installments are never debited twice.
+     *
+     * @return the partitions this node completed
+     */
+    public List<JobLease> run(LocalDate runDate) {
+        Date runDay = java.sql.Date.valueOf(runDate);
+        Date dueBefore = java.sql.Date.valueOf(runDate.plusDays(1));
+        List<JobLease> leases = ensurePartitions(runDay, dueBefore);
+        if (leases.isEmpty()) {
+            logger.info("Auto-debit {}: nothing due", runDate);
+            return leases;
+        }
+
+        List<JobLease> completed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int worker = 0; worker < Math.min(workers, leases.size()); worker++) {
+            int offset = worker;
+            running.add(CompletableFuture.runAsync(() -> claimAndProcess(leases, offset, dueBefore, completed),
+                    autoDebitExecutor));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+
+        completed.sort(Comparator.comparingInt(JobLease::getPartitionNo));
+        for (JobLease lease : completed) {
+            logger.info("Auto-debit {} partition {} [{}..{}] on {}: {} collected, {} bounced in {} ms ({} /s)",
+                    runDate, lease.getPartitionNo(), lease.getLowLoanId(), lease.getHighLoanId(), nodeId,
+                    lease.getProcessed(), lease.getFailed(), lease.getElapsedMillis(),
+                    String.format("%.1f", lease.getThroughputPerSecond()));
+        }
+        return completed;
+    }
+
+    /**
+     * Starts run(runDate) in the background and returns straight away; progress is
+     * read from getPartitions. Returns false if a run started here has not finished.
+     */
+    public boolean start(LocalDate runDate) {
+        if (!started.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            autoDebitLauncher.execute(() -> {
+                try {
+                    run(runDate);
+                } catch (RuntimeException e) {
+                    logger.error("Auto-debit {} failed on {}: {}", runDate, nodeId, e.getMessage(), e);
+                } finally {
+                    started.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            started.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public List<JobLease> getPartitions(LocalDate runDate) {
+        return jobLeaseRepo.findByJobNameAndRunDateOrderByPartitionNo(JOB_NAME, java.sql.Date.valueOf(runDate));
+    }
+
+    // The first node to get here fixes the ranges for the day; the others read them
+    private List<JobLease> ensurePartitions(Date runDay, Date dueBefore) {
+        List<JobLease> leases = jobLeaseRepo.findByJobNameAndRunDateOrderByPartitionNo(JOB_NAME, runDay);
+        if (!leases.isEmpty()) {
+            return leases;
+        }
+        int[] range = autoDebitRepo.findDueLoanRange(dueBefore);
+        if (range == null) {
+            return leases;
+        }
+
+        long span = (long) range[1] - range[0] + 1;
+        long width = (span + partitions - 1) / partitions;
+        int count = (int) ((span + width - 1) / width);
+        List<JobLease> created = new ArrayList<>(count);
+        for (int partition = 0; partition < count; partition++) {
+            JobLease lease = new JobLease();
+            lease.setJobName(JOB_NAME);
+            lease.setRunDate(runDay);
+            lease.setPartitionNo(partition);
+            lease.setLowLoanId((int) (range[0] + partition * width));
+            lease.setHighLoanId((int) Math.min(range[1], range[0] + (partition + 1) * width - 1));
+            lease.setStatus(Constants.PENDING);
+            created.add(lease);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jobLeaseRepo.saveAllAndFlush(created));
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Auto-debit partitions for {} already created by another node", runDay);
+        }
+        return jobLeaseRepo.findByJobNameAndRunDateOrderByPartitionNo(JOB_NAME, runDay);
+    }
+
+    // Keeps sweeping the partitions until a full pass claims nothing
+    private void claimAndProcess(List<JobLease> leases, int offset, Date dueBefore, List<JobLease> completed) {
+        boolean claimedAny = true;
+        while (claimedAny) {
+            claimedAny = false;
+            for (int i = 0; i < leases.size(); i++) {
+                JobLease lease = leases.get((i + offset) % leases.size());
+                Date now = new Date();
+                if (jobLeaseRepo.claim(lease.getLeaseId(), nodeId, now, new Date(now.getTime() + leaseMillis),
+                        Constants.RUNNING, Constants.COMPLETED) == 0) {
+                    continue;
+                }
+                claimedAny = true;
+                try {
+                    JobLease done = processPartition(lease, dueBefore);
+                    if (done != null) {
+                        completed.add(done);
+                    }
+                } catch (RuntimeException e) {
+                    logger.error("Auto-debit partition {} failed on {}: {}", lease.getPartitionNo(), nodeId, e.getMessage(), e);
+                    jobLeaseRepo.release(lease.getLeaseId(), nodeId, new Date());
+                }
+            }
+        }
+    }
+
+    private JobLease processPartition(JobLease lease, Date dueBefore) {
+        long start = System.nanoTime();
+        int collected = 0;
+        int bounced = 0;
+        int afterPaymentId = Integer.MIN_VALUE;
+
+        while (true) {
+            int after = afterPaymentId;
+            int[] chunk = transactionTemplate.execute(status -> collectChunk(lease, dueBefore, after));
+            collected += chunk[1];
+            bounced += chunk[2];
+            if (chunk[0] < chunkSize) {
+                break;
+            }
+            afterPaymentId = chunk[3];
+            if (jobLeaseRepo.renew(lease.getLeaseId(), nodeId, new Date(System.currentTimeMillis() + leaseMillis),
+                    Constants.RUNNING) == 0) {
+                logger.warn("Auto-debit partition {} lease lost by {}, stopping", lease.getPartitionNo(), nodeId);
+                return null;
+            }
+        }
+
+        long elapsedMillis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        if (jobLeaseRepo.complete(lease.getLeaseId(), nodeId, collected, bounced, elapsedMillis,
+                Constants.RUNNING, Constants.COMPLETED) == 0) {
+            return null;
+        }
+        lease.setOwner(nodeId);
+        lease.setStatus(Constants.COMPLETED);
+        lease.setProcessed(collected);
+        lease.setFailed(bounced);
+        lease.setElapsedMillis(elapsedMillis);
+        return lease;
+    }
+
+    /*
+     * Collects one chunk in the caller's transaction.
+     * Returns { rows read, collected, bounced, last payment id read }.
+     */
+    private int[] collectChunk(JobLease lease, Date dueBefore, int afterPaymentId) {
+        List<DueInstallment> due = autoDebitRepo.findDueInstallments(lease.getLowLoanId(), lease.getHighLoanId(),
+                dueBefore, afterPaymentId, chunkSize);
+        if (due.isEmpty()) {
+            return new int[] { 0, 0, 0, afterPaymentId };
+        }
+        int lastPaymentId = due.get(due.size() - 1).getPaymentId();
+
+        // Touch accounts in a fixed order so concurrent writers take row locks consistently
+        List<DueInstallment> ordered = new ArrayList<>(due);
+        ordered.sort(Comparator.comparingInt(DueInstallment::getAccountNumber).thenComparingInt(DueInstallment::getPaymentId));
+
+        int[] flipped = autoDebitRepo.markCollected(ordered);
+        List<DueInstallment> claimed = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            if (flipped[i] == 1) {
+                claimed.add(ordered.get(i));
+            }
+        }
+        if (claimed.isEmpty()) {
+            return new int[] { due.size(), 0, 0, lastPaymentId };
+        }
+
+        int[] debited = ledgerService.debitAll(claimed);
+        List<DueInstallment> collected = new ArrayList<>(claimed.size());
+        List<DueInstallment> bounced = new ArrayList<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            (debited[i] == 1 ? collected : bounced).add(claimed.get(i));
+        }
+        if (!bounced.isEmpty()) {
+            // Left PENDING so reminders keep going out and tomorrow's run retries them
+            autoDebitRepo.restore(bounced);
+        }
+        if (!collected.isEmpty()) {
+            recordCollected(collected);
+        }
+        return new int[] { due.size(), collected.size(), bounced.size(), lastPaymentId };
+    }
+
+    private void recordCollected(List<DueInstallment> collected) {
+        Date now = new Date();
+        Map<Integer, Double> balances = ledgerService.balancesOf(
+                collected.stream().map(DueInstallment::getAccountNumber).distinct().toList());
+
+        // Balances are final after the debits; walk each account's debits backwards to get the balance after each one
+        BankTransaction[] transactions = new BankTransaction[collected.size()];
+        Map<Integer, Double> balanceAfter = new LinkedHashMap<>(balances);
+        for (int i = collected.size() - 1; i >= 0; i--) {
+            DueInstallment due = collected.get(i);
+            double after = balanceAfter.get(due.getAccountNumber());
+            balanceAfter.put(due.getAccountNumber(), after + due.getPaymentAmount());
+
+            BankTransaction transaction = new BankTransaction();
+            transaction.setAccountNumber(due.getAccountNumber());
+            transaction.setToAccNo(0); // Bank account
+            transaction.setTransactionAmount(due.getPaymentAmount());
+            transaction.setBalanceAfterTransaction(after);
+            transaction.setTransactionDate(now);
+            transaction.setTransactionType(Constants.LOAN_REPAYMENT);
+            transaction.setTransactionStatus(Constants.SUCCESS);
+            transactions[i] = transaction;
+        }
+        autoDebitRepo.insertTransactions(Arrays.asList(transactions));
+
+        // Per-loan installment counts for the sanction counters
+        Map<Integer, Integer> perLoan = new LinkedHashMap<>();
+        for (DueInstallment due : collected) {
+            perLoan.merge(due.getLoanId(), 1, Integer::sum);
+        }
+        int[] loanIds = perLoan.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int[] installments = new int[loanIds.length];
+        for (int i = 0; i < loanIds.length; i++) {
+            installments[i] = perLoan.get(loanIds[i]);
+        }
+        int[] settled = autoDebitRepo.settleSanctionCounters(loanIds, installments);
+        for (int i = 0; i < loanIds.length; i++) {
+            if (settled[i] == 0) {
+                // Sanction approved before the counters existed: derive them once from the schedule
+                loanSanctionRepo.initializeCounters(loanIds[i], Constants.PENDING);
+            }
+        }
+        autoDebitRepo.closeSettledSanctions(loanIds);
+
+        emailService.sendLoanRepaymentEmails(collected, now, Constants.AUTO_DEBIT);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
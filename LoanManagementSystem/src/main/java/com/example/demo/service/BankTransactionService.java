@@ -1,12 +1,15 @@
 package com.example.demo.service;
 
 import org.apache.log4j.Logger;
+
 import java.util.Date;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
+
 import com.example.demo.exception.AccountNotFoundException;
 import com.example.demo.exception.InsufficientBalanceException;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.AccountDetails;
 import com.example.demo.model.BankTransaction;
 import com.example.demo.model.Constants;
@@ -25,14 +28,22 @@ public class BankTransactionService {
     
     private final AccountDetailsRepo accountDetailsRepo;
 
+    private final AccountShardEngine accountShardEngine;
+
+    private final LedgerService ledgerService;
+
     // Constructor Injection
    
     public BankTransactionService(BankTransactionRepo bankTransactionRepo, 
                                   
-                                  AccountDetailsRepo accountDetailsRepo) {
+                                  AccountDetailsRepo accountDetailsRepo,
+                                  AccountShardEngine accountShardEngine,
+                                  LedgerService ledgerService) {
         this.bankTransactionRepo = bankTransactionRepo;
         
         this.accountDetailsRepo = accountDetailsRepo;
+        this.accountShardEngine = accountShardEngine;
+        this.ledgerService = ledgerService;
     }
  
     /**
@@ -43,6 +54,17 @@ public class BankTransactionService {
         logger.info("Fetching all bank transactions.");
         return bankTransactionRepo.findAll();
     }
+
+    /**
+     * Fetches one keyset page of bank transactions, in transaction ID order.
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param size maximum number of transactions on the page.
+     * @return KeysetPage of transactions.
+     */
+    public KeysetPage<BankTransaction> showTransactionInfoPage(String cursor, int size) {
+        return KeysetPage.of(bankTransactionRepo.findByTransactionIdGreaterThanOrderByTransactionIdAsc(
+                KeysetPage.after(cursor), KeysetPage.limit(size)), BankTransaction::getTransactionId);
+    }
  
     /**
      * Searches for a bank transaction by transaction ID.
@@ -76,56 +98,73 @@ public class BankTransactionService {
     
     /**
      * Transfers funds between two accounts.
+     * Runs on the account engine, which serializes all mutations of both accounts.
      * @param accountNumber the source account number.
      * @param toAccNo the destination account number.
      * @param amount the amount to transfer.
      * @throws InsufficientBalanceException if the source account has insufficient balance.
      */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void transferFunds(int accountNumber, int toAccNo, double amount) {
         logger.info("Transferring funds from AccountNumber:  to AccountNumber: " +  accountNumber + toAccNo);
+        accountShardEngine.execute(accountNumber, toAccNo, () -> {
+            applyTransfer(accountNumber, toAccNo, amount);
+            return null;
+        });
+    }
+
+    private void applyTransfer(int accountNumber, int toAccNo, double amount) {
         AccountDetails fromAccount = accountDetailsRepo.findById(accountNumber)
                 .orElseThrow(() -> new AccountNotFoundException("From account not found"));
         AccountDetails toAccount = accountDetailsRepo.findById(toAccNo)
                 .orElseThrow(() -> new AccountNotFoundException("To account not found"));
-        if (Double.compare(fromAccount.getBalance(), amount) < 0) {
-            createTransaction(accountNumber, toAccNo,Constants.DEBIT, amount, fromAccount.getBalance(),Constants.FAILED);
-            createTransaction(accountNumber, toAccNo, Constants.DEBIT, amount, fromAccount.getBalance(),Constants.FAILED);
+        double fromBalance = ledgerService.balanceOf(fromAccount);
+        double toBalance = ledgerService.balanceOf(toAccount);
+        // Applied as a delta (or a ledger append) so writers outside the engine (auto-debit, pre-closure) are never overwritten
+        if (Double.compare(fromBalance, amount) < 0
+                || !ledgerService.transfer(accountNumber, toAccNo, amount, Constants.TRANSFER)) {
+            createTransaction(accountNumber, toAccNo,Constants.DEBIT, amount, fromBalance,Constants.FAILED);
+            createTransaction(accountNumber, toAccNo, Constants.DEBIT, amount, fromBalance,Constants.FAILED);
 
             logger.error("Insufficient balance in account " + accountNumber);
             throw new InsufficientBalanceException("Insufficient balance in account " + accountNumber);
         }
-        double fromNewBalance = fromAccount.getBalance() - amount;
-        double toNewBalance = toAccount.getBalance() + amount;
-        fromAccount.setBalance(fromNewBalance);
-        toAccount.setBalance(toNewBalance);
-        accountDetailsRepo.save(fromAccount);
-        accountDetailsRepo.save(toAccount);
+        double fromNewBalance = fromBalance - amount;
+        double toNewBalance = toBalance + amount;
         createTransaction(accountNumber, toAccNo,Constants.DEBIT, amount, fromNewBalance,Constants.SUCCESS);
         createTransaction(toAccNo, accountNumber,Constants.CREDIT, amount, toNewBalance,Constants.SUCCESS);
     }
  
     /**
      * Makes a manual payment (debit) from an account.
+     * Runs on the account engine, like transferFunds.
      * @param accountNumber the account number to debit from.
      * @param paymentAmount the payment amount.
      * @throws InsufficientBalanceException if the account balance is insufficient.
      */
-   
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void manualPayment(int accountNumber, double paymentAmount) {
         logger.info("Making manual payment of amount:  from AccountNumber: " + paymentAmount + accountNumber);
+        accountShardEngine.execute(accountNumber, () -> {
+            applyManualPayment(accountNumber, paymentAmount);
+            return null;
+        });
+    }
+
+    private void applyManualPayment(int accountNumber, double paymentAmount) {
         AccountDetails account = accountDetailsRepo.findByAccountNumber(accountNumber);
         if (account == null) {
             logger.error("Account not found with AccountNumber: " + accountNumber);
             throw new AccountNotFoundException("Account not found");
         }
-        if (account.getBalance() < paymentAmount) {
-           createTransaction(accountNumber, 0, Constants.DEBIT, paymentAmount, account.getBalance(),Constants.FAILED);
+        double balance = ledgerService.balanceOf(account);
+        if (balance < paymentAmount
+                || !ledgerService.debitIfSufficient(accountNumber, paymentAmount, Constants.MANUAL_PAYMENT)) {
+           createTransaction(accountNumber, 0, Constants.DEBIT, paymentAmount, balance,Constants.FAILED);
            logger.error("Insufficient balance for account: " + accountNumber);
            throw new InsufficientBalanceException("Insufficient balance");
         }
-        account.setBalance(account.getBalance() - paymentAmount);
-        accountDetailsRepo.save(account);
-        createTransaction(accountNumber, 0, Constants.DEBIT, paymentAmount, account.getBalance(),Constants.SUCCESS);
+        createTransaction(accountNumber, 0, Constants.DEBIT, paymentAmount, balance - paymentAmount,Constants.SUCCESS);
     }
  
     /**
@@ -161,9 +200,9 @@ public class BankTransactionService {
         logger.info("Crediting loan amount:  to AccountNumber: " + amount + accountNumber);
         AccountDetails account = accountDetailsRepo.findById(accountNumber)
             .orElseThrow(() -> new RuntimeException("Account not found"));
-        double newBalance = account.getBalance() + amount;
-        account.setBalance(newBalance);
-        accountDetailsRepo.save(account);
+        double newBalance = ledgerService.balanceOf(account) + amount;
+        // Delta update or ledger append: this runs in the caller's transaction, outside the account engine
+        ledgerService.credit(accountNumber, amount, Constants.LOAN_DISBURSAL);
         BankTransaction creditTransaction = new BankTransaction();
         creditTransaction.setAccountNumber(accountNumber);
         creditTransaction.setToAccNo(accountNumber);
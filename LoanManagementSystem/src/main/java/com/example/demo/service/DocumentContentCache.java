@@ -0,0 +1,329 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Byte-budgeted LRU cache of document content for repeat downloads, such as an
+ * admin going back and forth between the documents of one application. Content
+ * is held decompressed in direct buffers, outside the Java heap, keyed by its
+ * SHA-256, so a hit neither touches the store nor inflates gzip again, and large
+ * scans never become long-lived byte[] the collector has to copy around.
+ *
+ * Entries are immutable since the key is the hash of the bytes; DocumentsService
+ * still evicts content a document stops using, so the budget goes to what is
+ * being reviewed. A miss reserves its length against max-bytes, evicting first,
+ * before the direct buffer is allocated, and concurrent misses on one hash share
+ * a single load, so buffers the cache holds or is filling never exceed the budget.
+ * An evicted buffer's memory is only returned when the buffer object is collected,
+ * so -XX:MaxDirectMemorySize must still leave room above max-bytes.
+ */
+@Component
+public class DocumentContentCache {
+
+    private static final Logger logger = Logger.getLogger(DocumentContentCache.class);
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<String, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    // Bytes of the entries plus the reservations of loads still filling their buffer
+    private long bytes;
+    // Loads in progress; a null result means the content was not cached
+    private final Map<String, CompletableFuture<ByteBuffer>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+
+    /**
+     * @param maxBytes off-heap budget for all entries; 0 disables the cache.
+     * @param maxEntryBytes larger documents are streamed from the store uncached.
+     */
+    public DocumentContentCache(@Value("${lms.documents.cache.max-bytes:64MB}") DataSize maxBytes,
+                                @Value("${lms.documents.cache.max-entry-bytes:8MB}") DataSize maxEntryBytes) {
+        this.maxBytes = maxBytes.toBytes();
+        this.maxEntryBytes = Math.min(maxEntryBytes.toBytes(), this.maxBytes);
+    }
+
+    /**
+     * Returns the cached content, or reads it from the loader and caches it if it
+     * fits. The loader may return null for missing content, which is not cached.
+     * A miss while the same hash is being loaded waits for that load instead of
+     * reading the content a second time.
+     */
+    public Resource get(String hash, Supplier<Resource> loader) throws IOException {
+        ByteBuffer cached = lookup(hash);
+        if (cached != null) {
+            hits.increment();
+            return new ByteBufferResource(cached, hash);
+        }
+        misses.increment();
+        if (maxBytes == 0) {
+            return loader.get();
+        }
+
+        CompletableFuture<ByteBuffer> mine = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> running = loading.putIfAbsent(hash, mine);
+        if (running != null) {
+            ByteBuffer shared = awaitLoad(running);
+            return shared != null ? new ByteBufferResource(shared, hash) : loader.get();
+        }
+        try {
+            // The load that held the slot may have finished between the lookup and the claim
+            ByteBuffer buffer = lookup(hash);
+            Resource content = null;
+            if (buffer == null) {
+                content = loader.get();
+                buffer = content == null ? null : cache(hash, content);
+            }
+            mine.complete(buffer);
+            return buffer != null ? new ByteBufferResource(buffer, hash) : content;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(hash, mine);
+        }
+    }
+
+    /**
+     * Drops the content, if cached.
+     */
+    public void evict(String hash) {
+        if (hash == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            ByteBuffer removed = entries.remove(hash);
+            if (removed != null) {
+                bytes -= removed.capacity();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counters since startup and current off-heap use, for monitoring.
+     */
+    public Map<String, Number> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("oversized", oversized.sum());
+        lock.lock();
+        try {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+
+    private ByteBuffer lookup(String hash) {
+        lock.lock();
+        try {
+            return entries.get(hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The buffer another miss on the hash loaded, or null if it did not cache one and the content must be read directly
+    private static ByteBuffer awaitLoad(CompletableFuture<ByteBuffer> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    // Caches the content if it fits; null means it is served from the loader's resource instead
+    private ByteBuffer cache(String hash, Resource content) throws IOException {
+        long length = content.contentLength();
+        if (length > maxEntryBytes) {
+            oversized.increment();
+            return null;
+        }
+        if (!reserve(length)) {
+            return null;
+        }
+        boolean loaded = false;
+        try {
+            ByteBuffer buffer = load(content, (int) length);
+            put(hash, buffer);
+            loaded = true;
+            return buffer;
+        } finally {
+            if (!loaded) {
+                release(length);
+            }
+        }
+    }
+
+    /*
+     * Counts the bytes against the budget before they are allocated, evicting least
+     * recently used entries to make room. Fails only when other loads in progress
+     * hold too much of the budget to fit this one.
+     */
+    private boolean reserve(long length) {
+        lock.lock();
+        try {
+            Iterator<ByteBuffer> eldest = entries.values().iterator();
+            while (bytes + length > maxBytes && eldest.hasNext()) {
+                ByteBuffer evicted = eldest.next();
+                eldest.remove();
+                bytes -= evicted.capacity();
+                evictions.increment();
+            }
+            if (bytes + length > maxBytes) {
+                return false;
+            }
+            bytes += length;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long length) {
+        lock.lock();
+        try {
+            bytes -= length;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Read outside the lock, into a buffer whose bytes are already reserved
+    private static ByteBuffer load(Resource content, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        try (ReadableByteChannel channel = Channels.newChannel(content.getInputStream())) {
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // keep reading
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("Content ended after " + buffer.position() + " of " + length + " bytes");
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    private void put(String hash, ByteBuffer buffer) {
+        lock.lock();
+        try {
+            ByteBuffer previous = entries.put(hash, buffer);
+            if (previous != null) {
+                bytes -= previous.capacity();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cached content " + hash + " (" + buffer.capacity() + " bytes)");
+        }
+    }
+
+    /**
+     * Cached content served from its buffer; each stream reads an independent view.
+     */
+    private static final class ByteBufferResource extends AbstractResource {
+
+        private final ByteBuffer buffer;
+        private final String hash;
+
+        ByteBufferResource(ByteBuffer buffer, String hash) {
+            this.buffer = buffer;
+            this.hash = hash;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(buffer.duplicate());
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached content [" + hash + "]";
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
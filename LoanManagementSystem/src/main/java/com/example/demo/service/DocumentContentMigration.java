@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.StoredContent;
+
+/**
+ * Moves document content still held in DOCUMENTS.FILEDATA (rows written before
+ * V4) into the DocumentStore, one row at a time: the blob is streamed into the
+ * store, then the row gets its hash and size and FILEDATA is cleared. Runs after
+ * startup and is safe to run on several instances at once, since storing the same
+ * bytes twice yields the same hash. Does nothing on a schema without FILEDATA.
+ */
+@Component
+public class DocumentContentMigration {
+
+    private static final Logger logger = Logger.getLogger(DocumentContentMigration.class);
+
+    private static final int BATCH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentStore documentStore;
+
+    public DocumentContentMigration(JdbcTemplate jdbcTemplate, DocumentStore documentStore) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.documentStore = documentStore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyContent() {
+        int moved = 0;
+        try {
+            List<Integer> ids;
+            do {
+                ids = jdbcTemplate.queryForList("SELECT DOCUMENTID FROM DOCUMENTS "
+                        + "WHERE CONTENTHASH IS NULL AND FILEDATA IS NOT NULL ORDER BY DOCUMENTID LIMIT ?",
+                        Integer.class, BATCH);
+                for (int documentId : ids) {
+                    moveToStore(documentId);
+                    moved++;
+                }
+            } while (ids.size() == BATCH);
+        } catch (BadSqlGrammarException e) {
+            logger.debug("No DOCUMENTS.FILEDATA column, nothing to migrate");
+            return;
+        } catch (DataAccessException | UncheckedIOException e) {
+            // Rows not yet moved keep their FILEDATA and are picked up on the next start
+            logger.error("Moving document content to the store stopped after " + moved + " documents", e);
+            return;
+        }
+        if (moved > 0) {
+            logger.info("Moved the content of " + moved + " documents to the document store");
+        }
+    }
+
+    private void moveToStore(int documentId) {
+        StoredContent content = jdbcTemplate.query("SELECT FILEDATA, FILETYPE FROM DOCUMENTS WHERE DOCUMENTID = ?", rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            try (InputStream blob = rs.getBinaryStream(1)) {
+                return documentStore.put(blob, rs.getString(2));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, documentId);
+        if (content != null) {
+            try {
+                jdbcTemplate.update("UPDATE DOCUMENTS SET CONTENTHASH = ?, FILESIZE = ?, ORIGINALSIZE = ?, STOREDSIZE = ?, "
+                        + "FILEDATA = NULL WHERE DOCUMENTID = ? AND CONTENTHASH IS NULL", content.getHash(), content.getSize(),
+                        content.getSize(), content.getStoredSize(), documentId);
+            } finally {
+                documentStore.unpin(content.getHash());
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.demo.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scales phone photos and scans of KYC documents down to a capped resolution.
+ * A 12 MP camera shot is several times the detail a reviewer needs to read an
+ * Aadhaar or PAN card; capping the longest side and re-encoding cuts the file to a
+ * fraction of its size. The image is decoded with source subsampling, so the full
+ * resolution bitmap is never held in memory, and the EXIF orientation of JPEGs is
+ * applied to the pixels since the re-encoded file carries no metadata. Mirrored
+ * orientations, which cameras do not produce, are left as decoded.
+ */
+@Component
+public class DocumentImageNormalizer {
+
+    private static final Logger logger = Logger.getLogger(DocumentImageNormalizer.class);
+
+    private static final String JPEG = "image/jpeg";
+    private static final String PNG = "image/png";
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private final int maxDimension;
+    private final float jpegQuality;
+
+    public DocumentImageNormalizer(@Value("${lms.documents.image.max-dimension:2480}") int maxDimension,
+                                   @Value("${lms.documents.image.jpeg-quality:0.85}") float jpegQuality) {
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Whether files of this type are normalized at all.
+     */
+    public boolean handles(String fileType) {
+        return maxDimension > 0 && (JPEG.equals(fileType) || PNG.equals(fileType));
+    }
+
+    /**
+     * The image re-encoded with its longest side at most max-dimension pixels, or
+     * null if it is already within the cap or cannot be decoded, in which case the
+     * upload is kept as it is.
+     */
+    public byte[] downscale(Resource image, String fileType) {
+        try {
+            BufferedImage decoded = decode(image);
+            if (decoded == null) {
+                return null;
+            }
+            BufferedImage scaled = scale(decoded, PNG.equals(fileType) && decoded.getColorModel().hasAlpha());
+            if (JPEG.equals(fileType)) {
+                try (InputStream in = image.getInputStream()) {
+                    scaled = orient(scaled, exifOrientation(in));
+                }
+            }
+            return PNG.equals(fileType) ? encodePng(scaled) : encodeJpeg(scaled);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Keeping image as uploaded, could not rescale it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Null when the image is within the cap
+    private BufferedImage decode(Resource image) throws IOException {
+        try (InputStream in = image.getInputStream(); ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException("no image reader for the content");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                if (longest <= maxDimension) {
+                    return null;
+                }
+                // Whole-pixel subsampling that keeps at least maxDimension; scale() does the rest
+                int step = Math.max(1, longest / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image, boolean alpha) {
+        double factor = Math.min(1.0, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        BufferedImage oriented;
+        switch (orientation) {
+        case 3:
+            transform.rotate(Math.PI, width / 2.0, height / 2.0);
+            oriented = new BufferedImage(width, height, image.getType());
+            break;
+        case 6:
+            transform.translate(height, 0);
+            transform.rotate(Math.PI / 2);
+            oriented = new BufferedImage(height, width, image.getType());
+            break;
+        case 8:
+            transform.translate(0, width);
+            transform.rotate(-Math.PI / 2);
+            oriented = new BufferedImage(height, width, image.getType());
+            break;
+        default:
+            return image;
+        }
+        Graphics2D g = oriented.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("no PNG writer");
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The EXIF orientation (1 to 8) from a JPEG's APP1 segment, 1 when there is none.
+     * Reads only the segments ahead of the image data.
+     */
+    private static int exifOrientation(InputStream jpeg) throws IOException {
+        DataInputStream in = new DataInputStream(jpeg);
+        try {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                byte[] segment = new byte[in.readUnsignedShort() - 2];
+                in.readFully(segment);
+                if (marker == 0xFFE1 && segment.length > 14 && new String(segment, 0, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                    return tiffOrientation(ByteBuffer.wrap(segment, 6, segment.length - 6).slice());
+                }
+            }
+        } catch (EOFException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return 1;
+        }
+    }
+
+    private static int tiffOrientation(ByteBuffer tiff) {
+        tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if ((tiff.getShort(entry) & 0xFFFF) == EXIF_ORIENTATION_TAG) {
+                int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.core.io.Resource;
+
+import com.example.demo.model.StoredContent;
+
+/**
+ * Storage for document file content, addressed by the SHA-256 of the bytes. The
+ * DOCUMENTS table keeps only the hash, so identical uploads share one copy and a
+ * backend can be swapped without touching the rows.
+ */
+public interface DocumentStore {
+
+    /**
+     * Streams the content into the store. Content that is already stored is not
+     * written twice. The content comes back pinned: delete() leaves it alone until
+     * the caller calls unpin(), once the reference it records is committed or dropped.
+     * @param contentType the declared content type, or null if unknown; lets the
+     *                    store skip work on formats that are already compressed.
+     */
+    StoredContent put(InputStream content, String contentType) throws IOException;
+
+    /**
+     * Releases one pin taken by put().
+     */
+    void unpin(String hash);
+
+    /**
+     * The stored content, or null if nothing is stored under the hash.
+     */
+    Resource get(String hash);
+
+    /**
+     * Removes the content unless it is pinned or inUse reports a reference. inUse is
+     * asked while puts of the same hash are held off, so an upload that reuses the
+     * content either pins it first or writes it again afterwards.
+     * @return true if the content was removed.
+     */
+    boolean delete(String hash, BooleanSupplier inUse) throws IOException;
+}
@@ -0,0 +1,234 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.exception.DocumentNotFoundException;
+import com.example.demo.exception.DocumentTooLargeException;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.exception.UploadConflictException;
+import com.example.demo.model.Constants;
+import com.example.demo.model.DocumentUpload;
+import com.example.demo.repo.DocumentUploadRepo;
+
+/**
+ * Resumable uploads for documents too large to send reliably in one request,
+ * such as bank statements from a phone. The client declares the size, then sends
+ * the bytes in chunks, each at the offset the server reports; a chunk cut off by
+ * the network keeps whatever arrived, and the client asks for the offset and
+ * carries on from there. Chunks are copied to a part file through a fixed buffer,
+ * and once the last byte arrives the part file is streamed into DocumentsService,
+ * which hashes it on the way into the document store.
+ *
+ * Part files are local to the node that received the first chunk, so a cluster
+ * needs the uploads directory on shared storage or sticky routing for /documents/uploads.
+ */
+@Service
+public class DocumentUploadService {
+
+    private static final Logger logger = Logger.getLogger(DocumentUploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Set<String> DOCUMENT_TYPES = Set.of(Constants.AADHAAR, Constants.PAN, Constants.BANK_STATEMENT);
+
+    private final DocumentUploadRepo documentUploadRepo;
+    private final DocumentsService documentsService;
+    private final Path dir;
+    private final long maxSize;
+    private final long ttlMillis;
+
+    public DocumentUploadService(DocumentUploadRepo documentUploadRepo, DocumentsService documentsService,
+                                 @Value("${lms.documents.upload.dir:documents/.uploads}") String dir,
+                                 @Value("${lms.documents.upload.max-size:50MB}") DataSize maxSize,
+                                 @Value("${lms.documents.upload.ttl-hours:24}") long ttlHours) {
+        this.documentUploadRepo = documentUploadRepo;
+        this.documentsService = documentsService;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.maxSize = maxSize.toBytes();
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+    }
+
+    /**
+     * Opens an upload of totalSize bytes for one document of an account.
+     * @throws DocumentTooLargeException if totalSize is over the upload limit.
+     */
+    public DocumentUpload start(int accountNumber, String documentName, String fileType, long totalSize) {
+        if (!DOCUMENT_TYPES.contains(documentName)) {
+            throw new FileUploadException("Unknown document type: " + documentName);
+        }
+        if (totalSize <= 0) {
+            throw new FileUploadException("Upload size must be positive");
+        }
+        if (totalSize > maxSize) {
+            throw new DocumentTooLargeException("Document of " + totalSize + " bytes is over the limit of " + maxSize + " bytes");
+        }
+        DocumentUpload upload = new DocumentUpload(UUID.randomUUID().toString(), accountNumber, documentName,
+                fileType, totalSize, new Date());
+        try {
+            Files.createDirectories(dir);
+            Files.createFile(part(upload.getUploadId()));
+        } catch (IOException e) {
+            throw new FileUploadException("Could not start upload: " + e.getMessage());
+        }
+        documentUploadRepo.save(upload);
+        logger.info("Started upload " + upload.getUploadId() + " of " + documentName + " for account number: " + accountNumber);
+        return upload;
+    }
+
+    /**
+     * The upload in progress with this id.
+     * @throws DocumentNotFoundException if there is none, or it has completed.
+     */
+    public DocumentUpload getUpload(String uploadId) {
+        return documentUploadRepo.findById(uploadId)
+                .orElseThrow(() -> new DocumentNotFoundException("No upload in progress with ID: " + uploadId));
+    }
+
+    /**
+     * Bytes received so far, which is where the next chunk has to start.
+     */
+    public long offset(DocumentUpload upload) throws IOException {
+        try {
+            return Files.size(part(upload.getUploadId()));
+        } catch (NoSuchFileException e) {
+            throw new DocumentNotFoundException("No upload in progress with ID: " + upload.getUploadId());
+        }
+    }
+
+    /**
+     * Appends a chunk that starts at offset. When the chunk completes the upload,
+     * the document is saved and the upload removed.
+     * @return the offset after the chunk, equal to the total size once complete.
+     * @throws UploadConflictException if offset is not where the upload stands, or
+     *         another chunk for the same upload is still being written.
+     * @throws DocumentTooLargeException if the chunk runs past the declared size;
+     *         nothing of it is kept.
+     */
+    public long append(DocumentUpload upload, long offset, InputStream chunk) throws IOException {
+        String uploadId = upload.getUploadId();
+        Path part = part(uploadId);
+        long received;
+        try (FileChannel channel = open(part, uploadId)) {
+            FileLock lock = lock(channel, uploadId);
+            try {
+                received = channel.size();
+                if (offset != received) {
+                    throw new UploadConflictException("Upload " + uploadId + " is at offset " + received + ", not " + offset);
+                }
+                received = copy(chunk, channel, received, upload.getTotalSize());
+                if (received == upload.getTotalSize()) {
+                    complete(upload, channel);
+                }
+            } finally {
+                lock.release();
+            }
+        }
+        if (received == upload.getTotalSize()) {
+            Files.deleteIfExists(part);
+        }
+        return received;
+    }
+
+    /**
+     * Abandons an upload and drops the bytes received so far.
+     */
+    public void cancel(String uploadId) throws IOException {
+        getUpload(uploadId);
+        discard(uploadId);
+        logger.info("Cancelled upload " + uploadId);
+    }
+
+    @Scheduled(fixedDelayString = "${lms.documents.upload.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        List<DocumentUpload> expired = documentUploadRepo.findByCreatedAtBefore(new Date(System.currentTimeMillis() - ttlMillis));
+        for (DocumentUpload upload : expired) {
+            try {
+                discard(upload.getUploadId());
+            } catch (IOException e) {
+                logger.warn("Could not remove expired upload " + upload.getUploadId() + ": " + e.getMessage());
+            }
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Purged " + expired.size() + " expired document uploads");
+        }
+    }
+
+    private long copy(InputStream chunk, FileChannel channel, long position, long totalSize) throws IOException {
+        long start = position;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = chunk.read(buffer)) != -1) {
+            if (position + read > totalSize) {
+                channel.truncate(start);
+                throw new DocumentTooLargeException("Chunk runs past the declared size of " + totalSize + " bytes");
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        }
+        return position;
+    }
+
+    // Runs under the part file's lock, so a duplicate of the last chunk finds the row gone
+    private void complete(DocumentUpload upload, FileChannel channel) throws IOException {
+        if (!documentUploadRepo.existsById(upload.getUploadId())) {
+            throw new DocumentNotFoundException("Upload " + upload.getUploadId() + " is already complete");
+        }
+        documentsService.saveOrUpdateDocument(upload.getAccountNumber(), upload.getDocumentName(),
+                Channels.newInputStream(channel.position(0)), upload.getFileType());
+        documentUploadRepo.deleteById(upload.getUploadId());
+        logger.info("Completed upload " + upload.getUploadId() + " of " + upload.getTotalSize() + " bytes");
+    }
+
+    private void discard(String uploadId) throws IOException {
+        documentUploadRepo.deleteById(uploadId);
+        Files.deleteIfExists(part(uploadId));
+    }
+
+    // Ids only reach here after a repository lookup, so they are always ones we generated
+    private Path part(String uploadId) {
+        return dir.resolve(uploadId + ".part");
+    }
+
+    private static FileChannel open(Path part, String uploadId) throws IOException {
+        try {
+            return FileChannel.open(part, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException e) {
+            throw new DocumentNotFoundException("No upload in progress with ID: " + uploadId);
+        }
+    }
+
+    private static FileLock lock(FileChannel channel, String uploadId) throws IOException {
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (OverlappingFileLockException e) {
+            // Held by another request in this JVM
+        }
+        throw new UploadConflictException("Another chunk of upload " + uploadId + " is still being written");
+    }
+}
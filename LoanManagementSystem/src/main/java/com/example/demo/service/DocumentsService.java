@@ -1,14 +1,22 @@
 package com.example.demo.service;
 
 import org.apache.log4j.Logger;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import com.example.demo.exception.DocumentNotFoundException;
 import com.example.demo.model.Constants;
+import com.example.demo.model.DocumentSummary;
 import com.example.demo.model.Documents;
+import com.example.demo.model.StoredContent;
 import com.example.demo.repo.DocumentsRepo;
 import jakarta.transaction.Transactional;
 
@@ -19,11 +27,18 @@ public class DocumentsService {
     private static Logger logger = Logger.getLogger(DocumentsService.class);
 
     private final DocumentsRepo documentsRepo;
+    private final DocumentStore documentStore;
+    private final DocumentImageNormalizer imageNormalizer;
+    private final DocumentContentCache contentCache;
     
 
-    // Constructor injection for DocumentsRepo
-    public DocumentsService(DocumentsRepo documentsRepo) {
+    // Constructor injection for the repository, content store, ingestion and download cache
+    public DocumentsService(DocumentsRepo documentsRepo, DocumentStore documentStore,
+                            DocumentImageNormalizer imageNormalizer, DocumentContentCache contentCache) {
         this.documentsRepo = documentsRepo;
+        this.documentStore = documentStore;
+        this.imageNormalizer = imageNormalizer;
+        this.contentCache = contentCache;
     }
 
     /**
@@ -51,7 +66,12 @@ public class DocumentsService {
      */
     public void deleteDocuments(int documentId) {
         logger.info("Deleting document with ID: " + documentId);
+        Optional<Documents> document = documentsRepo.findById(documentId);
         documentsRepo.deleteById(documentId);
+        document.ifPresent(deleted -> {
+            contentCache.evict(deleted.getContentHash());
+            releaseContent(deleted.getContentHash());
+        });
     }
  
     /**
@@ -90,26 +110,65 @@ public class DocumentsService {
      * @throws IOException if an I/O error occurs while reading the file data.
      */
     public void saveOrUpdateDocument(int accountNumber, String documentType, MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            saveOrUpdateDocument(accountNumber, documentType, in, file.getContentType());
+        }
+    }
+
+    /**
+     * Saves or updates a single document from a stream, which is read once into
+     * the document store and not closed.
+     * @param accountNumber the account number to associate the document with.
+     * @param documentType the type of document (e.g., Aadhaar, PAN, Signature).
+     * @param file the file content.
+     * @param fileType the content type of the file.
+     * @throws IOException if an I/O error occurs while reading the file data.
+     */
+    public void saveOrUpdateDocument(int accountNumber, String documentType, InputStream file, String fileType) throws IOException {
         logger.info("Saving or updating document of type: " + documentType + " for account number: " + accountNumber);
         Optional<Documents> existingDocument = documentsRepo.findByAccountNumberAndDocumentName(accountNumber, documentType);
+        StoredContent uploaded = documentStore.put(file, fileType);
+        StoredContent content = uploaded;
+        try {
+            if (imageNormalizer.handles(fileType)) {
+                content = normalizeImage(uploaded, fileType);
+            }
 
-        if (existingDocument.isPresent()) {
-            Documents document = existingDocument.get();
-            document.setFileData(file.getBytes());
-            document.setFileType(file.getContentType());
-            document.setDocumentInfo(documentType + " updated");
-            documentsRepo.save(document);
-            logger.info("Updated existing document: " + documentType);
-        } else {
-            Documents newDocument = new Documents();
-            newDocument.setAccountNumber(accountNumber);
-            newDocument.setDocumentName(documentType);
-            newDocument.setDocumentInfo(documentType + " uploaded");
-            newDocument.setFileData(file.getBytes());
-            newDocument.setFileType(file.getContentType());
-            newDocument.setVerificationStatus(Constants.PENDING);
-            documentsRepo.save(newDocument);
-            logger.info("Inserted new document: " + documentType);
+            if (existingDocument.isPresent()) {
+                Documents document = existingDocument.get();
+                String previousHash = document.getContentHash();
+                document.setContentHash(content.getHash());
+                document.setFileSize(content.getSize());
+                document.setOriginalSize(uploaded.getSize());
+                document.setStoredSize(content.getStoredSize());
+                document.setFileType(fileType);
+                document.setDocumentInfo(documentType + " updated");
+                documentsRepo.save(document);
+                if (!content.getHash().equals(previousHash)) {
+                    contentCache.evict(previousHash);
+                }
+                releaseContent(previousHash);
+                logger.info("Updated existing document: " + documentType);
+            } else {
+                Documents newDocument = new Documents();
+                newDocument.setAccountNumber(accountNumber);
+                newDocument.setDocumentName(documentType);
+                newDocument.setDocumentInfo(documentType + " uploaded");
+                newDocument.setContentHash(content.getHash());
+                newDocument.setFileSize(content.getSize());
+                newDocument.setOriginalSize(uploaded.getSize());
+                newDocument.setStoredSize(content.getStoredSize());
+                newDocument.setFileType(fileType);
+                newDocument.setVerificationStatus(Constants.PENDING);
+                documentsRepo.save(newDocument);
+                logger.info("Inserted new document: " + documentType);
+            }
+        } finally {
+            // put() pinned the content until the row referring to it is committed
+            unpinAfterCompletion(uploaded.getHash());
+            if (content != uploaded) {
+                unpinAfterCompletion(content.getHash());
+            }
         }
     }
 
@@ -123,6 +182,25 @@ public class DocumentsService {
         return documentsRepo.findByAccountNumber(accountNumber);
     }
 
+    /**
+     * Retrieves the metadata of the documents of an account, without their content.
+     * @param accountNumber the account number to fetch documents for.
+     * @return id, name, type, verification status and size of each document.
+     */
+    public List<DocumentSummary> getDocumentSummariesByAccountNumber(int accountNumber) {
+        logger.info("Fetching document summaries for account number: " + accountNumber);
+        return documentsRepo.findSummariesByAccountNumber(accountNumber);
+    }
+
+    /**
+     * Checks whether an account has uploaded any documents.
+     * @param accountNumber the account number to check.
+     * @return true if at least one document exists.
+     */
+    public boolean hasDocuments(int accountNumber) {
+        return documentsRepo.existsByAccountNumber(accountNumber);
+    }
+
     /**
      * Retrieves a document by its ID.
      * @param id the ID of the document to retrieve.
@@ -139,4 +217,105 @@ public class DocumentsService {
         logger.info("Document found with ID: " + id);
         return document;
     }
+
+    /**
+     * Opens the stored file content of a document for streaming.
+     * @param document the document whose content to read.
+     * @return the content, readable as often as needed.
+     * @throws DocumentNotFoundException if the content is not in the store.
+     */
+    public Resource getDocumentContent(Documents document) {
+        Resource content = document.getContentHash() == null ? null : cachedContent(document.getContentHash());
+        if (content == null) {
+            logger.error("Content missing for document with ID: " + document.getDocumentId());
+            throw new DocumentNotFoundException("Content not available for document with ID: " + document.getDocumentId());
+        }
+        return content;
+    }
+
+    /**
+     * Hits, misses and off-heap use of the download cache.
+     * @return the cache counters.
+     */
+    public Map<String, Number> contentCacheStats() {
+        return contentCache.stats();
+    }
+
+    private Resource cachedContent(String hash) {
+        try {
+            return contentCache.get(hash, () -> documentStore.get(hash));
+        } catch (IOException e) {
+            logger.warn("Serving content " + hash + " uncached: " + e.getMessage());
+            return documentStore.get(hash);
+        }
+    }
+
+    /**
+     * Replaces a stored photo or scan larger than the resolution cap with its
+     * scaled-down version, as long as that is actually smaller. The original is
+     * left to unpinAfterCompletion, which deletes it once nothing refers to it.
+     */
+    private StoredContent normalizeImage(StoredContent uploaded, String fileType) throws IOException {
+        Resource stored = documentStore.get(uploaded.getHash());
+        byte[] scaled = stored == null ? null : imageNormalizer.downscale(stored, fileType);
+        if (scaled == null || scaled.length >= uploaded.getSize()) {
+            return uploaded;
+        }
+        StoredContent normalized = documentStore.put(new ByteArrayInputStream(scaled), fileType);
+        logger.info("Scaled image down from " + uploaded.getSize() + " to " + normalized.getSize() + " bytes");
+        return normalized;
+    }
+
+    /**
+     * Deletes content no document refers to any more. Identical uploads share one
+     * copy, so the count is checked first, and the file is only removed once the
+     * transaction that dropped the last reference has committed. The store checks
+     * again then, since an upload of the same bytes may have reused it meanwhile.
+     */
+    private void releaseContent(String hash) {
+        if (hash == null || documentsRepo.countByContentHash(hash) > 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteContent(hash);
+                }
+            });
+        } else {
+            deleteContent(hash);
+        }
+    }
+
+    /**
+     * Unpins content stored by this call once its transaction is over, then deletes
+     * it if no document refers to it: the upload was replaced by a scaled copy, or
+     * the transaction rolled back.
+     */
+    private void unpinAfterCompletion(String hash) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unpin(hash);
+                }
+            });
+        } else {
+            unpin(hash);
+        }
+    }
+
+    private void unpin(String hash) {
+        documentStore.unpin(hash);
+        deleteContent(hash);
+    }
+
+    private void deleteContent(String hash) {
+        try {
+            documentStore.delete(hash, () -> documentsRepo.countByContentHash(hash) > 0);
+        } catch (IOException e) {
+            logger.warn("Could not delete unreferenced content " + hash + ": " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,229 @@
+package com.example.demo.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repo.EmailOutboxRepo;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Transactional outbox for notification mails.
+ *
+ * enqueue() only inserts an EMAILOUTBOX row, so it joins whatever transaction the
+ * caller has open and rolls back with it. Delivery happens on the outboxExecutor
+ * pool: immediately after commit for the fast path, and from a scheduled poller
+ * for anything the fast path missed (pool saturated, node restarted, retry due).
+ *
+ * Failed sends are retried with exponential backoff until maxAttempts, then the
+ * row is parked as DEAD. A circuit breaker around JavaMailSender stops the workers
+ * from burning attempts while the SMTP server is down.
+ */
+@Service
+@EnableScheduling
+public class EmailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+    private static final List<String> CLAIMABLE = List.of(Constants.PENDING, Constants.SENDING);
+
+    private final EmailOutboxRepo emailOutboxRepo;
+    private final JavaMailSender mailSender;
+    private final Executor outboxExecutor;
+    private final CircuitBreaker circuitBreaker;
+
+    @Value("${lms.mail.outbox.max-attempts:6}")
+    private int maxAttempts = 6;
+    @Value("${lms.mail.outbox.backoff-ms:30000}")
+    private long backoffMillis = 30000;
+    @Value("${lms.mail.outbox.lease-ms:60000}")
+    private long leaseMillis = 60000;
+    @Value("${lms.mail.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    public EmailOutboxService(EmailOutboxRepo emailOutboxRepo, JavaMailSender mailSender,
+                              @Qualifier("outboxExecutor") Executor outboxExecutor,
+                              @Value("${lms.mail.circuit.failure-threshold:5}") int failureThreshold,
+                              @Value("${lms.mail.circuit.open-ms:60000}") long openMillis) {
+        this.emailOutboxRepo = emailOutboxRepo;
+        this.mailSender = mailSender;
+        this.outboxExecutor = outboxExecutor;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMillis);
+    }
+
+    /**
+     * Records a mail for delivery. Must be cheap: this runs on the request thread
+     * and inside the caller's transaction.
+     */
+    public void enqueue(String to, String subject, String body) {
+        EmailOutbox row = new EmailOutbox();
+        row.setRecipient(to);
+        row.setSubject(subject);
+        row.setBody(body);
+        markPending(row, new Date());
+        long id = emailOutboxRepo.save(row).getOutboxId();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The row is not visible to the worker until the caller commits.
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(id);
+                }
+            });
+        } else {
+            submit(id);
+        }
+    }
+
+    /**
+     * Records many mails with one batch insert, for jobs that notify borrowers in
+     * bulk. Only recipient, subject and body of each row are read. The rows get no
+     * individual hand-off; the poller is run once they are visible and delivers
+     * them a batch at a time.
+     */
+    public void enqueueAll(List<EmailOutbox> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        for (EmailOutbox row : rows) {
+            markPending(row, now);
+        }
+        emailOutboxRepo.insertAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pollDue();
+                }
+            });
+        } else {
+            pollDue();
+        }
+    }
+
+    private static void markPending(EmailOutbox row, Date now) {
+        row.setStatus(Constants.PENDING);
+        row.setAttempts(0);
+        row.setNextAttemptAt(now);
+        row.setCreatedAt(now);
+    }
+
+    /**
+     * Safety net for rows the after-commit hand-off did not deliver.
+     */
+    @Scheduled(fixedDelayString = "${lms.mail.outbox.poll-interval-ms:15000}")
+    public void pollDue() {
+        List<Long> due = emailOutboxRepo.findDueIds(CLAIMABLE, new Date(), PageRequest.of(0, batchSize));
+        for (Long id : due) {
+            if (!submit(id)) {
+                break;
+            }
+        }
+    }
+
+    private boolean submit(long id) {
+        try {
+            outboxExecutor.execute(() -> deliver(id));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Pool is saturated; the row stays PENDING and the poller picks it up.
+            logger.warn("Outbox executor saturated, mail {} deferred to poller", id);
+            return false;
+        }
+    }
+
+    void deliver(long id) {
+        Date now = new Date();
+        if (emailOutboxRepo.claim(id, CLAIMABLE, Constants.SENDING, now, new Date(now.getTime() + leaseMillis)) == 0) {
+            return; // delivered or claimed by another worker
+        }
+        EmailOutbox row = emailOutboxRepo.findById(id).orElse(null);
+        if (row == null) {
+            return;
+        }
+
+        if (!circuitBreaker.tryAcquire()) {
+            // Circuit is open: hand the row back without counting an attempt.
+            row.setStatus(Constants.PENDING);
+            row.setNextAttemptAt(new Date(System.currentTimeMillis() + backoffMillis));
+            emailOutboxRepo.save(row);
+            return;
+        }
+
+        boolean resolved = false;
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            helper.setTo(row.getRecipient());
+            helper.setSubject(row.getSubject());
+            helper.setText(row.getBody(), true);
+            mailSender.send(message);
+
+            circuitBreaker.onSuccess();
+            resolved = true;
+            row.setStatus(Constants.SENT);
+            row.setSentAt(new Date());
+            row.setLastError(null);
+            logger.info("Outbox mail {} sent to {}", id, row.getRecipient());
+        } catch (MailException e) {
+            circuitBreaker.onFailure();
+            resolved = true;
+            scheduleRetry(row, e);
+        } catch (MessagingException e) {
+            // The message itself is malformed; retrying will not help.
+            row.setAttempts(row.getAttempts() + 1);
+            row.setStatus(Constants.DEAD);
+            row.setLastError(truncate(e.getMessage()));
+            logger.error("Outbox mail {} could not be built, moved to DEAD: {}", id, e.getMessage());
+        } finally {
+            if (!resolved) {
+                // Nothing reached the SMTP server; a half-open trial must not stay taken
+                circuitBreaker.release();
+            }
+        }
+        emailOutboxRepo.save(row);
+    }
+
+    private void scheduleRetry(EmailOutbox row, Exception e) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        row.setLastError(truncate(e.getMessage()));
+        if (attempts >= maxAttempts) {
+            row.setStatus(Constants.DEAD);
+            logger.error("Outbox mail {} to {} failed {} times, moved to DEAD", row.getOutboxId(), row.getRecipient(), attempts);
+            return;
+        }
+        long delay = backoffMillis << Math.min(attempts - 1, 10);
+        row.setStatus(Constants.PENDING);
+        row.setNextAttemptAt(new Date(System.currentTimeMillis() + delay));
+        logger.warn("Outbox mail {} failed (attempt {}), retrying in {} ms: {}", row.getOutboxId(), attempts, delay, e.getMessage());
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
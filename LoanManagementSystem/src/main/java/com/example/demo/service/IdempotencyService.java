@@ -0,0 +1,215 @@
+package com.example.demo.service;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.IdempotencyRecord;
+import com.example.demo.model.IdempotentResponse;
+import com.example.demo.repo.IdempotencyRecordRepo;
+
+/**
+ * Runs a request at most once per idempotency key and replays its first outcome.
+ *
+ * Completed outcomes are kept in a bounded LRU in front of the IDEMPOTENCYKEY
+ * table. A duplicate that arrives while the first request is still running on
+ * this node waits on the same future; one running on another node is seen as a
+ * PENDING row and polled until it completes. 5xx outcomes and exceptions are not
+ * stored: the key is released so a retry can run the request again.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final long POLL_MILLIS = 100;
+
+    private final IdempotencyRecordRepo idempotencyRecordRepo;
+    private final long waitMillis;
+    private final long ttlMillis;
+    private final Map<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> completed;
+    private final ReentrantLock completedLock = new ReentrantLock();
+
+    public IdempotencyService(IdempotencyRecordRepo idempotencyRecordRepo,
+                              @Value("${lms.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${lms.idempotency.wait-ms:10000}") long waitMillis,
+                              @Value("${lms.idempotency.ttl-hours:24}") long ttlHours) {
+        this.idempotencyRecordRepo = idempotencyRecordRepo;
+        this.waitMillis = waitMillis;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.completed = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Runs the action unless the key already has an outcome, in which case that
+     * outcome is returned instead.
+     * @param key the client's key, already scoped to the caller and endpoint and
+     *            hashed to fit the IDEMPOTENCYKEY column.
+     * @param requestHash hash of the request, to reject a key reused for another request.
+     */
+    public IdempotentResponse execute(String key, String requestHash, Callable<IdempotentResponse> action) throws Exception {
+        IdempotentResponse cached = cached(key);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<IdempotentResponse> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            // Concurrent duplicate on this node: wait for the first one instead of running again
+            return replay(await(running), requestHash);
+        }
+        try {
+            IdempotentResponse response = claimAndRun(key, requestHash, action);
+            mine.complete(response);
+            return response;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lms.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepo.purgeCreatedBefore(new Date(System.currentTimeMillis() - ttlMillis));
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private IdempotentResponse claimAndRun(String key, String requestHash, Callable<IdempotentResponse> action) throws Exception {
+        try {
+            idempotencyRecordRepo.claim(key, requestHash, Constants.PENDING, new Date());
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            // Another request, possibly on another node, holds the key already
+            return awaitRecord(key, requestHash);
+        }
+
+        IdempotentResponse response;
+        try {
+            response = action.call();
+        } catch (Exception e) {
+            idempotencyRecordRepo.release(key, Constants.PENDING);
+            throw e;
+        }
+        if (response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            idempotencyRecordRepo.release(key, Constants.PENDING);
+            return response;
+        }
+        idempotencyRecordRepo.complete(key, response.getStatus(), response.getContentType(), response.getBody(),
+                new Date(), Constants.PENDING, Constants.COMPLETED);
+        remember(key, response);
+        return response;
+    }
+
+    // Only a clash on the primary key means the key is held; any other violation is a real failure
+    private static boolean isDuplicateKey(DataIntegrityViolationException e) {
+        return e instanceof DuplicateKeyException
+                || e.getCause() instanceof ConstraintViolationException violation && violation.getKind() == ConstraintKind.UNIQUE;
+    }
+
+    private IdempotentResponse awaitRecord(String key, String requestHash) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            IdempotencyRecord record = idempotencyRecordRepo.findById(key).orElse(null);
+            if (record == null) {
+                // Released after a failure; the client may retry
+                return conflict("The original request failed, please retry");
+            }
+            if (Constants.COMPLETED.equals(record.getStatus())) {
+                IdempotentResponse response = new IdempotentResponse(record.getRequestHash(), record.getResponseStatus(),
+                        record.getContentType(), record.getResponseBody());
+                remember(key, response);
+                return replay(response, requestHash);
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return conflict("A request with this Idempotency-Key is still in progress");
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    private IdempotentResponse await(CompletableFuture<IdempotentResponse> running) throws Exception {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return conflict("A request with this Idempotency-Key is still in progress");
+        } catch (ExecutionException e) {
+            // The first request failed; the duplicate sees the same failure
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private IdempotentResponse replay(IdempotentResponse response, String requestHash) {
+        if (response.getRequestHash() != null && !response.getRequestHash().equals(requestHash)) {
+            return new IdempotentResponse(requestHash, HttpStatus.UNPROCESSABLE_ENTITY.value(), MediaType.TEXT_PLAIN_VALUE,
+                    "Idempotency-Key was already used for a different request");
+        }
+        return response;
+    }
+
+    private static IdempotentResponse conflict(String message) {
+        return new IdempotentResponse(null, HttpStatus.CONFLICT.value(), MediaType.TEXT_PLAIN_VALUE, message);
+    }
+
+    private IdempotentResponse cached(String key) {
+        completedLock.lock();
+        try {
+            CachedResponse cached = completed.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt < System.currentTimeMillis()) {
+                completed.remove(key);
+                return null;
+            }
+            return cached.response;
+        } finally {
+            completedLock.unlock();
+        }
+    }
+
+    private void remember(String key, IdempotentResponse response) {
+        completedLock.lock();
+        try {
+            completed.put(key, new CachedResponse(response, System.currentTimeMillis() + ttlMillis));
+        } finally {
+            completedLock.unlock();
+        }
+    }
+
+    private record CachedResponse(IdempotentResponse response, long expiresAt) {
+    }
+}
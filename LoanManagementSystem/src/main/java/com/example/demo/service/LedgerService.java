@@ -0,0 +1,284 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.exception.AccountNotFoundException;
+import com.example.demo.exception.LedgerConflictException;
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.Constants;
+import com.example.demo.model.DueInstallment;
+import com.example.demo.model.LedgerBalance;
+import com.example.demo.model.LedgerPosting;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.LedgerRepo;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * The single place account balances change.
+ *
+ * By default balances live in ACCOUNTDETAILS.BALANCE and every movement is a delta
+ * update of that row. With lms.ledger.enabled=true each movement is instead appended
+ * as a double-entry journal to LEDGERPOSTING (the customer leg and the bank's leg on
+ * account 0), and nothing rewrites the account row on the write path. The balance
+ * is the account's latest BALANCESNAPSHOT plus the postings after it; compact()
+ * periodically rolls long tails into new snapshots, so reads stay short, and copies
+ * the snapshot back to ACCOUNTDETAILS.BALANCE as a read model. Appenders on one
+ * account queue on its BALANCESNAPSHOT row, which the ledger owns, rather than on
+ * the account row.
+ */
+@Service
+@Transactional
+public class LedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    private final AccountDetailsRepo accountDetailsRepo;
+    private final AutoDebitRepo autoDebitRepo;
+    private final LedgerRepo ledgerRepo;
+    private final boolean enabled;
+    private final int compactionThreshold;
+    private final int compactionBatch;
+    private final int maxAppendAttempts;
+
+    public LedgerService(AccountDetailsRepo accountDetailsRepo, AutoDebitRepo autoDebitRepo, LedgerRepo ledgerRepo,
+                         @Value("${lms.ledger.enabled:false}") boolean enabled,
+                         @Value("${lms.ledger.compaction-threshold:50}") int compactionThreshold,
+                         @Value("${lms.ledger.compaction-batch:500}") int compactionBatch,
+                         @Value("${lms.ledger.max-append-attempts:3}") int maxAppendAttempts) {
+        this.accountDetailsRepo = accountDetailsRepo;
+        this.autoDebitRepo = autoDebitRepo;
+        this.ledgerRepo = ledgerRepo;
+        this.enabled = enabled;
+        this.compactionThreshold = compactionThreshold;
+        this.compactionBatch = compactionBatch;
+        this.maxAppendAttempts = maxAppendAttempts;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Current balance of an account already loaded by the caller.
+     */
+    public double balanceOf(AccountDetails account) {
+        if (!enabled) {
+            return account.getBalance();
+        }
+        return ledgerBalance(account.getAccountNumber()).getBalance();
+    }
+
+    /**
+     * Current balances of several accounts, keyed by account number.
+     */
+    public Map<Integer, Double> balancesOf(Collection<Integer> accountNumbers) {
+        if (!enabled) {
+            return autoDebitRepo.findBalances(accountNumbers);
+        }
+        Map<Integer, Double> balances = new HashMap<>();
+        ledgerRepo.findBalances(accountNumbers).forEach((accountNumber, balance) -> balances.put(accountNumber, balance.getBalance()));
+        return balances;
+    }
+
+    /**
+     * Moves money from one customer account to another.
+     * @return false, with nothing written, if the source balance does not cover the amount.
+     */
+    public boolean transfer(int fromAccount, int toAccount, double amount, String entryType) {
+        if (!enabled) {
+            if (accountDetailsRepo.debitIfSufficient(fromAccount, amount) == 0) {
+                return false;
+            }
+            accountDetailsRepo.credit(toAccount, amount);
+            return true;
+        }
+        return post(entryType, fromAccount, toAccount, amount, true);
+    }
+
+    /**
+     * Pays the bank from a customer account.
+     * @return false, with nothing written, if the balance does not cover the amount.
+     */
+    public boolean debitIfSufficient(int accountNumber, double amount, String entryType) {
+        if (!enabled) {
+            return accountDetailsRepo.debitIfSufficient(accountNumber, amount) > 0;
+        }
+        return post(entryType, accountNumber, Constants.BANK_ACCOUNT, amount, true);
+    }
+
+    /**
+     * Pays the bank from a customer account whatever the balance.
+     */
+    public void debit(int accountNumber, double amount, String entryType) {
+        if (!enabled) {
+            accountDetailsRepo.debit(accountNumber, amount);
+            return;
+        }
+        post(entryType, accountNumber, Constants.BANK_ACCOUNT, amount, false);
+    }
+
+    /**
+     * Pays a customer account from the bank.
+     */
+    public void credit(int accountNumber, double amount, String entryType) {
+        if (!enabled) {
+            accountDetailsRepo.credit(accountNumber, amount);
+            return;
+        }
+        post(entryType, Constants.BANK_ACCOUNT, accountNumber, amount, false);
+    }
+
+    /**
+     * Collects a chunk of installments in one read and one batch, debiting each
+     * only if the balance left by the ones before it still covers it.
+     * @return 1 for each collected installment, 0 for each bounced one.
+     */
+    public int[] debitAll(List<DueInstallment> installments) {
+        if (!enabled) {
+            return autoDebitRepo.debit(installments);
+        }
+        Map<Integer, LedgerBalance> balances = ledgerRepo.findBalancesForUpdate(
+                installments.stream().map(DueInstallment::getAccountNumber).distinct().toList());
+        Date now = new Date();
+        int[] debited = new int[installments.size()];
+        List<LedgerPosting> postings = new ArrayList<>(installments.size() * 2);
+        for (int i = 0; i < installments.size(); i++) {
+            DueInstallment due = installments.get(i);
+            LedgerBalance balance = balances.get(due.getAccountNumber());
+            if (balance == null || Double.compare(balance.getBalance(), due.getPaymentAmount()) < 0) {
+                continue;
+            }
+            String journalId = UUID.randomUUID().toString();
+            postings.add(new LedgerPosting(journalId, due.getAccountNumber(), balance.append(-due.getPaymentAmount()),
+                    -due.getPaymentAmount(), Constants.AUTO_DEBIT, now));
+            postings.add(new LedgerPosting(journalId, Constants.BANK_ACCOUNT, null, due.getPaymentAmount(),
+                    Constants.AUTO_DEBIT, now));
+            debited[i] = 1;
+        }
+        if (!postings.isEmpty()) {
+            // The heads are held until commit, so other appenders on these accounts wait rather than collide
+            ledgerRepo.insertPostings(postings);
+        }
+        return debited;
+    }
+
+    /**
+     * Rolls the tail of every account with at least compactionThreshold postings
+     * since its last snapshot into a new snapshot, in batches of compactionBatch.
+     * @return the number of accounts compacted.
+     */
+    @Scheduled(fixedDelayString = "${lms.ledger.compaction-interval-ms:60000}")
+    public int compact() {
+        if (!enabled) {
+            return 0;
+        }
+        List<Integer> accountNumbers = ledgerRepo.findAccountsToCompact(compactionThreshold, compactionBatch);
+        if (accountNumbers.isEmpty()) {
+            return 0;
+        }
+        Date now = new Date();
+        Map<Integer, LedgerBalance> balances = ledgerRepo.findBalances(accountNumbers);
+        Set<Integer> snapshotted = ledgerRepo.findSnapshotAccounts(accountNumbers);
+        List<LedgerBalance> updates = new ArrayList<>();
+        List<LedgerBalance> inserts = new ArrayList<>();
+        for (LedgerBalance balance : balances.values()) {
+            (snapshotted.contains(balance.getAccountNumber()) ? updates : inserts).add(balance);
+        }
+
+        List<LedgerBalance> compacted = new ArrayList<>(inserts);
+        if (!updates.isEmpty()) {
+            int[] updated = ledgerRepo.updateSnapshots(updates, now);
+            for (int i = 0; i < updates.size(); i++) {
+                if (updated[i] > 0) {
+                    compacted.add(updates.get(i));
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            ledgerRepo.insertSnapshots(inserts, now);
+        }
+        if (!compacted.isEmpty()) {
+            ledgerRepo.refreshAccountBalances(compacted);
+        }
+        logger.info("Ledger compaction rolled up {} accounts", compacted.size());
+        return compacted.size();
+    }
+
+    // Appends a two-leg journal moving amount from debitAccount to creditAccount
+    private boolean post(String entryType, int debitAccount, int creditAccount, double amount, boolean checkFunds) {
+        if (debitAccount != Constants.BANK_ACCOUNT && creditAccount != Constants.BANK_ACCOUNT) {
+            // Takes both heads in account-number order, so two transfers cannot deadlock on them
+            ledgerRepo.findBalancesForUpdate(List.of(debitAccount, creditAccount));
+        }
+        String journalId = UUID.randomUUID().toString();
+        Date now = new Date();
+        if (!append(journalId, debitAccount, -amount, entryType, now, checkFunds)) {
+            return false;
+        }
+        append(journalId, creditAccount, amount, entryType, now, false);
+        return true;
+    }
+
+    private boolean append(String journalId, int accountNumber, double amount, String entryType, Date now, boolean checkFunds) {
+        if (accountNumber == Constants.BANK_ACCOUNT) {
+            ledgerRepo.insertPostings(List.of(new LedgerPosting(journalId, accountNumber, null, amount, entryType, now)));
+            return true;
+        }
+        for (int attempt = 1; ; attempt++) {
+            LedgerBalance balance = lockedBalance(accountNumber);
+            if (checkFunds && Double.compare(balance.getBalance(), -amount) < 0) {
+                return false;
+            }
+            try {
+                ledgerRepo.insertPostings(List.of(new LedgerPosting(journalId, accountNumber, balance.append(amount),
+                        amount, entryType, now)));
+                return true;
+            } catch (DuplicateKeyException e) {
+                // A writer that did not hold the head appended after it; re-read and try again
+                if (attempt >= maxAppendAttempts) {
+                    throw new LedgerConflictException("Concurrent update on account " + accountNumber + ", please retry");
+                }
+                logger.debug("Ledger append on account {} lost a race, attempt {}", accountNumber, attempt);
+            }
+        }
+    }
+
+    /*
+     * A plain read would return the transaction's snapshot, which under MySQL's
+     * REPEATABLE READ misses postings committed since the transaction's first read:
+     * the funds check would pass on a stale balance and every retry would collide
+     * on the same stale head. The locking read sees them and holds the account's
+     * head row, so other appenders queue behind this one.
+     */
+    private LedgerBalance lockedBalance(int accountNumber) {
+        LedgerBalance balance = ledgerRepo.findBalanceForUpdate(accountNumber);
+        if (balance == null) {
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
+        return balance;
+    }
+
+    private LedgerBalance ledgerBalance(int accountNumber) {
+        LedgerBalance balance = ledgerRepo.findBalances(List.of(accountNumber)).get(accountNumber);
+        if (balance == null) {
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
+        return balance;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.demo.service;
 import org.apache.log4j.Logger;
  
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Service;
 import com.example.demo.exception.EmailSendingException;
 import com.example.demo.exception.LoanApplicationNotFoundException;
 import com.example.demo.exception.LoanRejectionException;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.AccountDetails;
 import com.example.demo.model.Constants;
 import com.example.demo.model.LoanApplication;
@@ -38,6 +40,7 @@ public class LoanApplicationService {
     private final LoanRepaymentsRepo loanRepaymentsRepo;
     private final AccountDetailsRepo accountDetailsRepo;
     private final EmailService emailService;
+    private final AnnuityFactorCache annuityFactorCache;
  
  
     // Constructor injection
@@ -46,13 +49,15 @@ public class LoanApplicationService {
                                    AccountDetailsRepo accountDetailsRepo,
                                    LoanRepaymentsRepo loanRepaymentsRepo,
                                    EmailService emailService,
-                                   BankTransactionService bankTransactionService) {
+                                   BankTransactionService bankTransactionService,
+                                   AnnuityFactorCache annuityFactorCache) {
         this.loanApplicationRepo = loanApplicationRepo;
         this.loanSanctionRepo = loanSanctionRepo;
         this.loanRepaymentsRepo = loanRepaymentsRepo;
         this.accountDetailsRepo = accountDetailsRepo;
         this.bankTransactionService = bankTransactionService;
         this.emailService = emailService;
+        this.annuityFactorCache = annuityFactorCache;
         
     }
  
@@ -65,6 +70,18 @@ public class LoanApplicationService {
         logger.info("Fetching all loan applications");
         return loanApplicationRepo.findAll();
     }
+
+    /**
+     * Retrieves one keyset page of loan applications, in loan ID order.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param size Maximum number of applications on the page.
+     * @return Page of loan applications.
+     */
+    public KeysetPage<LoanApplication> showLoanapplicationPage(String cursor, int size) {
+        return KeysetPage.of(loanApplicationRepo.findByLoanIdGreaterThanOrderByLoanIdAsc(
+                KeysetPage.after(cursor), KeysetPage.limit(size)), LoanApplication::getLoanId);
+    }
  
     /**
      * Searches for a loan application by its ID.
@@ -308,43 +325,27 @@ public class LoanApplicationService {
  
 			// Calculate fixed monthly installment using compound interest
 			double principal = loanApplication.getLoanAmount();
-			double annualInterestRate = loanApplication.getInterestRate();
-			double monthlyInterestRate = annualInterestRate / (12 * 100);
+			double monthlyInterestRate = AmortizationKernel.monthlyRate(loanApplication.getInterestRate());
  
-			double monthlyInstallment = principal * monthlyInterestRate *
-					Math.pow(1 + monthlyInterestRate, totalMonths) /
-					(Math.pow(1 + monthlyInterestRate, totalMonths) - 1);
+			double monthlyInstallment = annuityFactorCache.installment(principal, loanApplication.getInterestRate(), totalMonths);
  
 			monthlyInstallment = Math.round(monthlyInstallment * 100.0) / 100.0; // Round to 2 decimal places
 			loanSanction.setMonthlyInstallmentsAmount(monthlyInstallment);
 			loanSanction.setSanctionedBy("Admin");
+			loanSanction.setInstallmentsRemaining(totalMonths);
+			loanSanction.setOutstandingPrincipal(principal);
+			loanSanction.setNextDueDate(loanStartDate);
  
 			// Save loan sanction
 			loanSanctionRepo.save(loanSanction);
  
-			// Generate monthly repayment records
-			// Generate monthly repayment records
-			calendar.setTime(loanStartDate);
-			double remainingLoanAmount = principal;
-
-			for (int month = 1; month <= totalMonths; month++) {
-				LoanRepayments repayment = new LoanRepayments();
-				repayment.setLoanId(loanId);
-				repayment.setPaymentDate(calendar.getTime());
-				repayment.setPaymentAmount(monthlyInstallment);
-				repayment.setPaymentMode("LOAN_REPAYMENT");
-				repayment.setPaymentStatus(Constants.PENDING);
-				repayment.setDueLoanAmount(remainingLoanAmount);
-
-				// Round dueLoanAmount to 2 decimal places
-				repayment.setDueLoanAmount(Math.round(remainingLoanAmount * 100.0) / 100.0);
-
-				loanRepaymentsRepo.save(repayment);
+			// Generate monthly repayment records; each one carries the balance outstanding before it is paid
+			List<LoanRepayments> schedule = buildRepaymentSchedule(loanId, loanStartDate, principal,
+					monthlyInterestRate, totalMonths, monthlyInstallment);
 
-				// Update remaining loan amount and date for next month
-				remainingLoanAmount = remainingLoanAmount - monthlyInstallment;
-				calendar.add(Calendar.MONTH, 1);
-			}
+			// Batch insert the whole schedule instead of one round trip per month
+			loanRepaymentsRepo.saveAllInBatches(schedule);
+			logger.info("Generated " + totalMonths + " repayment records for loan ID: " + loanId);
 
 			// Credit loan amount to user
 			bankTransactionService.creditLoanAmount(
@@ -367,6 +368,46 @@ public class LoanApplicationService {
 		}
 	}
 
+    /**
+     * Builds the pending repayment records of a newly approved loan, one per month from the first due date.
+     * Each record carries the amortized balance outstanding before it is paid, rounded to 2 decimal places.
+     *
+     * @param loanId ID of the approved loan.
+     * @param firstDueDate Due date of the first installment.
+     * @param principal Sanctioned amount.
+     * @param monthlyInterestRate Monthly rate, e.g. 0.01 for 12% a year.
+     * @param totalMonths Number of installments.
+     * @param monthlyInstallment Rounded installment charged each month.
+     * @return The schedule, in due date order; not yet saved.
+     */
+    public List<LoanRepayments> buildRepaymentSchedule(int loanId, Date firstDueDate, double principal,
+                                                       double monthlyInterestRate, int totalMonths, double monthlyInstallment) {
+        double[] balance = new double[totalMonths];
+        AmortizationKernel.balances(principal, monthlyInterestRate, totalMonths, monthlyInstallment, balance);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(firstDueDate);
+        double remainingLoanAmount = principal;
+        List<LoanRepayments> schedule = new ArrayList<>(totalMonths);
+
+        for (int month = 1; month <= totalMonths; month++) {
+            LoanRepayments repayment = new LoanRepayments();
+            repayment.setLoanId(loanId);
+            repayment.setPaymentDate(calendar.getTime());
+            repayment.setPaymentAmount(monthlyInstallment);
+            repayment.setPaymentMode("LOAN_REPAYMENT");
+            repayment.setPaymentStatus(Constants.PENDING);
+
+            // Round dueLoanAmount to 2 decimal places
+            repayment.setDueLoanAmount(Math.round(remainingLoanAmount * 100.0) / 100.0);
+            schedule.add(repayment);
+
+            // Update remaining loan amount and date for next month
+            remainingLoanAmount = balance[month - 1];
+            calendar.add(Calendar.MONTH, 1);
+        }
+        return schedule;
+    }
+
     /**
      * Rejects a loan application and updates its status.
      *
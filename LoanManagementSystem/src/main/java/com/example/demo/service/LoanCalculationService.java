@@ -1,13 +1,58 @@
 package com.example.demo.service;
  
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.List;
+import java.util.Map;
+
 import org.apache.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.RateTenureView;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
  
 @Service
 public class LoanCalculationService {
  
     
     private static  Logger logger = Logger.getLogger(LoanCalculationService.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final AnnuityFactorCache annuityFactorCache;
+    private final LoanApplicationRepo loanApplicationRepo;
+
+    // Constructor Injection
+    public LoanCalculationService(AnnuityFactorCache annuityFactorCache, LoanApplicationRepo loanApplicationRepo) {
+        this.annuityFactorCache = annuityFactorCache;
+        this.loanApplicationRepo = loanApplicationRepo;
+    }
+
+    /**
+     * Fills the annuity factor cache with every rate and tenure offered on a loan
+     * application, so the first calculator requests after a restart already hit it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadAnnuityFactors() {
+        List<RateTenureView> offered = loanApplicationRepo.findDistinctRateAndTenure();
+        for (RateTenureView rateTenure : offered) {
+            annuityFactorCache.preload(rateTenure.getInterestRate(), rateTenure.getTenure() * 12);
+        }
+        logger.info("Preloaded annuity factors for " + offered.size() + " rate and tenure pairs");
+    }
+
+    /**
+     * Hit and miss counters of the annuity factor cache.
+     */
+    public Map<String, Number> annuityFactorCacheStats() {
+        return annuityFactorCache.stats();
+    }
  
     /**
      * Method to calculate loan payment details including monthly payment, total payment, and total interest.
@@ -23,14 +68,8 @@ public class LoanCalculationService {
                 loanAmount + annualInterestRate + loanTerm + loanType);
  
         
-        double calculatedInterest = annualInterestRate / 100 / 12;
-        
-        
         int payments = loanTerm * 12;
-        
-        
-        double x = Math.pow(1 + calculatedInterest, payments);
-        double monthlyPayment = (loanAmount * x * calculatedInterest) / (x - 1);
+        double monthlyPayment = annuityFactorCache.installment(loanAmount, annualInterestRate, payments);
         
         
         if (!Double.isFinite(monthlyPayment)) {
@@ -49,6 +88,64 @@ public class LoanCalculationService {
         return new LoanCalculationResult(monthlyPayment, totalPayment, totalInterest);
     }
  
+    /**
+     * Writes the full month-by-month schedule as JSON: the totals, then one entry per
+     * month with its payment, interest, principal and remaining balance. Rows go
+     * straight from the kernel's arrays to the stream without per-row objects.
+     *
+     * @param loanAmount The amount of the loan.
+     * @param annualInterestRate The annual interest rate in percentage.
+     * @param loanTerm The term of the loan in years.
+     * @param out The response stream; flushed but not closed.
+     * @return false, with nothing written, when the parameters cannot be amortized.
+     */
+    public boolean writeSchedule(double loanAmount, double annualInterestRate, int loanTerm, OutputStream out) throws IOException {
+        if (!isSchedulable(loanAmount, annualInterestRate, loanTerm)) {
+            logger.error("Invalid schedule parameters: amount " + loanAmount + ", rate " + annualInterestRate + ", term " + loanTerm);
+            return false;
+        }
+        int months = loanTerm * 12;
+        double monthlyRate = AmortizationKernel.monthlyRate(annualInterestRate);
+        double monthlyPayment = annuityFactorCache.installment(loanAmount, annualInterestRate, months);
+        double[] interest = new double[months];
+        double[] principal = new double[months];
+        double[] balance = new double[months];
+        AmortizationKernel.schedule(loanAmount, monthlyRate, months, monthlyPayment, interest, principal, balance);
+
+        double totalInterest = 0;
+        for (int i = 0; i < months; i++) {
+            totalInterest += interest[i];
+        }
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeNumberField("monthlyPayment", monthlyPayment);
+            json.writeNumberField("totalPayment", loanAmount + totalInterest);
+            json.writeNumberField("totalInterest", totalInterest);
+            json.writeArrayFieldStart("schedule");
+            for (int i = 0; i < months; i++) {
+                json.writeStartObject();
+                json.writeNumberField("month", i + 1);
+                json.writeNumberField("payment", interest[i] + principal[i]);
+                json.writeNumberField("interest", interest[i]);
+                json.writeNumberField("principal", principal[i]);
+                json.writeNumberField("balance", balance[i]);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        return true;
+    }
+
+    /**
+     * Checks the parameters before anything is streamed, while an error status can still be sent.
+     */
+    public boolean isSchedulable(double loanAmount, double annualInterestRate, int loanTerm) {
+        return loanAmount > 0 && annualInterestRate >= 0 && loanTerm > 0 && loanTerm <= Constants.MAX_LOAN_TERM_YEARS
+                && Double.isFinite(annuityFactorCache.factor(annualInterestRate, loanTerm * 12));
+    }
+
     /**
      * Result object to hold the loan calculation results: monthly payment, total payment, and total interest.
      */
@@ -1,14 +1,17 @@
 package com.example.demo.service;
  
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
  
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.LoanRepayments;
 import com.example.demo.model.LoanSanction;
 import com.example.demo.model.LoanApplication;
@@ -21,6 +24,7 @@ import com.example.demo.exception.PreclosureProcessingException;
 import com.example.demo.model.AccountDetails;
 import com.example.demo.model.BankTransaction;
 import com.example.demo.model.Constants;
+import com.example.demo.model.OverdueReminderView;
 import com.example.demo.repo.LoanRepaymentsRepo;
 import com.example.demo.repo.LoanSanctionRepo;
 import com.example.demo.repo.LoanApplicationRepo;
@@ -34,6 +38,7 @@ import jakarta.transaction.Transactional;
 public class LoanRepaymentsService {
  
     private static final Logger logger = LoggerFactory.getLogger(LoanRepaymentsService.class);
+    private static final int REMINDER_PAGE_SIZE = 500;
  
     private final LoanRepaymentsRepo loanRepaymentsRepo;
     private final LoanApplicationRepo loanApplicationRepo;
@@ -41,23 +46,31 @@ public class LoanRepaymentsService {
     private final AccountDetailsRepo accountDetailsRepo;
     private final EmailService emailService;
     private final LoanSanctionRepo loanSanctionRepo;
+    private final LedgerService ledgerService;
  
    
     public LoanRepaymentsService(LoanRepaymentsRepo loanRepaymentsRepo, LoanApplicationRepo loanApplicationRepo,
                                  BankTransactionRepo bankTransactionRepo,
                                  AccountDetailsRepo accountDetailsRepo, EmailService emailService,
-                                 LoanSanctionRepo loanSanctionRepo) {
+                                 LoanSanctionRepo loanSanctionRepo,
+                                 LedgerService ledgerService) {
         this.loanRepaymentsRepo = loanRepaymentsRepo;
         this.loanApplicationRepo = loanApplicationRepo;
         this.bankTransactionRepo = bankTransactionRepo;
         this.accountDetailsRepo = accountDetailsRepo;
         this.emailService = emailService;
         this.loanSanctionRepo = loanSanctionRepo;
+        this.ledgerService = ledgerService;
     }
  
     public List<LoanRepayments> show() {
         return loanRepaymentsRepo.findAll();
     }
+
+    public KeysetPage<LoanRepayments> showPage(String cursor, int size) {
+        return KeysetPage.of(loanRepaymentsRepo.findByPaymentIdGreaterThanOrderByPaymentIdAsc(
+                KeysetPage.after(cursor), KeysetPage.limit(size)), LoanRepayments::getPaymentId);
+    }
  
     public LoanRepayments searchByPaymentId(int paymentId) {
         return loanRepaymentsRepo.findById(paymentId).orElse(null);
@@ -95,6 +108,7 @@ public class LoanRepaymentsService {
 
         LoanRepayments repaymentsDb = loanRepaymentsRepo.findById(repayments.getPaymentId())
                 .orElseThrow(() -> new LoanRepaymentNotFoundException("Repayment not found for Payment ID: " + repayments.getPaymentId()));
+        boolean wasPending = Constants.PENDING.equals(repaymentsDb.getPaymentStatus());
         repaymentsDb.setPaymentStatus(repayments.getPaymentStatus());
         repaymentsDb.setPaymentMode(repayments.getPaymentMode());
 
@@ -104,39 +118,47 @@ public class LoanRepaymentsService {
             LoanApplication loanApplication = loanApplicationOpt.get();
             int accountNumber = loanApplication.getAccountNumber();
             AccountDetails accountDetails = accountDetailsRepo.findByAccountNumber(accountNumber);
+            Double balanceAfter = null;
 
             if (accountDetails != null) {
-                // Update balance after repayment
-                accountDetails.setBalance(accountDetails.getBalance() - repayments.getPaymentAmount());
+                // Read once, before the debit; in ledger mode a later read already includes it
+                balanceAfter = ledgerService.balanceOf(accountDetails) - repayments.getPaymentAmount();
 
-                // Save updated repayment and account details
+                // Save updated repayment and take the amount from the balance
                 loanRepaymentsRepo.save(repaymentsDb);
-                accountDetailsRepo.save(accountDetails);
-            }
-
-            // Check if all repayments for the loan are completed
-            boolean completed = getRepaymentsForLoan(repayments.getLoanId()).stream()
-                    .noneMatch(r -> r.getPaymentStatus().equals(Constants.PENDING));
+                ledgerService.debit(accountNumber, repayments.getPaymentAmount(), Constants.LOAN_REPAYMENT);
 
-            // If all repayments are completed, close the loan sanction
-            if (completed) {
-                LoanSanction loanSanction = loanSanctionRepo.findByLoanId(repayments.getLoanId());
-                if (loanSanction != null) {
-                    loanSanction.setSanctionStatus(Constants.CLOSED);
-                    loanSanctionRepo.save(loanSanction);
+                // Keep the sanction's counters in step with the schedule
+                if (wasPending && !Constants.PENDING.equals(repaymentsDb.getPaymentStatus())) {
+                    recordInstallmentSettled(repayments.getLoanId());
                 }
             }
 
+            // Close the loan sanction once no installment is left; a no-op otherwise
+            if (loanSanctionRepo.closeIfSettled(repayments.getLoanId(), Constants.CLOSED) > 0) {
+                logger.info("All installments settled, loan sanction closed for Loan ID: {}", repayments.getLoanId());
+            }
+
             // Initiate the repayment process
-            initiateRepayment(repayments);
+            initiateRepayment(repayments, balanceAfter);
 
         } else {
             logger.error("Loan Application not found for Loan ID: {}", repayments.getLoanId());
         }
     }
 
- 
+    private void recordInstallmentSettled(int loanId) {
+        if (loanSanctionRepo.recordInstallmentSettled(loanId, Constants.PENDING) == 0) {
+            // Sanction approved before the counters existed: derive them once from the schedule
+            loanSanctionRepo.initializeCounters(loanId, Constants.PENDING);
+        }
+    }
+
     public void initiateRepayment(LoanRepayments repayment) {
+        initiateRepayment(repayment, null);
+    }
+
+    private void initiateRepayment(LoanRepayments repayment, Double balanceAfter) {
         try {
             LoanApplication loanApplication = loanApplicationRepo.findById(repayment.getLoanId()).orElse(null);
 
@@ -150,7 +172,7 @@ public class LoanRepaymentsService {
             double amount = repayment.getPaymentAmount();
 
             // Extracted method to handle transaction and repayment logic
-            processRepaymentTransaction(repayment, borrowerAccount, amount);
+            processRepaymentTransaction(repayment, borrowerAccount, amount, balanceAfter);
 
         } catch (Exception e) {
             logger.error("Repayment process failed for Payment ID: {}", repayment.getPaymentId(), e);
@@ -159,6 +181,11 @@ public class LoanRepaymentsService {
     }
 
     public void processRepaymentTransaction(LoanRepayments repayment, int borrowerAccount, double amount) {
+        processRepaymentTransaction(repayment, borrowerAccount, amount, null);
+    }
+
+    // balanceAfter is null when the amount has not been taken from the account yet
+    private void processRepaymentTransaction(LoanRepayments repayment, int borrowerAccount, double amount, Double balanceAfter) {
         try {
             int lenderAccount = 0;
 
@@ -167,7 +194,8 @@ public class LoanRepaymentsService {
             transaction.setAccountNumber(borrowerAccount);
             transaction.setToAccNo(lenderAccount);
             transaction.setTransactionAmount(amount);
-            transaction.setBalanceAfterTransaction(accountDetailsRepo.findByAccountNumber(borrowerAccount).getBalance() - amount);
+            transaction.setBalanceAfterTransaction(balanceAfter != null ? balanceAfter
+                    : ledgerService.balanceOf(accountDetailsRepo.findByAccountNumber(borrowerAccount)) - amount);
             transaction.setTransactionDate(new Date());
             transaction.setTransactionType(Constants.LOAN_REPAYMENT);
             transaction.setTransactionStatus(Constants.SUCCESS);
@@ -232,15 +260,10 @@ public class LoanRepaymentsService {
         try {
             logger.info("Processing pre-closure for Loan ID: {}", loanId);
 
-            // Get the loan application
-            Optional<LoanApplication> loanApplicationOpt = loanApplicationRepo.findById(loanId);
-            if (!loanApplicationOpt.isPresent()) {
+            // Close the loan application; no row means the loan does not exist
+            if (loanApplicationRepo.updateStatus(loanId, Constants.CLOSED) == 0) {
                 throw new LoanApplicationNotFoundException("Loan not found: " + loanId);  // Custom exception for loan not found
             }
-            LoanApplication loanApplication = loanApplicationOpt.get();
-
-            // Get all pending repayments for this loan
-            List<LoanRepayments> pendingRepayments = loanRepaymentsRepo.findByLoanIdAndPaymentStatus(loanId, Constants.PENDING);
 
             // Get account details
             AccountDetails accountDetails = accountDetailsRepo.findByAccountNumber(accountNumber);
@@ -248,8 +271,9 @@ public class LoanRepaymentsService {
                 throw new AccountNotFoundException("Account not found: " + accountNumber);  // Custom exception for account not found
             }
 
-            // Check if account has sufficient balance
-            if (accountDetails.getBalance() < preclosureAmount) {
+            // Deduct amount from account, only if the balance still covers it
+            double balance = ledgerService.balanceOf(accountDetails);
+            if (!ledgerService.debitIfSufficient(accountNumber, preclosureAmount, Constants.LOAN_PRECLOSURE)) {
                 throw new InsufficientBalanceException("Insufficient balance for pre-closure");  // Custom exception for insufficient balance
             }
 
@@ -258,47 +282,28 @@ public class LoanRepaymentsService {
             transaction.setAccountNumber(accountNumber);
             transaction.setToAccNo(0); // Bank account
             transaction.setTransactionAmount(preclosureAmount);
-            transaction.setBalanceAfterTransaction(accountDetails.getBalance() - preclosureAmount);
+            transaction.setBalanceAfterTransaction(balance - preclosureAmount);
             transaction.setTransactionDate(new Date());
             transaction.setTransactionType(Constants.LOAN_PRECLOSURE);
             transaction.setTransactionStatus(Constants.SUCCESS);
             bankTransactionRepo.save(transaction);
 
-            // Deduct amount from account
-            accountDetails.setBalance(accountDetails.getBalance() - preclosureAmount);
-            accountDetailsRepo.save(accountDetails);
+            // Mark all pending repayments as COMPLETED in one statement, whatever the tenure
+            int settled = loanRepaymentsRepo.settlePendingInstallments(loanId, paymentMode, Constants.PENDING, Constants.COMPLETED);
+            logger.info("Pre-closure settled {} pending installments for Loan ID: {}", settled, loanId);
 
-            // Mark all pending repayments as COMPLETED
-            for (LoanRepayments repayment : pendingRepayments) {
-                repayment.setPaymentStatus(Constants.COMPLETED);
-                repayment.setPaymentMode(paymentMode);
-                repayment.setDueLoanAmount(0);
-                loanRepaymentsRepo.save(repayment);
-            }
-
-            // Update loan status to CLOSED in LoanApplication
-            loanApplication.setStatus(Constants.CLOSED);
-            loanApplicationRepo.save(loanApplication);
-
-            // Update loan sanction status
-            LoanSanction loanSanction = loanSanctionRepo.findByLoanId(loanId);
-            if (loanSanction != null) {
-                loanSanction.setSanctionStatus(Constants.CLOSED);
-                loanSanctionRepo.save(loanSanction);
-            }
+            // Update loan sanction status and zero its counters
+            loanSanctionRepo.closeSettled(loanId, Constants.CLOSED);
 
             // Send email notification
-            AccountDetails borrowerDetails = accountDetailsRepo.findByAccountNumber(accountNumber);
-            if (borrowerDetails != null) {
-                emailService.sendLoanPreclosureEmail(
-                        borrowerDetails.getEmail(),
-                        borrowerDetails.getFirstName() + " " + borrowerDetails.getLastName(),
-                        loanId,
-                        preclosureAmount,
-                        new Date(),
-                        paymentMode
-                );
-            }
+            emailService.sendLoanPreclosureEmail(
+                    accountDetails.getEmail(),
+                    accountDetails.getFirstName() + " " + accountDetails.getLastName(),
+                    loanId,
+                    preclosureAmount,
+                    new Date(),
+                    paymentMode
+            );
 
         } catch (LoanApplicationNotFoundException | AccountNotFoundException | InsufficientBalanceException e) {
             // Log and rethrow specific exceptions for higher-level handling
@@ -315,44 +320,57 @@ public class LoanRepaymentsService {
 
 
  
+    /**
+     * Sends one reminder per borrower for all of their overdue installments.
+     * Rows are read as a join projection in keyset pages ordered by account, so the
+     * job issues one query per page instead of two lookups per installment, and the
+     * reminders of each page are written to the outbox with one batch insert.
+     */
     @Scheduled(cron = "0 0 10 * * ?")
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void processLoanDueReminders() {
         logger.info("Processing loan due reminders...");
 
         Date today = new Date();
-        List<LoanRepayments> overdueRepayments = loanRepaymentsRepo.findByPaymentDateBeforeAndPaymentStatus(today, "PENDING");
-
-        for (LoanRepayments repayment : overdueRepayments) {
-            // Fetch the loan details using the loanId
-            LoanApplication loan = loanApplicationRepo.findById(repayment.getLoanId()).orElse(null);
-
-            if (loan != null) {
-                // Get the account number from the loan or user
-                int accountNumber = loan.getAccountNumber();
-
-                // Fetch the account details using the account number
-                AccountDetails account = accountDetailsRepo.findByAccountNumber(accountNumber);
-
-                if (account != null) {
-                    try {
-                        emailService.sendLoanDueReminder(
-                            account.getEmail(),
-                            account.getFirstName() + " " + account.getLastName(),
-                            repayment.getLoanId(),
-                            repayment.getDueLoanAmount(),
-                            repayment.getPaymentDate()
-                        );
-                        logger.info("Reminder email sent to account: {}", accountNumber);
-                    } catch (EmailSendingException e) {
-                        logger.error("Failed to send email to account: {} - Error: {}", accountNumber, e.getMessage());
-                    }
-                } else {
-                    logger.warn("Account not found for account number: {}", accountNumber);
+        int afterAccountNumber = Integer.MIN_VALUE;
+        int afterPaymentId = Integer.MIN_VALUE;
+        int borrowerCount = 0;
+        int installmentCount = 0;
+        List<OverdueReminderView> borrowerInstallments = new ArrayList<>();
+        List<OverdueReminderView> page;
+
+        do {
+            page = loanRepaymentsRepo.findOverdueReminderPage(Constants.PENDING, today,
+                    afterAccountNumber, afterPaymentId, PageRequest.of(0, REMINDER_PAGE_SIZE));
+            List<List<OverdueReminderView>> borrowers = new ArrayList<>();
+
+            for (OverdueReminderView installment : page) {
+                // A new account number closes the previous borrower's group
+                if (!borrowerInstallments.isEmpty()
+                        && borrowerInstallments.get(0).getAccountNumber() != installment.getAccountNumber()) {
+                    borrowers.add(borrowerInstallments);
+                    borrowerInstallments = new ArrayList<>();
                 }
-            } else {
-                logger.warn("Loan details not found for loan ID: {}", repayment.getLoanId());
+                borrowerInstallments.add(installment);
+                installmentCount++;
             }
-        }
+
+            if (!page.isEmpty()) {
+                OverdueReminderView last = page.get(page.size() - 1);
+                afterAccountNumber = last.getAccountNumber();
+                afterPaymentId = last.getPaymentId();
+            }
+            // The last borrower's group may continue on the next page; after the last page it is complete
+            if (page.size() < REMINDER_PAGE_SIZE && !borrowerInstallments.isEmpty()) {
+                borrowers.add(borrowerInstallments);
+            }
+            if (!borrowers.isEmpty()) {
+                emailService.sendLoanDueReminders(borrowers);
+                borrowerCount += borrowers.size();
+            }
+        } while (page.size() == REMINDER_PAGE_SIZE);
+
+        logger.info("Loan due reminders queued: {} installments for {} borrowers", installmentCount, borrowerCount);
     }
 
 }
\ No newline at end of file
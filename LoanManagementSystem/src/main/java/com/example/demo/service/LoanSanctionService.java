@@ -1,10 +1,14 @@
 package com.example.demo.service;
 
 import org.apache.log4j.Logger;
+import java.util.ArrayList;
 import java.util.List;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.LoanApplication;
 import com.example.demo.model.LoanSanction;
+import com.example.demo.model.SanctionTerms;
 import com.example.demo.repo.LoanSanctionRepo;
 import com.example.demo.repo.LoanApplicationRepo;
 import jakarta.transaction.Transactional;
@@ -17,22 +21,36 @@ public class LoanSanctionService {
 
     private final LoanSanctionRepo loanSanctionRepo;
     private final LoanApplicationRepo loanApplicationRepo;
+    private final AnnuityFactorCache annuityFactorCache;
 
     // Constructor Injection
-    public LoanSanctionService(LoanSanctionRepo loanSanctionRepo, LoanApplicationRepo loanApplicationRepo) {
+    public LoanSanctionService(LoanSanctionRepo loanSanctionRepo, LoanApplicationRepo loanApplicationRepo,
+                               AnnuityFactorCache annuityFactorCache) {
         this.loanSanctionRepo = loanSanctionRepo;
         this.loanApplicationRepo = loanApplicationRepo;
+        this.annuityFactorCache = annuityFactorCache;
     }
 
     /**
      * Fetches all loan sanctions and calculates their monthly installment amount.
+     * The application terms come from the same query, so this is one statement however many sanctions there are.
      * @return List of all LoanSanction objects with calculated monthly installments.
      */
     public List<LoanSanction> show() {
         logger.info("Fetching all loan sanctions and calculating monthly installments.");
-        List<LoanSanction> sanctions = loanSanctionRepo.findAll();
-        sanctions.forEach(this::calculateAndSetMonthlyInstallment);
-        return sanctions;
+        return withMonthlyInstallments(loanSanctionRepo.findAllWithTerms());
+    }
+
+    /**
+     * Fetches one keyset page of loan sanctions, in sanction ID order, with their monthly installment amount.
+     * @param cursor nextCursor of the previous page, or null for the first page.
+     * @param size maximum number of sanctions on the page.
+     * @return KeysetPage of LoanSanction objects with calculated monthly installments.
+     */
+    public KeysetPage<LoanSanction> showPage(String cursor, int size) {
+        Slice<SanctionTerms> slice = loanSanctionRepo.findWithTermsAfter(KeysetPage.after(cursor), KeysetPage.limit(size));
+        KeysetPage<SanctionTerms> page = KeysetPage.of(slice, row -> row.getSanction().getSanctionId());
+        return new KeysetPage<>(withMonthlyInstallments(page.getContent()), page.getSize(), page.getNextCursor());
     }
 
     /**
@@ -76,8 +94,15 @@ public class LoanSanctionService {
      */
     public List<LoanSanction> searchBySanctionStatus(String sanctionStatus) {
         logger.info("Searching for loan sanctions with Sanction Status " + sanctionStatus);
-        List<LoanSanction> sanctions = loanSanctionRepo.findBySanctionStatus(sanctionStatus);
-        sanctions.forEach(this::calculateAndSetMonthlyInstallment);
+        return withMonthlyInstallments(loanSanctionRepo.findBySanctionStatusWithTerms(sanctionStatus));
+    }
+
+    private List<LoanSanction> withMonthlyInstallments(List<SanctionTerms> rows) {
+        List<LoanSanction> sanctions = new ArrayList<>(rows.size());
+        for (SanctionTerms row : rows) {
+            setMonthlyInstallment(row.getSanction(), row.getLoanAmount(), row.getTenure());
+            sanctions.add(row.getSanction());
+        }
         return sanctions;
     }
 
@@ -90,14 +115,23 @@ public class LoanSanctionService {
         logger.debug("Calculating monthly installment for LoanSanction ID " + loanSanction.getSanctionId());
         LoanApplication loanApplication = loanApplicationRepo.findById(loanSanction.getLoanId()).orElse(null);
         if (loanApplication == null) {
+            setMonthlyInstallment(loanSanction, null, null);
+        } else {
+            setMonthlyInstallment(loanSanction, loanApplication.getLoanAmount(), loanApplication.getTenure());
+        }
+    }
+
+    // Recomputes the installment from the application terms; null terms mean the application is missing
+    private void setMonthlyInstallment(LoanSanction loanSanction, Double applicationLoanAmount, Integer applicationTenure) {
+        if (applicationLoanAmount == null || applicationTenure == null) {
             logger.warn("Loan application with Loan ID  not found, setting monthly installment to 0.0" +  loanSanction.getLoanId());
             loanSanction.setMonthlyInstallmentsAmount(0.0);
             return;
         }
 
-        double loanAmount = loanApplication.getLoanAmount();
+        double loanAmount = applicationLoanAmount;
         double annualInterestRate = loanSanction.getInterestRate();
-        int loanTerm = loanApplication.getTenure();
+        int loanTerm = applicationTenure;
 
         
         if (annualInterestRate == 0 || loanAmount == 0 || loanTerm == 0) {
@@ -106,12 +140,9 @@ public class LoanSanctionService {
             return;
         }
 
-        double monthlyInterestRate = annualInterestRate / 100 / 12;
-        int totalPayments = loanTerm * 12;
-        double factor = Math.pow(1 + monthlyInterestRate, totalPayments);
-        double monthlyPayment = (loanAmount * monthlyInterestRate * factor) / (factor - 1);
+        double monthlyPayment = annuityFactorCache.installment(loanAmount, annualInterestRate, loanTerm * 12);
 
-        logger.info("Calculated monthly installment for LoanSanction ID " +  loanSanction.getSanctionId() + monthlyPayment);
+        logger.debug("Calculated monthly installment for LoanSanction ID " +  loanSanction.getSanctionId() + monthlyPayment);
 
         loanSanction.setMonthlyInstallmentsAmount(monthlyPayment);
     }
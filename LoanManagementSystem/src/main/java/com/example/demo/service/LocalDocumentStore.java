@@ -0,0 +1,283 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.model.StoredContent;
+
+/**
+ * DocumentStore on the local file system. Content lives at
+ * {dir}/{first two hex digits}/{sha256}, written first to {dir}/.incoming and then
+ * moved into place atomically, so a reader never sees a partial file and two
+ * uploads of the same bytes end up as one file.
+ *
+ * Content is gzip-compressed on the way in and kept as {sha256}.gz when that
+ * saves at least lms.documents.compression.min-savings-percent; PDFs with
+ * uncompressed streams shrink, while JPEG and PNG scans rarely do and stay as
+ * they are. Content declared as an already-compressed format is not gzipped at
+ * all. The hash is always of the uncompressed bytes, and get() decompresses on
+ * the fly, so callers never see the difference.
+ *
+ * Reusing an existing file in put() and removing it in delete() run under the same
+ * per-hash lock, and put() pins what it returns, so content an upload is about to
+ * reference cannot be deleted underneath it by a document that stopped using it.
+ */
+@Component
+public class LocalDocumentStore implements DocumentStore {
+
+    private static final Logger logger = Logger.getLogger(LocalDocumentStore.class);
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 8192;
+    private static final int LOCK_STRIPES = 64;
+    // Formats whose bytes are compressed already; gzip would only spend CPU and a second temp file
+    private static final Set<String> PRECOMPRESSED_TYPES = Set.of("image/jpeg", "image/jpg", "image/png", "image/gif",
+            "image/webp", "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+            "application/x-rar-compressed", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final Path root;
+    private final Path incoming;
+    private final boolean compress;
+    private final int compressionLevel;
+    private final int minSavingsPercent;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    // Pins per hash, changed only under that hash's lock
+    private final Map<String, Integer> pins = new ConcurrentHashMap<>();
+
+    public LocalDocumentStore(@Value("${lms.documents.store.dir:documents}") String dir,
+                              @Value("${lms.documents.compression.enabled:true}") boolean compress,
+                              @Value("${lms.documents.compression.level:6}") int compressionLevel,
+                              @Value("${lms.documents.compression.min-savings-percent:5}") int minSavingsPercent) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        this.incoming = root.resolve(".incoming");
+        this.compress = compress;
+        this.compressionLevel = compressionLevel;
+        this.minSavingsPercent = minSavingsPercent;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public StoredContent put(InputStream content, String contentType) throws IOException {
+        Files.createDirectories(incoming);
+        Path temp = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            boolean gzipped = compress && !precompressed(contentType);
+            long size;
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = gzipped ? gzip(Files.newOutputStream(temp)) : Files.newOutputStream(temp)) {
+                size = in.transferTo(out);
+            }
+            boolean compressed = gzipped && worthCompressing(size, Files.size(temp));
+            if (gzipped && !compressed) {
+                temp = decompress(temp);
+            }
+            long storedSize = Files.size(temp);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            ReentrantLock lock = lock(hash);
+            lock.lock();
+            try {
+                Path existing = existing(hash);
+                if (existing != null) {
+                    logger.debug("Content " + hash + " already stored");
+                    pins.merge(hash, 1, Integer::sum);
+                    return new StoredContent(hash, size, Files.size(existing));
+                }
+                Path target = compressed ? gzipPath(hash) : path(hash);
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same bytes stored concurrently by another process sharing the directory
+                }
+                pins.merge(hash, 1, Integer::sum);
+                return new StoredContent(hash, size, storedSize);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void unpin(String hash) {
+        ReentrantLock lock = lock(hash);
+        lock.lock();
+        try {
+            pins.computeIfPresent(hash, (pinned, count) -> count == 1 ? null : count - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Resource get(String hash) {
+        Path file = path(hash);
+        if (Files.isRegularFile(file)) {
+            return new FileSystemResource(file);
+        }
+        Path gzip = gzipPath(hash);
+        return Files.isRegularFile(gzip) ? new GzipFileResource(gzip) : null;
+    }
+
+    @Override
+    public boolean delete(String hash, BooleanSupplier inUse) throws IOException {
+        ReentrantLock lock = lock(hash);
+        lock.lock();
+        try {
+            if (pins.containsKey(hash) || inUse.getAsBoolean()) {
+                logger.debug("Content " + hash + " is in use, not deleted");
+                return false;
+            }
+            boolean deleted = Files.deleteIfExists(path(hash));
+            return Files.deleteIfExists(gzipPath(hash)) || deleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Also validates the hash, before any lock is taken
+    private ReentrantLock lock(String hash) {
+        path(hash);
+        return locks[Integer.parseInt(hash.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    private static boolean precompressed(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int parameters = contentType.indexOf(';');
+        String mediaType = parameters < 0 ? contentType : contentType.substring(0, parameters);
+        return PRECOMPRESSED_TYPES.contains(mediaType.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private boolean worthCompressing(long size, long compressedSize) {
+        return compressedSize * 100 <= size * (100 - minSavingsPercent);
+    }
+
+    private OutputStream gzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+    }
+
+    // Compression did not pay off: store the plain bytes instead
+    private Path decompress(Path gzip) throws IOException {
+        Path plain = Files.createTempFile(incoming, "upload-", ".tmp");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip), BUFFER_SIZE)) {
+            Files.copy(in, plain, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.delete(gzip);
+        }
+        return plain;
+    }
+
+    private Path existing(String hash) {
+        Path file = path(hash);
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path gzip = gzipPath(hash);
+        return Files.exists(gzip) ? gzip : null;
+    }
+
+    private Path gzipPath(String hash) {
+        Path file = path(hash);
+        return file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+    }
+
+    private Path path(String hash) {
+        if (hash == null || !SHA256_HEX.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a SHA-256 content hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Compressed content, read back as the original bytes. The length comes from
+     * the gzip trailer, which holds the uncompressed size modulo 2^32; uploads are
+     * capped far below that.
+     */
+    private static final class GzipFileResource extends AbstractResource {
+
+        private final Path file;
+
+        GzipFileResource(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        }
+
+        @Override
+        public boolean exists() {
+            return Files.exists(file);
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(trailer, channel.size() - 4);
+                return Integer.toUnsignedLong(trailer.getInt(0));
+            }
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return Files.getLastModifiedTime(file).toMillis();
+        }
+
+        @Override
+        public String getDescription() {
+            return "gzip file [" + file + "]";
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.log4j.Logger;
 
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.context.annotation.Primary;
@@ -14,6 +15,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.exception.EmailSendingException;
+import com.example.demo.model.KeysetPage;
 import com.example.demo.model.SignUp;
 import com.example.demo.repo.SignUpRepo;
 
@@ -26,13 +28,16 @@ public class SignUpService implements UserDetailsService {
     private final PasswordEncoder encoder;
     private final OtpService otpService;
     private final EmailService emailService;
+    private final UserDetailsCache userDetailsCache;
 
     // Constructor injection
-    public SignUpService(SignUpRepo signupRepo, PasswordEncoder encoder, OtpService otpService, EmailService emailService) {
+    public SignUpService(SignUpRepo signupRepo, PasswordEncoder encoder, OtpService otpService, EmailService emailService,
+                         UserDetailsCache userDetailsCache) {
         this.signupRepo = signupRepo;
         this.encoder = encoder;
         this.otpService = otpService;
         this.emailService = emailService;
+        this.userDetailsCache = userDetailsCache;
     }
 
     
@@ -43,6 +48,10 @@ public class SignUpService implements UserDetailsService {
         return new SignUpDataDetails(signUp); // Return your custom SignUpDataDetails object
     }
 
+    public Map<String, Number> userDetailsCacheStats() {
+        return userDetailsCache.stats();
+    }
+
     public String addSignUp(SignUp signUp) {
         logger.info("Adding new user " + signUp.getUsername());
         signUp.setPassword(encoder.encode(signUp.getPassword()));
@@ -55,6 +64,11 @@ public class SignUpService implements UserDetailsService {
         return signupRepo.findAll();
     }
 
+    public KeysetPage<SignUp> showSignUpPage(String cursor, int size) {
+        return KeysetPage.of(signupRepo.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(cursor), KeysetPage.limit(size)),
+                SignUp::getId);
+    }
+
 
     public SignUp searchSignUpByUsername(String username) throws UsernameNotFoundException {
         logger.debug("Searching for user by username " + username);
@@ -76,6 +90,7 @@ public class SignUpService implements UserDetailsService {
     public void updateSignUp(SignUp signup) {
         logger.info("Updating user details for " + signup.getUsername());
         signupRepo.save(signup);
+        userDetailsCache.evict(signup.getUsername());
     }
 
     
@@ -116,6 +131,7 @@ public class SignUpService implements UserDetailsService {
         SignUp existingUser = user.get();
         existingUser.setPassword(encoder.encode(newPassword));
         signupRepo.save(existingUser);
+        userDetailsCache.evict(existingUser.getUsername());
         otpService.clearOtp(email);
         logger.info("Password successfully updated for email " + email);
         return "Password updated successfully";
@@ -0,0 +1,98 @@
+package com.example.demo.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.StatementLine;
+import com.example.demo.repo.BankTransactionRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Exports account statements. Kept apart from BankTransactionService because the
+ * export needs a read-only snapshot at a chosen isolation level, which the Spring
+ * transaction annotation expresses and the JTA one used by the other services does not.
+ */
+@Service
+public class StatementService {
+
+    private static final Logger logger = Logger.getLogger(StatementService.class);
+
+    private static final String STATEMENT_CSV_HEADER =
+            "transactionId,transactionDate,transactionType,toAccNo,transactionAmount,balanceAfterTransaction,transactionStatus\n";
+    private static final ObjectMapper STATEMENT_JSON = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final BankTransactionRepo bankTransactionRepo;
+
+    public StatementService(BankTransactionRepo bankTransactionRepo) {
+        this.bankTransactionRepo = bankTransactionRepo;
+    }
+
+    /**
+     * Writes the account's statement for [from, to) to the output, one row at a time.
+     * Rows are streamed from the database under a read-only repeatable-read
+     * snapshot, so memory use does not grow with the number of transactions.
+     * @param accountNumber the account number.
+     * @param from start of the period, inclusive.
+     * @param to end of the period, exclusive.
+     * @param format Constants.STATEMENT_CSV or Constants.STATEMENT_JSONL.
+     * @param out the response stream; flushed but not closed.
+     * @return the number of rows written.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long exportStatement(int accountNumber, Date from, Date to, String format, OutputStream out) throws IOException {
+        logger.info("Exporting " + format + " statement for AccountNumber: " + accountNumber);
+        boolean csv = Constants.STATEMENT_CSV.equals(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write(STATEMENT_CSV_HEADER);
+        }
+        long rows = 0;
+        try (Stream<StatementLine> lines = bankTransactionRepo.streamStatement(accountNumber, from, to)) {
+            Iterator<StatementLine> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                StatementLine line = iterator.next();
+                if (csv) {
+                    writeCsv(writer, line);
+                } else {
+                    writer.write(STATEMENT_JSON.writeValueAsString(line));
+                    writer.write('\n');
+                }
+                rows++;
+            }
+        }
+        writer.flush();
+        logger.info("Exported " + rows + " statement rows for AccountNumber: " + accountNumber);
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, StatementLine line) throws IOException {
+        writer.write(line.getTransactionId() + "," + line.getTransactionDate().toInstant() + ","
+                + csvField(line.getTransactionType()) + "," + line.getToAccNo() + "," + line.getTransactionAmount() + ","
+                + line.getBalanceAfterTransaction() + "," + csvField(line.getTransactionStatus()) + "\n");
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
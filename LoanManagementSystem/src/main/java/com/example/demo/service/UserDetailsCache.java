@@ -0,0 +1,99 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded TTL cache of the UserDetails the JWT filter loads on every authenticated
+ * request, keyed by username. SignUpService evicts a user whenever it changes their
+ * password or details, so the TTL only bounds staleness from changes made elsewhere
+ * (another instance, or the database directly). Lookups that fail are not cached.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, CachedUser> users = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttlMillis how long a user is served from memory; 0 disables the cache.
+     * @param maxEntries most users held at once.
+     */
+    public UserDetailsCache(@Value("${lms.security.user-cache.ttl-ms:60000}") long ttlMillis,
+                            @Value("${lms.security.user-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached user, or loads and caches it.
+     * @param loader the uncached lookup; its exceptions reach the caller unchanged.
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = users.get(username);
+        if (cached != null && cached.cachedUntil > now) {
+            hits.increment();
+            return cached.user;
+        }
+        misses.increment();
+        UserDetails user = loader.apply(username);
+        if (ttlMillis > 0) {
+            if (users.size() >= maxEntries) {
+                users.values().removeIf(entry -> entry.cachedUntil <= now);
+                if (users.size() >= maxEntries) {
+                    // Still full of live entries: start over rather than scan on every miss
+                    users.clear();
+                }
+            }
+            users.put(username, new CachedUser(user, now + ttlMillis));
+        }
+        return user;
+    }
+
+    /**
+     * Drops the user, so the next request reloads them from the database.
+     */
+    public void evict(String username) {
+        if (username != null && users.remove(username) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Counters since startup, for monitoring.
+     */
+    public Map<String, Number> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("entries", users.size());
+        return stats;
+    }
+
+    private static final class CachedUser {
+        final UserDetails user;
+        final long cachedUntil;
+
+        CachedUser(UserDetails user, long cachedUntil) {
+            this.user = user;
+            this.cachedUntil = cachedUntil;
+        }
+    }
+}
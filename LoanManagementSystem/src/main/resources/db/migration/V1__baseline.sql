@@ -0,0 +1,93 @@
+-- Schema as it stood before versioned migrations. Existing databases are
+-- baselined at this version (spring.flyway.baseline-on-migrate), so this script
+-- only runs against an empty database.
+
+CREATE TABLE ACCOUNTDETAILS (
+    ACCOUNTNUMBER INT NOT NULL AUTO_INCREMENT,
+    FIRSTNAME VARCHAR(255),
+    LASTNAME VARCHAR(255),
+    GENDER VARCHAR(255),
+    DATEOFBIRTH DATETIME(6),
+    ADDRESS VARCHAR(255),
+    MOBILENO VARCHAR(255),
+    EMAIL VARCHAR(255),
+    ACCOUNTTYPE VARCHAR(255),
+    BALANCE DOUBLE,
+    ACCOUNTSTATUS VARCHAR(255),
+    ACCOUNTCREATIONDATE DATETIME(6),
+    ACCOUNTCLOSEDDATE DATETIME(6),
+    NOMINEENAME VARCHAR(255),
+    PRIMARY KEY (ACCOUNTNUMBER)
+) ENGINE=InnoDB;
+
+CREATE TABLE BANKTRANSACTION (
+    TRANSACTIONID INT NOT NULL AUTO_INCREMENT,
+    ACCOUNTNUMBER INT,
+    TOACCNO INT,
+    TRANSACTIONTYPE VARCHAR(255),
+    TRANSACTIONAMOUNT DOUBLE,
+    TRANSACTIONDATE DATETIME(6),
+    BALANCEAFTERTRANSACTION DOUBLE,
+    TRANSACTIONSTATUS VARCHAR(255),
+    PRIMARY KEY (TRANSACTIONID)
+) ENGINE=InnoDB;
+
+CREATE TABLE DOCUMENTS (
+    DOCUMENTID INT NOT NULL AUTO_INCREMENT,
+    ACCOUNTNUMBER INT NOT NULL,
+    DOCUMENTNAME VARCHAR(255) NOT NULL,
+    DOCUMENTINFO VARCHAR(255),
+    FILETYPE VARCHAR(255) NOT NULL,
+    VERIFICATIONSTATUS VARCHAR(255) NOT NULL,
+    FILEDATA LONGBLOB NOT NULL,
+    PRIMARY KEY (DOCUMENTID)
+) ENGINE=InnoDB;
+
+CREATE TABLE LOANAPPLICATION (
+    LOANID INT NOT NULL,
+    ACCOUNTNUMBER INT,
+    LOANTYPE VARCHAR(255),
+    LOANAMOUNT DOUBLE,
+    TENURE INT,
+    INTERESTRATE DOUBLE,
+    ANNUALINCOME DOUBLE,
+    EMPLOYTYPE VARCHAR(255),
+    CREDITSCORE INT,
+    STATUS VARCHAR(255),
+    PRIMARY KEY (LOANID)
+) ENGINE=InnoDB;
+
+CREATE TABLE LOANREPAYMENTS (
+    PAYMENTID INT NOT NULL AUTO_INCREMENT,
+    LOANID INT,
+    PAYMENTDATE DATETIME(6),
+    PAYMENTAMOUNT DOUBLE,
+    PAYMENTMODE VARCHAR(255),
+    PAYMENTSTATUS VARCHAR(255),
+    DUELOANAMOUNT DOUBLE,
+    PRIMARY KEY (PAYMENTID)
+) ENGINE=InnoDB;
+
+CREATE TABLE LOANSANCTION (
+    SANCTIONID INT NOT NULL AUTO_INCREMENT,
+    LOANID INT,
+    SANCTIONDATE DATETIME(6),
+    SANCTIONAMOUNT DOUBLE,
+    SANCTIONEDBY VARCHAR(255),
+    SANCTIONSTATUS VARCHAR(255),
+    LOANSTARTDATE DATETIME(6),
+    LOANENDDATE DATETIME(6),
+    INTERESTRATE DOUBLE,
+    MONTHLYINSTALLMENTSAMOUNT DOUBLE,
+    PRIMARY KEY (SANCTIONID)
+) ENGINE=InnoDB;
+
+CREATE TABLE SIGNUP (
+    ID INT NOT NULL AUTO_INCREMENT,
+    USERNAME VARCHAR(255),
+    PASSWORD VARCHAR(255),
+    EMAIL VARCHAR(255),
+    MOBILENO VARCHAR(255),
+    ROLE VARCHAR(255),
+    PRIMARY KEY (ID)
+) ENGINE=InnoDB;
@@ -0,0 +1,85 @@
+-- Tables and columns added since the baseline: repayment id allocation, the
+-- mail outbox, loan running totals, auto-debit leases, the ledger and
+-- idempotency keys.
+-- This consolidates the db/changes scripts those changes shipped with. A
+-- database that already ran all of them is baselined at V2 instead.
+
+-- Pooled id blocks for LOANREPAYMENTS. Seeded one allocation past the highest
+-- existing id so no block can overlap rows written under AUTO_INCREMENT.
+CREATE TABLE IDGENERATOR (
+    GENNAME VARCHAR(255) NOT NULL,
+    GENVALUE BIGINT,
+    PRIMARY KEY (GENNAME)
+) ENGINE=InnoDB;
+
+INSERT INTO IDGENERATOR (GENNAME, GENVALUE)
+SELECT 'LOANREPAYMENTS', COALESCE(MAX(PAYMENTID), 0) + 50 FROM LOANREPAYMENTS;
+
+CREATE TABLE EMAILOUTBOX (
+    OUTBOXID BIGINT NOT NULL AUTO_INCREMENT,
+    RECIPIENT VARCHAR(255),
+    SUBJECT VARCHAR(255),
+    BODY LONGTEXT,
+    STATUS VARCHAR(255),
+    ATTEMPTS INT,
+    NEXTATTEMPTAT DATETIME(6),
+    LASTERROR VARCHAR(1000),
+    CREATEDAT DATETIME(6),
+    SENTAT DATETIME(6),
+    PRIMARY KEY (OUTBOXID)
+) ENGINE=InnoDB;
+
+-- Null on sanctions created before the columns existed; filled on first repayment
+ALTER TABLE LOANSANCTION ADD COLUMN INSTALLMENTSREMAINING INT;
+ALTER TABLE LOANSANCTION ADD COLUMN OUTSTANDINGPRINCIPAL DOUBLE;
+ALTER TABLE LOANSANCTION ADD COLUMN NEXTDUEDATE DATETIME(6);
+
+CREATE TABLE JOBLEASE (
+    LEASEID BIGINT NOT NULL AUTO_INCREMENT,
+    JOBNAME VARCHAR(255),
+    RUNDATE DATE,
+    PARTITIONNO INT,
+    LOWLOANID INT,
+    HIGHLOANID INT,
+    OWNER VARCHAR(255),
+    LEASEUNTIL DATETIME(6),
+    STATUS VARCHAR(255),
+    PROCESSED INT,
+    FAILED INT,
+    ELAPSEDMILLIS BIGINT,
+    PRIMARY KEY (LEASEID),
+    CONSTRAINT UK_JOBLEASE_PARTITION UNIQUE (JOBNAME, RUNDATE, PARTITIONNO)
+) ENGINE=InnoDB;
+
+-- The unique key is what rejects a concurrent append with the same sequence
+CREATE TABLE LEDGERPOSTING (
+    POSTINGID BIGINT NOT NULL AUTO_INCREMENT,
+    JOURNALID VARCHAR(36),
+    ACCOUNTNUMBER INT,
+    ACCOUNTSEQ BIGINT,
+    AMOUNT DOUBLE,
+    ENTRYTYPE VARCHAR(255),
+    POSTEDAT DATETIME(6),
+    PRIMARY KEY (POSTINGID),
+    CONSTRAINT UK_LEDGERPOSTING_ACCOUNTSEQ UNIQUE (ACCOUNTNUMBER, ACCOUNTSEQ)
+) ENGINE=InnoDB;
+
+CREATE TABLE BALANCESNAPSHOT (
+    ACCOUNTNUMBER INT NOT NULL,
+    BALANCE DOUBLE,
+    LASTSEQ BIGINT,
+    SNAPSHOTAT DATETIME(6),
+    PRIMARY KEY (ACCOUNTNUMBER)
+) ENGINE=InnoDB;
+
+CREATE TABLE IDEMPOTENCYKEY (
+    IDEMPOTENCYKEY VARCHAR(255) NOT NULL,
+    REQUESTHASH VARCHAR(64),
+    STATUS VARCHAR(255),
+    RESPONSESTATUS INT,
+    CONTENTTYPE VARCHAR(255),
+    RESPONSEBODY LONGTEXT,
+    CREATEDAT DATETIME(6),
+    COMPLETEDAT DATETIME(6),
+    PRIMARY KEY (IDEMPOTENCYKEY)
+) ENGINE=InnoDB;
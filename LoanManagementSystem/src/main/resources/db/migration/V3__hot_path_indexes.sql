@@ -0,0 +1,40 @@
+-- Indexes for the finders on the request and batch hot paths. Each lists the
+-- queries it serves; a leading-column prefix serves the shorter finders too.
+
+-- findByAccountNumber, streamStatement (range on date, ordered by date then id)
+CREATE INDEX IDX_BANKTRANSACTION_ACCOUNT_DATE ON BANKTRANSACTION (ACCOUNTNUMBER, TRANSACTIONDATE, TRANSACTIONID);
+
+-- findByLoanId, findByLoanIdAndPaymentStatus, findTopByLoanIdOrderByPaymentDateDesc,
+-- findRepaymentsByLoanIdAndPaymentDateBetween, the NEXTDUEDATE MIN(PAYMENTDATE) refresh
+CREATE INDEX IDX_LOANREPAYMENTS_LOAN_STATUS_DATE ON LOANREPAYMENTS (LOANID, PAYMENTSTATUS, PAYMENTDATE);
+
+-- findByPaymentDateBeforeAndPaymentStatus, findByPaymentStatus, the overdue reminder
+-- page and the auto-debit partition bounds; LOANID makes MIN/MAX(LOANID) index-only
+CREATE INDEX IDX_LOANREPAYMENTS_STATUS_DATE_LOAN ON LOANREPAYMENTS (PAYMENTSTATUS, PAYMENTDATE, LOANID);
+
+-- findByAccountNumber, findByAccountNumberAndLoanType
+CREATE INDEX IDX_LOANAPPLICATION_ACCOUNT_TYPE ON LOANAPPLICATION (ACCOUNTNUMBER, LOANTYPE);
+
+-- findByStatus
+CREATE INDEX IDX_LOANAPPLICATION_STATUS ON LOANAPPLICATION (STATUS);
+
+-- findByLoanId and every counter/closure UPDATE keyed on LOANID
+CREATE INDEX IDX_LOANSANCTION_LOAN ON LOANSANCTION (LOANID);
+
+-- findBySanctionStatus
+CREATE INDEX IDX_LOANSANCTION_STATUS ON LOANSANCTION (SANCTIONSTATUS);
+
+-- findByAccountNumber, findByAccountNumberAndDocumentName
+CREATE INDEX IDX_DOCUMENTS_ACCOUNT_NAME ON DOCUMENTS (ACCOUNTNUMBER, DOCUMENTNAME);
+
+-- findByUsername (every authenticated request), findByUsernameAndRole
+CREATE INDEX IDX_SIGNUP_USERNAME ON SIGNUP (USERNAME);
+
+-- findByEmail, searchByEmail
+CREATE INDEX IDX_SIGNUP_EMAIL ON SIGNUP (EMAIL);
+
+-- findDueIds and claim: the outbox poller
+CREATE INDEX IDX_EMAILOUTBOX_STATUS_NEXTATTEMPT ON EMAILOUTBOX (STATUS, NEXTATTEMPTAT);
+
+-- purgeCreatedBefore
+CREATE INDEX IDX_IDEMPOTENCYKEY_CREATEDAT ON IDEMPOTENCYKEY (CREATEDAT);
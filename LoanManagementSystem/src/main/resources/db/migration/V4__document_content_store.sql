@@ -0,0 +1,11 @@
+-- Document content moves out of DOCUMENTS.FILEDATA into the content-addressed
+-- DocumentStore; rows keep the SHA-256 and size. FILEDATA becomes nullable so new
+-- rows leave it empty, and DocumentContentMigration moves existing blobs into the
+-- store at startup, clearing FILEDATA as it goes. Drop the column in a later
+-- migration once every environment has run it.
+ALTER TABLE DOCUMENTS ADD COLUMN CONTENTHASH CHAR(64);
+ALTER TABLE DOCUMENTS ADD COLUMN FILESIZE BIGINT;
+ALTER TABLE DOCUMENTS MODIFY COLUMN FILEDATA LONGBLOB NULL;
+
+-- countByContentHash, checked before content shared by identical uploads is deleted
+CREATE INDEX IDX_DOCUMENTS_CONTENTHASH ON DOCUMENTS (CONTENTHASH);
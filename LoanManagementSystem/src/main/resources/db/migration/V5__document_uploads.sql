@@ -0,0 +1,15 @@
+-- Resumable document uploads in progress; the received bytes live in part files
+-- next to the document store, not in the database. Rows are removed when the
+-- upload completes or is abandoned past lms.documents.upload.ttl-hours.
+CREATE TABLE DOCUMENTUPLOAD (
+    UPLOADID VARCHAR(36) NOT NULL,
+    ACCOUNTNUMBER INT,
+    DOCUMENTNAME VARCHAR(255),
+    FILETYPE VARCHAR(255),
+    TOTALSIZE BIGINT,
+    CREATEDAT DATETIME(6),
+    PRIMARY KEY (UPLOADID)
+) ENGINE=InnoDB;
+
+-- purgeExpired
+CREATE INDEX IDX_DOCUMENTUPLOAD_CREATEDAT ON DOCUMENTUPLOAD (CREATEDAT);
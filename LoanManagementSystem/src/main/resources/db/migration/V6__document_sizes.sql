@@ -0,0 +1,4 @@
+-- Upload size before image normalization and bytes actually stored after
+-- compression; null on documents stored before the ingestion stage existed.
+ALTER TABLE DOCUMENTS ADD COLUMN ORIGINALSIZE BIGINT;
+ALTER TABLE DOCUMENTS ADD COLUMN STOREDSIZE BIGINT;
@@ -0,0 +1,161 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.demo.exception.InsufficientBalanceException;
+import com.example.demo.service.AccountShardEngine;
+
+/**
+ * Hammers the account engine with concurrent transfers over a small set of hot
+ * accounts. Balances are plain longs updated with an unguarded read-modify-write,
+ * so any two mutations of one account running at the same time would show up as
+ * lost money or as an overlap on the in-flight counters.
+ */
+class AccountShardEngineStressTest {
+
+    private static final Logger logger = Logger.getLogger(AccountShardEngineStressTest.class);
+
+    private static final int ACCOUNTS = 64;
+    private static final int CLIENT_THREADS = 32;
+    private static final int TRANSFERS = 50_000;
+    private static final long OPENING_BALANCE = 1_000;
+
+    private AccountShardEngine accountShardEngine;
+    private long[] balances;
+    private AtomicIntegerArray inFlight;
+
+    @BeforeEach
+    void setUp() {
+        accountShardEngine = new AccountShardEngine(8, 1024, TransactionOperations.withoutTransaction());
+        balances = new long[ACCOUNTS];
+        Arrays.fill(balances, OPENING_BALANCE);
+        inFlight = new AtomicIntegerArray(ACCOUNTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountShardEngine.destroy();
+    }
+
+    @Test
+    void concurrentTransfersConserveBalances() throws Exception {
+        AtomicInteger overlaps = new AtomicInteger();
+        LongAdder completed = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < CLIENT_THREADS; t++) {
+            futures.add(clients.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS / CLIENT_THREADS; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    long amount = 1 + random.nextInt(200);
+                    try {
+                        accountShardEngine.execute(from, to, () -> transfer(from, to, amount, overlaps));
+                        completed.increment();
+                    } catch (InsufficientBalanceException e) {
+                        rejected.increment();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        clients.shutdown();
+
+        long total = 0;
+        for (long balance : balances) {
+            assertTrue(balance >= 0, "negative balance " + balance);
+            total += balance;
+        }
+        assertEquals(ACCOUNTS * OPENING_BALANCE, total);
+        assertEquals(0, overlaps.get());
+        assertEquals(TRANSFERS / CLIENT_THREADS * CLIENT_THREADS, completed.sum() + rejected.sum());
+
+        logger.info(String.format("%d transfers (%d rejected) over %d shards in %.2f s: %.0f transfers/sec",
+                completed.sum() + rejected.sum(), rejected.sum(), accountShardEngine.getShardCount(), seconds,
+                (completed.sum() + rejected.sum()) / seconds));
+    }
+
+    private Void transfer(int from, int to, long amount, AtomicInteger overlaps) {
+        enter(from, overlaps);
+        enter(to, overlaps);
+        try {
+            long fromBalance = balances[from];
+            if (fromBalance < amount) {
+                throw new InsufficientBalanceException("Insufficient balance in account " + from);
+            }
+            long toBalance = balances[to];
+            Thread.yield(); // widen the race window
+            balances[from] = fromBalance - amount;
+            balances[to] = toBalance + amount;
+            return null;
+        } finally {
+            inFlight.decrementAndGet(from);
+            inFlight.decrementAndGet(to);
+        }
+    }
+
+    @Test
+    void shutdownFailsQueuedWorkInsteadOfLeavingItsCallersWaiting() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> busy = CompletableFuture.supplyAsync(() -> accountShardEngine.execute(1, () -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        // Queued behind the busy mutation on the same shard
+        CompletableFuture<Integer> queued = CompletableFuture.supplyAsync(() -> accountShardEngine.execute(1, () -> 2));
+        Thread.sleep(100);
+
+        accountShardEngine.destroy();
+        release.countDown();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(1, busy.get(5, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> accountShardEngine.execute(1, () -> 3));
+    }
+
+    private void enter(int account, AtomicInteger overlaps) {
+        if (inFlight.incrementAndGet(account) > 1) {
+            overlaps.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.demo.service.AmortizationKernel;
+
+/**
+ * ns/op of the amortization kernel for 1 to 30 year schedules.
+ * Run with: mvn clean test -Pbenchmark (clean, so the JMH processor sees every source)
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmortizationKernelBenchmark {
+
+    @Param({ "12", "60", "120", "240", "360" })
+    public int months;
+
+    private double principal;
+    private double monthlyRate;
+    private double[] interest;
+    private double[] principalRepaid;
+    private double[] balance;
+
+    @Setup
+    public void setUp() {
+        principal = 2_500_000;
+        monthlyRate = AmortizationKernel.monthlyRate(8.5);
+        interest = new double[months];
+        principalRepaid = new double[months];
+        balance = new double[months];
+    }
+
+    @Benchmark
+    public double installment() {
+        return AmortizationKernel.installment(principal, monthlyRate, months);
+    }
+
+    @Benchmark
+    public void schedule(Blackhole blackhole) {
+        double installment = AmortizationKernel.installment(principal, monthlyRate, months);
+        AmortizationKernel.schedule(principal, monthlyRate, months, installment, interest, principalRepaid, balance);
+        blackhole.consume(balance);
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder().include(AmortizationKernelBenchmark.class.getName()).build()).run();
+    }
+}
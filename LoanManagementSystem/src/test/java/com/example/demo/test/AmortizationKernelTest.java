@@ -0,0 +1,102 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.AmortizationKernel;
+import com.example.demo.service.AnnuityFactorCache;
+import com.example.demo.service.LoanCalculationService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class AmortizationKernelTest {
+
+    @Test
+    void testInstallmentMatchesTheEmiFormula() {
+        // 1,00,000 at 12% over a year
+        assertEquals(8884.88, AmortizationKernel.installment(100000, AmortizationKernel.monthlyRate(12), 12), 0.01);
+    }
+
+    @Test
+    void testZeroRateRepaysInEqualParts() {
+        assertEquals(1000.0, AmortizationKernel.installment(12000, 0, 12), 1e-9);
+    }
+
+    @Test
+    void testNonAmortizableLoanIsNaN() {
+        assertTrue(Double.isNaN(AmortizationKernel.installment(100000, 0.01, 0)));
+        assertTrue(Double.isNaN(AmortizationKernel.installment(100000, -0.01, 12)));
+    }
+
+    @Test
+    void testScheduleRepaysThePrincipalExactly() {
+        int months = 360;
+        double principal = 2500000;
+        double rate = AmortizationKernel.monthlyRate(8.5);
+        // Rounded the way loan approval rounds it, so the last month absorbs the difference
+        double installment = Math.round(AmortizationKernel.installment(principal, rate, months) * 100.0) / 100.0;
+        double[] interest = new double[months];
+        double[] principalRepaid = new double[months];
+        double[] balance = new double[months];
+
+        AmortizationKernel.schedule(principal, rate, months, installment, interest, principalRepaid, balance);
+
+        double repaid = 0;
+        for (int i = 0; i < months; i++) {
+            repaid += principalRepaid[i];
+        }
+        assertEquals(principal, repaid, 1e-6);
+        assertEquals(0.0, balance[months - 1], 0.0);
+        assertEquals(principal * rate, interest[0], 1e-9);
+        assertEquals(installment, interest[0] + principalRepaid[0], 1e-9);
+        // The rounding residual, compounded over the term, only ever shortens the final payment
+        double lastPayment = interest[months - 1] + principalRepaid[months - 1];
+        assertTrue(lastPayment > 0 && lastPayment <= installment);
+    }
+
+    @Test
+    void testBalancesMatchTheScheduleBalanceColumn() {
+        int months = 240;
+        double principal = 1800000;
+        double rate = AmortizationKernel.monthlyRate(9.25);
+        double installment = Math.round(AmortizationKernel.installment(principal, rate, months) * 100.0) / 100.0;
+        double[] balance = new double[months];
+        AmortizationKernel.schedule(principal, rate, months, installment, new double[months], new double[months], balance);
+
+        double[] balances = new double[months];
+        AmortizationKernel.balances(principal, rate, months, installment, balances);
+
+        assertArrayEquals(balance, balances, 0.0);
+    }
+
+    @Test
+    void testScheduleEndpointWritesEveryMonth() throws Exception {
+        LoanCalculationService service = new LoanCalculationService(new AnnuityFactorCache(), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(service.writeSchedule(100000, 12, 1, out));
+
+        JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals(8884.88, json.get("monthlyPayment").asDouble(), 0.01);
+        assertEquals(12, json.get("schedule").size());
+        assertEquals(1000.0, json.get("schedule").get(0).get("interest").asDouble(), 1e-9);
+        assertEquals(0.0, json.get("schedule").get(11).get("balance").asDouble(), 1e-6);
+        assertEquals(json.get("totalPayment").asDouble() - 100000, json.get("totalInterest").asDouble(), 1e-6);
+    }
+
+    @Test
+    void testInvalidScheduleWritesNothing() throws Exception {
+        LoanCalculationService service = new LoanCalculationService(new AnnuityFactorCache(), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertFalse(service.writeSchedule(100000, 12, 0, out));
+        assertFalse(service.isSchedulable(-5, 12, 10));
+        assertEquals(0, out.size());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.RateTenureView;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.service.AmortizationKernel;
+import com.example.demo.service.AnnuityFactorCache;
+import com.example.demo.service.LoanCalculationService;
+
+class AnnuityFactorCacheTest {
+
+    @Test
+    void testCachedFactorIsExactlyTheKernelFactor() {
+        AnnuityFactorCache cache = new AnnuityFactorCache();
+        double expected = AmortizationKernel.annuityFactor(AmortizationKernel.monthlyRate(8.35), 240);
+
+        assertEquals(expected, cache.factor(8.35, 240), 0.0);
+        assertEquals(expected, cache.factor(8.35, 240), 0.0);
+
+        Map<String, Number> stats = cache.stats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.5, stats.get("hitRate"));
+        assertEquals(1, stats.get("entries"));
+    }
+
+    @Test
+    void testRatesFinerThanABasisPointBypassTheCache() {
+        AnnuityFactorCache cache = new AnnuityFactorCache();
+        double expected = AmortizationKernel.annuityFactor(AmortizationKernel.monthlyRate(8.355), 240);
+
+        assertEquals(expected, cache.factor(8.355, 240), 0.0);
+        assertEquals(0, cache.stats().get("entries"));
+        assertTrue(Double.isNaN(cache.factor(8.5, 0)));
+        assertTrue(Double.isNaN(cache.factor(-1, 12)));
+    }
+
+    @Test
+    void testCacheNeverGrowsPastItsSlots() {
+        AnnuityFactorCache cache = new AnnuityFactorCache(16);
+        for (int bps = 500; bps < 1500; bps += 5) {
+            cache.factor(bps / 100.0, 120);
+        }
+        assertTrue(cache.stats().get("entries").intValue() <= 16);
+        assertThrows(IllegalArgumentException.class, () -> new AnnuityFactorCache(100));
+    }
+
+    @Test
+    void testStartupPreloadMakesTheFirstCalculationAHit() {
+        LoanApplicationRepo repo = mock(LoanApplicationRepo.class);
+        RateTenureView offered = mock(RateTenureView.class);
+        when(offered.getInterestRate()).thenReturn(9.5);
+        when(offered.getTenure()).thenReturn(20);
+        when(repo.findDistinctRateAndTenure()).thenReturn(List.of(offered));
+        AnnuityFactorCache cache = new AnnuityFactorCache();
+        LoanCalculationService service = new LoanCalculationService(cache, repo);
+
+        service.preloadAnnuityFactors();
+        service.calculateLoan(500000, 9.5, 20, "HOME");
+
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(0L, cache.stats().get("misses"));
+    }
+}
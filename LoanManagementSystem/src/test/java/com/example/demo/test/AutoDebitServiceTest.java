@@ -0,0 +1,228 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.Constants;
+import com.example.demo.model.JobLease;
+import com.example.demo.model.LoanApplication;
+import com.example.demo.model.LoanRepayments;
+import com.example.demo.model.LoanSanction;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.BankTransactionRepo;
+import com.example.demo.repo.JobLeaseRepo;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.repo.LoanRepaymentsRepo;
+import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.service.AutoDebitService;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.LedgerService;
+
+/**
+ * Runs the auto-debit engine on the embedded database with two "nodes" sharing
+ * the same lease table, and checks every due installment is collected exactly once.
+ */
+@DataJpaTest
+@Import(AutoDebitRepo.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the engine commits per chunk on its own threads
+class AutoDebitServiceTest {
+
+    private static final int ACCOUNTS = 10;
+    private static final int LOANS_PER_ACCOUNT = 4;
+    private static final double INSTALLMENT = 1000;
+    // Principal repaid by each installment; the rest is interest
+    private static final double PRINCIPAL = 900;
+
+    @Autowired
+    private AutoDebitRepo autoDebitRepo;
+    @Autowired
+    private JobLeaseRepo jobLeaseRepo;
+    @Autowired
+    private LoanSanctionRepo loanSanctionRepo;
+    @Autowired
+    private LoanApplicationRepo loanApplicationRepo;
+    @Autowired
+    private LoanRepaymentsRepo loanRepaymentsRepo;
+    @Autowired
+    private AccountDetailsRepo accountDetailsRepo;
+    @Autowired
+    private BankTransactionRepo bankTransactionRepo;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ExecutorService::shutdownNow);
+        jobLeaseRepo.deleteAll();
+        bankTransactionRepo.deleteAll();
+        loanRepaymentsRepo.deleteAll();
+        loanSanctionRepo.deleteAll();
+        loanApplicationRepo.deleteAll();
+        accountDetailsRepo.deleteAll();
+    }
+
+    @Test
+    void twoNodesCollectEachDueInstallmentOnce() {
+        LocalDate today = LocalDate.now();
+        List<Integer> accounts = new ArrayList<>();
+        int loanId = 1;
+        for (int a = 0; a < ACCOUNTS; a++) {
+            // The last account cannot cover anything
+            int accountNumber = account(a == ACCOUNTS - 1 ? 0 : 100000);
+            accounts.add(accountNumber);
+            for (int l = 0; l < LOANS_PER_ACCOUNT; l++) {
+                // Two installments due (yesterday and today), one next month
+                loan(loanId++, accountNumber, today.minusDays(1), today, today.plusMonths(1));
+            }
+        }
+        // A loan whose whole schedule is due gets closed by the run
+        int closingLoan = loanId;
+        loan(closingLoan, accounts.get(0), today.minusMonths(1), today);
+
+        AtomicInteger emailed = new AtomicInteger();
+        doAnswer(invocation -> emailed.addAndGet(invocation.<List<?>>getArgument(0).size()))
+                .when(emailService).sendLoanRepaymentEmails(any(), any(), any());
+
+        AutoDebitService nodeA = node("node-a");
+        AutoDebitService nodeB = node("node-b");
+        CompletableFuture<List<JobLease>> runA = CompletableFuture.supplyAsync(() -> nodeA.run(today));
+        CompletableFuture<List<JobLease>> runB = CompletableFuture.supplyAsync(() -> nodeB.run(today));
+        int completedByNodes = runA.join().size() + runB.join().size();
+
+        int fundedLoans = (ACCOUNTS - 1) * LOANS_PER_ACCOUNT;
+        int expectedCollected = fundedLoans * 2 + 2;
+        int expectedBounced = LOANS_PER_ACCOUNT * 2;
+
+        List<JobLease> partitions = nodeA.getPartitions(today);
+        assertEquals(partitions.size(), completedByNodes);
+        assertTrue(partitions.stream().allMatch(p -> Constants.COMPLETED.equals(p.getStatus())));
+        assertEquals(expectedCollected, partitions.stream().mapToInt(JobLease::getProcessed).sum());
+        assertEquals(expectedBounced, partitions.stream().mapToInt(JobLease::getFailed).sum());
+
+        // Exactly one debit and one transaction per collected installment
+        assertEquals(expectedCollected, bankTransactionRepo.count());
+        assertEquals(100000 - (LOANS_PER_ACCOUNT * 2 + 2) * INSTALLMENT,
+                accountDetailsRepo.findByAccountNumber(accounts.get(0)).getBalance(), 0.001);
+        assertEquals(100000 - LOANS_PER_ACCOUNT * 2 * INSTALLMENT,
+                accountDetailsRepo.findByAccountNumber(accounts.get(1)).getBalance(), 0.001);
+        assertEquals(0, accountDetailsRepo.findByAccountNumber(accounts.get(ACCOUNTS - 1)).getBalance(), 0.001);
+
+        // Bounced and future installments stay PENDING; counters follow the schedule
+        assertEquals(ACCOUNTS * LOANS_PER_ACCOUNT + expectedBounced, loanRepaymentsRepo.findByPaymentStatus(Constants.PENDING).size());
+        assertEquals(1, loanSanctionRepo.findByLoanId(1).getInstallmentsRemaining());
+        assertEquals(PRINCIPAL, loanSanctionRepo.findByLoanId(1).getOutstandingPrincipal(), 0.001);
+        assertEquals(3, loanSanctionRepo.findByLoanId(closingLoan - 1).getInstallmentsRemaining());
+        assertEquals(PRINCIPAL * 3, loanSanctionRepo.findByLoanId(closingLoan - 1).getOutstandingPrincipal(), 0.001);
+        assertEquals(Constants.CLOSED, loanSanctionRepo.findByLoanId(closingLoan).getSanctionStatus());
+
+        // Confirmations go out as one batch per collected chunk
+        verify(emailService, atLeastOnce()).sendLoanRepaymentEmails(any(), any(Date.class), eq(Constants.AUTO_DEBIT));
+        assertEquals(expectedCollected, emailed.get());
+
+        // A second run the same day has nothing left to claim
+        assertTrue(nodeB.run(today).isEmpty());
+        assertEquals(expectedCollected, bankTransactionRepo.count());
+    }
+
+    @Test
+    void startRunsInTheBackgroundOneRunAtATime() {
+        LocalDate today = LocalDate.now();
+        int accountNumber = account(100000);
+        loan(1, accountNumber, today);
+
+        List<Runnable> launched = new ArrayList<>();
+        AutoDebitService node = node("node-a", launched::add);
+        assertTrue(node.start(today));
+        assertFalse(node.start(today));
+        assertTrue(node.getPartitions(today).isEmpty());
+
+        launched.get(0).run();
+        assertEquals(1, node.getPartitions(today).stream().mapToInt(JobLease::getProcessed).sum());
+        assertEquals(1, bankTransactionRepo.count());
+        // The finished run lets the next one start
+        assertTrue(node.start(today));
+    }
+
+    private AutoDebitService node(String nodeId) {
+        return node(nodeId, Runnable::run);
+    }
+
+    private AutoDebitService node(String nodeId, Executor launcher) {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        executors.add(executor);
+        LedgerService ledgerService = new LedgerService(accountDetailsRepo, autoDebitRepo, null, false, 50, 500, 3);
+        return new AutoDebitService(autoDebitRepo, jobLeaseRepo, loanSanctionRepo, emailService, ledgerService, transactionManager,
+                executor, launcher, 4, 5, 60000, 2, nodeId);
+    }
+
+    private int account(double balance) {
+        AccountDetails account = new AccountDetails();
+        account.setFirstName("Auto");
+        account.setLastName("Debit");
+        account.setEmail("autodebit@example.com");
+        account.setBalance(balance);
+        return accountDetailsRepo.save(account).getAccountNumber();
+    }
+
+    private void loan(int loanId, int accountNumber, LocalDate... dueDates) {
+        LoanApplication loanApplication = new LoanApplication();
+        loanApplication.setLoanId(loanId);
+        loanApplication.setAccountNumber(accountNumber);
+        loanApplication.setStatus(Constants.APPROVED);
+        loanApplicationRepo.save(loanApplication);
+
+        LoanSanction loanSanction = new LoanSanction();
+        loanSanction.setLoanId(loanId);
+        loanSanction.setSanctionStatus(Constants.APPROVED);
+        loanSanction.setInstallmentsRemaining(dueDates.length);
+        loanSanction.setOutstandingPrincipal(PRINCIPAL * dueDates.length);
+        loanSanctionRepo.save(loanSanction);
+
+        List<LoanRepayments> schedule = new ArrayList<>();
+        for (int i = 0; i < dueDates.length; i++) {
+            LoanRepayments repayment = new LoanRepayments();
+            repayment.setLoanId(loanId);
+            repayment.setPaymentDate(Date.from(dueDates[i].atStartOfDay(ZoneId.systemDefault()).toInstant()));
+            repayment.setPaymentAmount(INSTALLMENT);
+            repayment.setDueLoanAmount(PRINCIPAL * (dueDates.length - i));
+            repayment.setPaymentMode("LOAN_REPAYMENT");
+            repayment.setPaymentStatus(Constants.PENDING);
+            schedule.add(repayment);
+        }
+        loanRepaymentsRepo.saveAll(schedule);
+    }
+}
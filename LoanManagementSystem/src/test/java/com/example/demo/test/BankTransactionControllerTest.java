@@ -20,7 +20,6 @@ import org.springframework.http.ResponseEntity;
 import com.example.demo.controller.BankTransactionController;
 import com.example.demo.exception.AccountNotFoundException;
 import com.example.demo.exception.InsufficientBalanceException;
-import com.example.demo.model.AccountDetails;
 import com.example.demo.model.BankTransaction;
 import com.example.demo.repo.AccountDetailsRepo;
 import com.example.demo.service.BankTransactionService;
@@ -139,24 +138,20 @@ import com.example.demo.service.BankTransactionService;
     // Test case for manualPayments - success scenario
     @Test
      void testProcessPayment_Success() {
-        AccountDetails account = new AccountDetails();
-        account.setBalance(2000.0);
-        when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(account);
+        doNothing().when(bankTransactionService).manualPayment(anyInt(), anyDouble());
 
         ResponseEntity<String> response = bankTransactionController.processPayment(123, 1000.0);
 
         assert response.getStatusCode() == HttpStatus.OK;
         assert response.getBody().equals("Payment processed successfully");
-        verify(accountDetailsRepo).save(account);
+        verify(bankTransactionService).manualPayment(123, 1000.0);
+        verifyNoInteractions(accountDetailsRepo);
     }
 
     // Test case for manualPayments - insufficient balance
     @Test
     void testProcessPayment_InsufficientBalance() {
-        // Simulate account with insufficient balance
-        AccountDetails account = new AccountDetails();
-        account.setBalance(500.0); // Less than the payment amount
-        when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(account);
+        doThrow(new InsufficientBalanceException("Insufficient balance")).when(bankTransactionService).manualPayment(anyInt(), anyDouble());
 
         // Invoke the method being tested
         ResponseEntity<String> response = bankTransactionController.processPayment(123, 1000.0);
@@ -168,38 +163,13 @@ import com.example.demo.service.BankTransactionService;
     // Test case for manualPayments - account not found
     @Test
     void testProcessPayment_AccountNotFound() {
-        // Simulate account not found
-        when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(null);
+        doThrow(new AccountNotFoundException("Account not found")).when(bankTransactionService).manualPayment(anyInt(), anyDouble());
 
         // Invoke the method being tested
         ResponseEntity<String> response = bankTransactionController.processPayment(123, 1000.0);
 
         // Assertions
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode(), "Expected BAD_REQUEST status");
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode(), "Expected NOT_FOUND status");
         assertEquals("Account not found", response.getBody(), "Expected 'Account not found' message");
     }
-    @Test
-     void testProcessPaymentExceptionDuringSave() {
-        // Arrange
-        int accountNumber = 12345;
-        double paymentAmount = 500.0;
-
-        AccountDetails accountDetails = new AccountDetails();
-        accountDetails.setAccountNumber(accountNumber);
-        accountDetails.setBalance(1000.0);
-
-        // Mock fetching account details
-        when(accountDetailsRepo.findByAccountNumber(accountNumber)).thenReturn(accountDetails);
-
-        // Mock exception during save
-        doThrow(new RuntimeException("Database error")).when(accountDetailsRepo).save(any(AccountDetails.class));
-
-        // Act
-        ResponseEntity<String> response = bankTransactionController.processPayment(accountNumber, paymentAmount);
-
-        // Assert
-        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
-        assertEquals("Error saving account: Database error", response.getBody());
-    }
 }
-
@@ -10,14 +10,20 @@ import com.example.demo.exception.InsufficientBalanceException;
 import com.example.demo.model.AccountDetails;
 import com.example.demo.model.BankTransaction;
 import com.example.demo.model.Constants;
+import com.example.demo.model.LedgerBalance;
 import com.example.demo.repo.AccountDetailsRepo;
 import com.example.demo.repo.BankTransactionRepo;
+import com.example.demo.repo.LedgerRepo;
 import com.example.demo.service.AccountDetailsService;
+import com.example.demo.service.AccountShardEngine;
 import com.example.demo.service.BankTransactionService;
+import com.example.demo.service.LedgerService;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.transaction.support.TransactionOperations;
 import java.util.*;
 
  class BankTransactionServiceTest {
@@ -31,9 +37,13 @@ import java.util.*;
     @Mock
     private AccountDetailsService accountDetailsService;
 
-    @InjectMocks
+    @Mock
+    private LedgerRepo ledgerRepo;
+
     private BankTransactionService bankTransactionService;
 
+    private AccountShardEngine accountShardEngine;
+
 
 
     private AccountDetails fromAccount;
@@ -42,6 +52,9 @@ import java.util.*;
     @BeforeEach
      void setUp() {
         MockitoAnnotations.openMocks(this);
+        accountShardEngine = new AccountShardEngine(2, 16, TransactionOperations.withoutTransaction());
+        bankTransactionService = new BankTransactionService(bankTransactionRepo, accountDetailsRepo, accountShardEngine,
+                new LedgerService(accountDetailsRepo, null, null, false, 50, 500, 3));
 
         // Setup mock accounts with all fields
         fromAccount = new AccountDetails(
@@ -79,6 +92,11 @@ import java.util.*;
         );
     }
 
+    @AfterEach
+     void tearDown() {
+        accountShardEngine.destroy();
+    }
+
     @Test
      void testShowTransactionInfo() {
         // Arrange
@@ -187,12 +205,15 @@ import java.util.*;
         when(accountDetailsRepo.findById(1)).thenReturn(Optional.of(fromAccount));
         when(accountDetailsRepo.findById(2)).thenReturn(Optional.of(toAccount));
 
+        when(accountDetailsRepo.debitIfSufficient(1, 500)).thenReturn(1);
+
         // Act
         bankTransactionService.transferFunds(1, 2, 500);
 
-        // Assert
-        assertEquals(500.0, fromAccount.getBalance());
-        assertEquals(1000.0, toAccount.getBalance());
+        // Assert: balances move as deltas, never as a read-modify-write of the row
+        verify(accountDetailsRepo).debitIfSufficient(1, 500);
+        verify(accountDetailsRepo).credit(2, 500);
+        verify(accountDetailsRepo, never()).save(any(AccountDetails.class));
         verify(bankTransactionRepo, times(2)).save(any(BankTransaction.class));
     }
 
@@ -212,13 +233,31 @@ import java.util.*;
      void testManualPayment_Success() {
         // Arrange
         when(accountDetailsRepo.findByAccountNumber(1)).thenReturn(fromAccount);
+        when(accountDetailsRepo.debitIfSufficient(1, 500)).thenReturn(1);
 
         // Act
         bankTransactionService.manualPayment(1, 500);
 
         // Assert
-        assertEquals(500.0, fromAccount.getBalance());
-        verify(bankTransactionRepo, times(1)).save(any(BankTransaction.class));
+        verify(accountDetailsRepo).debitIfSufficient(1, 500);
+        verify(bankTransactionRepo, times(1)).save(argThat(t -> t.getBalanceAfterTransaction() == 500.0));
+    }
+
+    @Test
+    void testManualPayment_LedgerModeAppendsAPosting() {
+        BankTransactionService ledgerModeService = new BankTransactionService(bankTransactionRepo, accountDetailsRepo,
+                accountShardEngine, new LedgerService(accountDetailsRepo, null, ledgerRepo, true, 50, 500, 3));
+        when(accountDetailsRepo.findByAccountNumber(1)).thenReturn(fromAccount);
+        when(ledgerRepo.findBalances(List.of(1))).thenReturn(Map.of(1, new LedgerBalance(1, 1000.0, 4)));
+        when(ledgerRepo.findBalanceForUpdate(1)).thenReturn(new LedgerBalance(1, 1000.0, 4));
+
+        ledgerModeService.manualPayment(1, 500);
+
+        verify(ledgerRepo).insertPostings(argThat(postings -> Long.valueOf(5).equals(postings.get(0).getAccountSeq())
+                && postings.get(0).getAmount() == -500.0));
+        verify(accountDetailsRepo, never()).debitIfSufficient(anyInt(), anyDouble());
+        verify(accountDetailsRepo, never()).save(any(AccountDetails.class));
+        verify(bankTransactionRepo).save(argThat(t -> t.getBalanceAfterTransaction() == 500.0));
     }
 
     @Test
@@ -230,8 +269,8 @@ import java.util.*;
         bankTransactionService.creditLoanAmount(1, 2000);
 
         // Assert
-        assertEquals(3000.0, fromAccount.getBalance());
-        verify(bankTransactionRepo, times(1)).save(any(BankTransaction.class));
+        verify(accountDetailsRepo).credit(1, 2000);
+        verify(bankTransactionRepo, times(1)).save(argThat(t -> t.getBalanceAfterTransaction() == 3000.0));
     }
 
     @Test
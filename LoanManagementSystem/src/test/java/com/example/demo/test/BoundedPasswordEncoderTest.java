@@ -0,0 +1,129 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.example.demo.config.BoundedPasswordEncoder;
+import com.example.demo.exception.ControllerExceptionHandler;
+import com.example.demo.exception.ErrorMessage;
+import com.example.demo.exception.PasswordHashingBusyException;
+
+class BoundedPasswordEncoderTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testHashesOnThePoolAndRecordsLatency() {
+        executor = executor(2, 4);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), executor, 5000);
+
+        String hash = encoder.encode("secret");
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+
+        Map<String, Number> stats = encoder.stats();
+        assertEquals(1L, stats.get("encodeCount"));
+        assertEquals(2L, stats.get("matchesCount"));
+        assertTrue(stats.get("encodeMaxMs").doubleValue() > 0);
+        assertEquals(0L, stats.get("rejected"));
+    }
+
+    @Test
+    void testSaturatedPoolIsRejectedImmediately() throws Exception {
+        executor = executor(1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), executor, 5000);
+        CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long before = System.nanoTime();
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("second"));
+        assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(1));
+
+        release.countDown();
+        assertEquals("hash:first", inFlight.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, encoder.stats().get("rejected"));
+    }
+
+    @Test
+    void testSlowHashTimesOut() throws Exception {
+        executor = executor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(new CountDownLatch(1), release),
+                executor, 50);
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("secret", "hash:secret"));
+        assertEquals(1L, encoder.stats().get("timedOut"));
+        release.countDown();
+    }
+
+    @Test
+    void testBusyIsAnswered503WithRetryAfter() {
+        ResponseEntity<ErrorMessage> response = new ControllerExceptionHandler().passwordHashingBusyException(
+                new PasswordHashingBusyException("busy"), new ServletWebRequest(new MockHttpServletRequest()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                await(release);
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                await(release);
+                return encodedPassword.equals("hash:" + rawPassword);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import com.example.demo.service.DocumentContentCache;
+
+class DocumentContentCacheTest {
+
+    private final DocumentContentCache cache = new DocumentContentCache(DataSize.ofBytes(1000), DataSize.ofBytes(400));
+
+    @Test
+    void testRepeatViewIsServedFromTheCache() throws IOException {
+        byte[] pan = bytes(300);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Resource> store = () -> {
+            loads.incrementAndGet();
+            return new ByteArrayResource(pan);
+        };
+
+        assertArrayEquals(pan, cache.get("pan", store).getContentAsByteArray());
+        Resource cached = cache.get("pan", store);
+        assertArrayEquals(pan, cached.getContentAsByteArray());
+        assertEquals(300, cached.contentLength());
+
+        // Streams over one entry do not share a position
+        try (InputStream first = cached.getInputStream(); InputStream second = cached.getInputStream()) {
+            assertEquals(100, first.skip(100));
+            assertEquals(pan[0] & 0xFF, second.read());
+            assertEquals(pan[100] & 0xFF, first.read());
+        }
+
+        assertEquals(1, loads.get());
+        Map<String, Number> stats = cache.stats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(300L, stats.get("bytes"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvictedOverBudget() throws IOException {
+        cache.get("aadhaar", () -> new ByteArrayResource(bytes(400)));
+        cache.get("pan", () -> new ByteArrayResource(bytes(400)));
+        cache.get("aadhaar", () -> new ByteArrayResource(bytes(400)));
+
+        cache.get("statement", () -> new ByteArrayResource(bytes(300)));
+
+        Map<String, Number> stats = cache.stats();
+        assertEquals(2, stats.get("entries"));
+        assertEquals(700L, stats.get("bytes"));
+        assertEquals(1L, stats.get("evictions"));
+        cache.get("aadhaar", () -> null);
+        assertEquals(2L, cache.stats().get("hits"));
+    }
+
+    @Test
+    void testLargeAndMissingContentIsNotCached() throws IOException {
+        Resource large = new ByteArrayResource(bytes(401));
+
+        assertSame(large, cache.get("statement", () -> large));
+        assertNull(cache.get("missing", () -> null));
+
+        assertEquals(0, cache.stats().get("entries"));
+        assertEquals(1L, cache.stats().get("oversized"));
+    }
+
+    @Test
+    void testEvictedContentIsLoadedAgain() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Resource> store = () -> {
+            loads.incrementAndGet();
+            return new ByteArrayResource(bytes(10));
+        };
+        cache.get("pan", store);
+
+        cache.evict("pan");
+        cache.get("pan", store);
+
+        assertEquals(2, loads.get());
+        assertEquals(10L, cache.stats().get("bytes"));
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        byte[] pan = bytes(300);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Resource> store = () -> {
+            loads.incrementAndGet();
+            return blocking(pan, reading, release);
+        };
+
+        CompletableFuture<Resource> first = CompletableFuture.supplyAsync(() -> get("pan", store));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Resource> second = CompletableFuture.supplyAsync(() -> get("pan", store));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertArrayEquals(pan, first.join().getContentAsByteArray());
+        assertArrayEquals(pan, second.join().getContentAsByteArray());
+        assertEquals(1, loads.get());
+        assertEquals(300L, cache.stats().get("bytes"));
+    }
+
+    @Test
+    void testMissReservesItsBytesBeforeReading() throws Exception {
+        cache.get("aadhaar", () -> new ByteArrayResource(bytes(400)));
+        cache.get("pan", () -> new ByteArrayResource(bytes(400)));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Resource> statement = CompletableFuture.supplyAsync(
+                () -> get("statement", () -> blocking(bytes(400), reading, release)));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        // Room was made while the buffer is still being filled
+        Map<String, Number> stats = cache.stats();
+        assertEquals(1, stats.get("entries"));
+        assertEquals(800L, stats.get("bytes"));
+
+        // With the budget held by loads in progress, a further miss is served uncached
+        CountDownLatch readingSalary = new CountDownLatch(1);
+        CompletableFuture<Resource> salary = CompletableFuture.supplyAsync(
+                () -> get("salary", () -> blocking(bytes(400), readingSalary, release)));
+        assertTrue(readingSalary.await(5, TimeUnit.SECONDS));
+        Resource form = new ByteArrayResource(bytes(400));
+        assertSame(form, cache.get("form", () -> form));
+        assertEquals(800L, cache.stats().get("bytes"));
+
+        release.countDown();
+        statement.join();
+        salary.join();
+        assertEquals(2, cache.stats().get("entries"));
+        assertEquals(800L, cache.stats().get("bytes"));
+    }
+
+    private Resource get(String hash, Supplier<Resource> loader) {
+        try {
+            return cache.get(hash, loader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Content whose first read signals reading and then waits for release
+    private static Resource blocking(byte[] content, CountDownLatch reading, CountDownLatch release) {
+        return new ByteArrayResource(content) {
+            @Override
+            public InputStream getInputStream() {
+                return new FilterInputStream(new ByteArrayInputStream(content)) {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        reading.countDown();
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException(e);
+                        }
+                        return super.read(b, off, len);
+                    }
+                };
+            }
+        };
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + 3);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.service.DocumentContentMigration;
+import com.example.demo.service.LocalDocumentStore;
+
+/**
+ * Runs V4 on a database holding a pre-V4 document, then the startup migration,
+ * and checks the blob ends up in the store with the row pointing at it.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:documentcontent;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentContentMigrationTest {
+
+    // SHA-256 of "abc"
+    private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testLegacyBlobsMoveToTheStore() throws Exception {
+        jdbcTemplate.update("INSERT INTO DOCUMENTS (ACCOUNTNUMBER, DOCUMENTNAME, FILETYPE, VERIFICATIONSTATUS, FILEDATA) "
+                + "VALUES (7, 'PAN', 'application/pdf', 'PENDING', ?)", (Object) "abc".getBytes(StandardCharsets.UTF_8));
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+
+        new DocumentContentMigration(jdbcTemplate, store).migrateLegacyContent();
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT CONTENTHASH, FILESIZE, STOREDSIZE, FILEDATA FROM DOCUMENTS WHERE ACCOUNTNUMBER = 7");
+        assertEquals(ABC, row.get("CONTENTHASH"));
+        assertEquals(3L, ((Number) row.get("FILESIZE")).longValue());
+        assertEquals(3L, ((Number) row.get("STOREDSIZE")).longValue());
+        assertNull(row.get("FILEDATA"));
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), store.get(ABC).getContentAsByteArray());
+    }
+}
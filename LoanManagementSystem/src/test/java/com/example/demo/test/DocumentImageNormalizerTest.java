@@ -0,0 +1,105 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.example.demo.service.DocumentImageNormalizer;
+
+class DocumentImageNormalizerTest {
+
+    private final DocumentImageNormalizer normalizer = new DocumentImageNormalizer(400, 0.85f);
+
+    @Test
+    void testOversizedJpegIsScaledToTheCap() throws IOException {
+        byte[] photo = encode(image(1600, 1200, false), "jpeg");
+
+        byte[] scaled = normalizer.downscale(new ByteArrayResource(photo), "image/jpeg");
+
+        assertNotNull(scaled);
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(scaled));
+        assertEquals(400, result.getWidth());
+        assertEquals(300, result.getHeight());
+        assertTrue(scaled.length < photo.length);
+    }
+
+    @Test
+    void testExifRotationIsAppliedToThePixels() throws IOException {
+        // Landscape sensor data tagged "rotate 90 degrees clockwise", as phones shoot portrait pages
+        byte[] photo = withExifOrientation(encode(image(1600, 1200, false), "jpeg"), 6);
+
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(
+                normalizer.downscale(new ByteArrayResource(photo), "image/jpeg")));
+
+        assertEquals(300, result.getWidth());
+        assertEquals(400, result.getHeight());
+    }
+
+    @Test
+    void testPngKeepsItsTransparency() throws IOException {
+        byte[] scan = encode(image(800, 800, true), "png");
+
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(
+                normalizer.downscale(new ByteArrayResource(scan), "image/png")));
+
+        assertEquals(400, result.getWidth());
+        assertTrue(result.getColorModel().hasAlpha());
+    }
+
+    @Test
+    void testImagesWithinTheCapAndUnreadableFilesAreKept() throws IOException {
+        assertNull(normalizer.downscale(new ByteArrayResource(encode(image(400, 200, false), "jpeg")), "image/jpeg"));
+        assertNull(normalizer.downscale(new ByteArrayResource(new byte[] { 1, 2, 3 }), "image/png"));
+        assertFalse(normalizer.handles("application/pdf"));
+        assertFalse(new DocumentImageNormalizer(0, 0.85f).handles("image/jpeg"));
+    }
+
+    private static BufferedImage image(int width, int height, boolean alpha) {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        for (int y = 0; y < height; y += 16) {
+            g.fillRect(8, y, width / 2, 4);
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    // Inserts a big-endian EXIF APP1 segment holding only the orientation tag after SOI
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = {
+                (byte) 0xFF, (byte) 0xE1, 0x00, 0x22,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0x00, 0x2A, 0x00, 0x00, 0x00, 0x08,
+                0x00, 0x01,
+                0x01, 0x12, 0x00, 0x03, 0x00, 0x00, 0x00, 0x01, 0x00, (byte) orientation, 0x00, 0x00,
+                0x00, 0x00, 0x00, 0x00 };
+        byte[] tagged = new byte[jpeg.length + app1.length];
+        System.arraycopy(jpeg, 0, tagged, 0, 2);
+        System.arraycopy(app1, 0, tagged, 2, app1.length);
+        System.arraycopy(jpeg, 2, tagged, 2 + app1.length, jpeg.length - 2);
+        return tagged;
+    }
+}
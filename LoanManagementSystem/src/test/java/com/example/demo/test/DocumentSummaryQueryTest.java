@@ -0,0 +1,75 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.example.demo.model.DocumentSummary;
+import com.example.demo.model.Documents;
+import com.example.demo.repo.DocumentsRepo;
+
+/**
+ * The listing and verification queries select the summary columns only.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.demo.test.DocumentSummaryQueryTest$CapturedSql")
+class DocumentSummaryQueryTest {
+
+    private static final String CONTENT_HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    @Autowired
+    private DocumentsRepo documentsRepo;
+
+    @Test
+    void testSummariesReadOnlyMetadataColumns() {
+        documentsRepo.saveAndFlush(document("PAN", "VERIFIED"));
+        documentsRepo.saveAndFlush(document("AADHAAR", "Pending"));
+        CapturedSql.STATEMENTS.clear();
+
+        List<DocumentSummary> summaries = documentsRepo.findSummariesByAccountNumber(7);
+
+        assertEquals(2, summaries.size());
+        DocumentSummary pan = summaries.stream().filter(s -> "PAN".equals(s.getDocumentName())).findFirst().orElseThrow();
+        assertEquals("VERIFIED", pan.getVerificationStatus());
+        assertEquals("application/pdf", pan.getFileType());
+        assertEquals(2048L, pan.getFileSize());
+        assertTrue(pan.getDocumentId() > 0);
+
+        assertEquals(1, CapturedSql.STATEMENTS.size());
+        String sql = CapturedSql.STATEMENTS.get(0).toUpperCase();
+        assertFalse(sql.contains("CONTENTHASH"), sql);
+        assertFalse(sql.contains("DOCUMENTINFO"), sql);
+        assertTrue(documentsRepo.existsByAccountNumber(7));
+        assertFalse(documentsRepo.existsByAccountNumber(8));
+    }
+
+    private static Documents document(String name, String status) {
+        Documents document = new Documents();
+        document.setAccountNumber(7);
+        document.setDocumentName(name);
+        document.setDocumentInfo(name + " uploaded");
+        document.setVerificationStatus(status);
+        document.setFileType("application/pdf");
+        document.setContentHash(CONTENT_HASH);
+        document.setFileSize(2048L);
+        return document;
+    }
+
+    public static class CapturedSql implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import com.example.demo.exception.ControllerExceptionHandler;
+import com.example.demo.exception.DocumentNotFoundException;
+import com.example.demo.exception.DocumentTooLargeException;
+import com.example.demo.exception.UploadConflictException;
+import com.example.demo.model.Constants;
+import com.example.demo.model.DocumentUpload;
+import com.example.demo.repo.DocumentUploadRepo;
+import com.example.demo.service.DocumentUploadService;
+import com.example.demo.service.DocumentsService;
+
+class DocumentUploadServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private DocumentUploadRepo documentUploadRepo;
+    private DocumentsService documentsService;
+    private DocumentUploadService uploadService;
+
+    @BeforeEach
+    void setUp() {
+        documentUploadRepo = mock(DocumentUploadRepo.class);
+        documentsService = mock(DocumentsService.class);
+        uploadService = new DocumentUploadService(documentUploadRepo, documentsService, dir.toString(),
+                DataSize.ofKilobytes(1), 24);
+        when(documentUploadRepo.save(any())).thenAnswer(invocation -> {
+            DocumentUpload upload = invocation.getArgument(0);
+            when(documentUploadRepo.findById(upload.getUploadId())).thenReturn(Optional.of(upload));
+            when(documentUploadRepo.existsById(upload.getUploadId())).thenReturn(true);
+            return upload;
+        });
+    }
+
+    @Test
+    void testResumesAfterDroppedChunkAndSavesDocument() throws IOException {
+        byte[] statement = bytes(600);
+        DocumentUpload upload = uploadService.start(7, Constants.BANK_STATEMENT, "application/pdf", statement.length);
+        AtomicReference<byte[]> saved = new AtomicReference<>();
+        doAnswer(invocation -> {
+            saved.set(invocation.<InputStream>getArgument(2).readAllBytes());
+            return null;
+        }).when(documentsService).saveOrUpdateDocument(eq(7), eq(Constants.BANK_STATEMENT), any(InputStream.class),
+                eq("application/pdf"));
+
+        assertEquals(0, uploadService.offset(upload));
+        assertThrows(IOException.class,
+                () -> uploadService.append(upload, 0, droppedAfter(Arrays.copyOfRange(statement, 0, 400), 250)));
+        assertEquals(250, uploadService.offset(upload));
+
+        assertThrows(UploadConflictException.class,
+                () -> uploadService.append(upload, 400, new ByteArrayInputStream(statement, 400, 200)));
+        assertEquals(500, uploadService.append(upload, 250, new ByteArrayInputStream(statement, 250, 250)));
+        verify(documentsService, never()).saveOrUpdateDocument(anyInt(), anyString(), any(InputStream.class), any());
+
+        assertEquals(600, uploadService.append(upload, 500, new ByteArrayInputStream(statement, 500, 100)));
+        assertArrayEquals(statement, saved.get());
+        verify(documentUploadRepo).deleteById(upload.getUploadId());
+        assertFalse(Files.exists(dir.resolve(upload.getUploadId() + ".part")));
+    }
+
+    @Test
+    void testChunkPastDeclaredSizeIsDropped() throws IOException {
+        DocumentUpload upload = uploadService.start(7, Constants.PAN, "image/png", 100);
+        uploadService.append(upload, 0, new ByteArrayInputStream(bytes(60)));
+
+        assertThrows(DocumentTooLargeException.class,
+                () -> uploadService.append(upload, 60, new ByteArrayInputStream(bytes(50))));
+        assertEquals(60, uploadService.offset(upload));
+    }
+
+    @Test
+    void testDeclaredSizeOverLimitIsRejected() {
+        assertThrows(DocumentTooLargeException.class,
+                () -> uploadService.start(7, Constants.BANK_STATEMENT, "application/pdf", 1025));
+        verify(documentUploadRepo, never()).save(any());
+    }
+
+    @Test
+    void testCancelledUploadIsGone() throws IOException {
+        DocumentUpload upload = uploadService.start(7, Constants.AADHAAR, "image/jpeg", 100);
+        uploadService.cancel(upload.getUploadId());
+        when(documentUploadRepo.findById(upload.getUploadId())).thenReturn(Optional.empty());
+
+        assertThrows(DocumentNotFoundException.class, () -> uploadService.getUpload(upload.getUploadId()));
+        assertThrows(DocumentNotFoundException.class,
+                () -> uploadService.append(upload, 0, new ByteArrayInputStream(bytes(10))));
+    }
+
+    @Test
+    void testOversizedMultipartIsAnswered413() {
+        ControllerExceptionHandler handler = new ControllerExceptionHandler();
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                handler.documentTooLargeException(new MaxUploadSizeExceededException(10), request).getStatusCode());
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        return bytes;
+    }
+
+    // A request body whose connection drops after the first bytes
+    private static InputStream droppedAfter(byte[] data, int deliverable) {
+        return new FilterInputStream(new ByteArrayInputStream(data, 0, deliverable)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+    }
+}
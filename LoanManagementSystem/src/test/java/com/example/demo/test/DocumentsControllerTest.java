@@ -2,6 +2,8 @@ package com.example.demo.test;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -13,13 +15,20 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.demo.controller.DocumentsController;
 import com.example.demo.exception.DocumentNotFoundException;
 import com.example.demo.exception.LoanApprovalException;
+import com.example.demo.model.DocumentSummary;
 import com.example.demo.model.Documents;
 import com.example.demo.service.DocumentsService;
 
@@ -47,8 +56,7 @@ class DocumentsControllerTest {
         MultipartFile signatureFile = mock(MultipartFile.class);
 
         // Simulating existing documents
-        when(documentsService.getDocumentsByAccountNumber(accountNumber))
-            .thenReturn(Arrays.asList(new Documents()));
+        when(documentsService.hasDocuments(accountNumber)).thenReturn(true);
 
         // Call the uploadDocuments method
         ResponseEntity<String> response = documentsController.uploadDocuments(accountNumber, aadhaarFile, panFile, signatureFile);
@@ -66,7 +74,7 @@ class DocumentsControllerTest {
         MultipartFile panFile = mock(MultipartFile.class);
         MultipartFile signatureFile = mock(MultipartFile.class);
 
-        when(documentsService.getDocumentsByAccountNumber(accountNumber)).thenReturn(Arrays.asList()); // No existing documents
+        when(documentsService.hasDocuments(accountNumber)).thenReturn(false); // No existing documents
         doNothing().when(documentsService).saveOrUpdateDocuments(accountNumber, aadhaarFile, panFile, signatureFile);
 
         ResponseEntity<String> response = documentsController.uploadDocuments(accountNumber, aadhaarFile, panFile, signatureFile);
@@ -79,9 +87,9 @@ class DocumentsControllerTest {
     void testGetDocuments_DocumentsFound() {
         int accountNumber = 123;
         Documents doc = new Documents();
-        when(documentsService.getDocumentsByAccountNumber(accountNumber)).thenReturn(Arrays.asList(doc));
+        when(documentsService.getDocumentSummariesByAccountNumber(accountNumber)).thenReturn(Arrays.asList(summary(doc)));
 
-        ResponseEntity<List<Documents>> response = documentsController.getDocuments(accountNumber);
+        ResponseEntity<List<DocumentSummary>> response = documentsController.getDocuments(accountNumber);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertFalse(response.getBody().isEmpty());
@@ -90,7 +98,7 @@ class DocumentsControllerTest {
     @Test
     void testGetDocuments_NoDocumentsFound() {
         int accountNumber = 123;
-        when(documentsService.getDocumentsByAccountNumber(accountNumber)).thenReturn(Arrays.asList());
+        when(documentsService.getDocumentSummariesByAccountNumber(accountNumber)).thenReturn(Arrays.asList());
 
         DocumentNotFoundException exception = assertThrows(DocumentNotFoundException.class, () -> {
             documentsController.getDocuments(accountNumber);
@@ -100,19 +108,17 @@ class DocumentsControllerTest {
     }
 
     @Test
-    void testDownloadDocument_Success() {
+    void testDownloadDocument_Success() throws IOException {
         int documentId = 1;
-        Documents document = new Documents();
-        document.setDocumentName("test.pdf");
-        document.setFileType("application/pdf");
-        document.setFileData(new byte[]{1, 2, 3});
-
+        Documents document = pdf();
         when(documentsService.getDocumentById(documentId)).thenReturn(Optional.of(document));
+        when(documentsService.getDocumentContent(document)).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3}));
 
-        ResponseEntity<byte[]> response = documentsController.downloadDocument(documentId);
+        ResponseEntity<Resource> response = documentsController.downloadDocument(documentId);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertArrayEquals(new byte[]{1, 2, 3}, response.getBody());
+        assertArrayEquals(new byte[]{1, 2, 3}, response.getBody().getContentAsByteArray());
+        assertEquals("\"" + CONTENT_HASH + "\"", response.getHeaders().getETag());
     }
 
     @Test
@@ -120,11 +126,43 @@ class DocumentsControllerTest {
         int documentId = 1;
         when(documentsService.getDocumentById(documentId)).thenReturn(Optional.empty());
 
-        ResponseEntity<byte[]> response = documentsController.downloadDocument(documentId);
+        ResponseEntity<Resource> response = documentsController.downloadDocument(documentId);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void testDownloadDocument_RangeAndRevalidation() throws Exception {
+        Documents document = pdf();
+        when(documentsService.getDocumentById(1)).thenReturn(Optional.of(document));
+        when(documentsService.getDocumentContent(document)).thenReturn(new ByteArrayResource(new byte[]{1, 2, 3, 4, 5}));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(documentsController).build();
+
+        mockMvc.perform(get("/documents/download/1").header(HttpHeaders.RANGE, "bytes=1-2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1-2/5"))
+                .andExpect(content().bytes(new byte[]{2, 3}));
+
+        mockMvc.perform(get("/documents/download/1").header(HttpHeaders.IF_NONE_MATCH, "\"" + CONTENT_HASH + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    private static final String CONTENT_HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
+    private static DocumentSummary summary(Documents document) {
+        return new SpelAwareProxyProjectionFactory().createProjection(DocumentSummary.class, document);
+    }
+
+    private static Documents pdf() {
+        Documents document = new Documents();
+        document.setDocumentName("test.pdf");
+        document.setFileType("application/pdf");
+        document.setContentHash(CONTENT_HASH);
+        document.setFileSize(5L);
+        return document;
+    }
+
     @Test
     void testApproveLoan_AllDocumentsVerified() {
         int accountNumber = 123;
@@ -133,8 +171,8 @@ class DocumentsControllerTest {
         Documents doc2 = new Documents();
         doc2.setVerificationStatus("Verified");
 
-        when(documentsService.getDocumentsByAccountNumber(accountNumber))
-            .thenReturn(Arrays.asList(doc1, doc2));
+        when(documentsService.getDocumentSummariesByAccountNumber(accountNumber))
+            .thenReturn(Arrays.asList(summary(doc1), summary(doc2)));
 
         ResponseEntity<String> response = documentsController.approveLoan(accountNumber);
 
@@ -150,8 +188,8 @@ class DocumentsControllerTest {
         Documents doc2 = new Documents();
         doc2.setVerificationStatus("Not Verified");
 
-        when(documentsService.getDocumentsByAccountNumber(accountNumber))
-            .thenReturn(Arrays.asList(doc1, doc2));
+        when(documentsService.getDocumentSummariesByAccountNumber(accountNumber))
+            .thenReturn(Arrays.asList(summary(doc1), summary(doc2)));
 
         LoanApprovalException exception = assertThrows(LoanApprovalException.class, () -> {
             documentsController.approveLoan(accountNumber);
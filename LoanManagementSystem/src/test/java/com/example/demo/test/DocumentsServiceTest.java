@@ -2,22 +2,33 @@ package com.example.demo.test;
 
 import com.example.demo.exception.DocumentNotFoundException;
 
+import com.example.demo.model.DocumentSummary;
 import com.example.demo.model.Documents;
+import com.example.demo.model.StoredContent;
 import com.example.demo.repo.DocumentsRepo;
+import com.example.demo.service.DocumentContentCache;
+import com.example.demo.service.DocumentImageNormalizer;
+import com.example.demo.service.DocumentStore;
 import com.example.demo.service.DocumentsService;
 
 import org.apache.log4j.Logger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,9 +47,23 @@ class DocumentsServiceTest {
     @Mock
     private MultipartFile multipartFile;
 
+    @Mock
+    private DocumentStore documentStore;
+
+    @Mock
+    private DocumentImageNormalizer imageNormalizer;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
+    private static final String OLD_HASH = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+    private static final String NEW_HASH = "9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a";
+
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         MockitoAnnotations.openMocks(this);
+        when(documentStore.put(any(), any())).thenReturn(new StoredContent(NEW_HASH, 4, 4));
+        when(contentCache.get(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<Resource>>getArgument(1).get());
     }
     
    
@@ -93,7 +118,7 @@ class DocumentsServiceTest {
     @Test
     void testSaveOrUpdateDocuments() throws IOException {
         // Arrange
-        when(multipartFile.getBytes()).thenReturn(new byte[0]);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
         
         when(multipartFile.getContentType()).thenReturn("application/pdf");
 
@@ -109,7 +134,7 @@ class DocumentsServiceTest {
         // Arrange
         Documents document = new Documents();
         when(documentsRepo.findByAccountNumberAndDocumentName(123, "AADHAAR")).thenReturn(Optional.of(document));
-        when(multipartFile.getBytes()).thenReturn(new byte[0]);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
         when(multipartFile.getContentType()).thenReturn("application/pdf");
 
         // Act
@@ -117,13 +142,124 @@ class DocumentsServiceTest {
 
         // Assert
         assertEquals("AADHAAR updated", document.getDocumentInfo());
+        assertEquals(NEW_HASH, document.getContentHash());
+        assertEquals(4L, document.getFileSize());
+    }
+
+    @Test
+    void testSaveOrUpdateDocument_ReplacedContentIsDeletedWhenUnreferenced() throws IOException {
+        Documents document = new Documents();
+        document.setContentHash(OLD_HASH);
+        when(documentsRepo.findByAccountNumberAndDocumentName(123, "PAN")).thenReturn(Optional.of(document));
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[4]));
+        when(documentsRepo.countByContentHash(OLD_HASH)).thenReturn(0L);
+
+        documentsService.saveOrUpdateDocument(123, "PAN", multipartFile);
+
+        verify(contentCache).evict(OLD_HASH);
+        verify(documentStore).delete(eq(OLD_HASH), any());
+    }
+
+    @Test
+    void testSaveOrUpdateDocument_SharedContentIsKept() throws IOException {
+        Documents document = new Documents();
+        document.setContentHash(OLD_HASH);
+        when(documentsRepo.findByAccountNumberAndDocumentName(123, "PAN")).thenReturn(Optional.of(document));
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[4]));
+        when(documentsRepo.countByContentHash(OLD_HASH)).thenReturn(1L);
+
+        documentsService.saveOrUpdateDocument(123, "PAN", multipartFile);
+
+        verify(documentStore, never()).delete(eq(OLD_HASH), any());
+    }
+
+    @Test
+    void testSaveOrUpdateDocument_OversizedImageIsReplacedByScaledCopy() throws IOException {
+        byte[] photo = new byte[5000];
+        Resource stored = new ByteArrayResource(photo);
+        when(documentStore.put(any(), any())).thenReturn(new StoredContent(OLD_HASH, 5000, 4900),
+                new StoredContent(NEW_HASH, 800, 800));
+        when(documentStore.get(OLD_HASH)).thenReturn(stored);
+        when(imageNormalizer.handles("image/jpeg")).thenReturn(true);
+        when(imageNormalizer.downscale(stored, "image/jpeg")).thenReturn(new byte[800]);
+        when(documentsRepo.findByAccountNumberAndDocumentName(123, "AADHAAR")).thenReturn(Optional.empty());
+
+        documentsService.saveOrUpdateDocument(123, "AADHAAR", new ByteArrayInputStream(photo), "image/jpeg");
+
+        verify(documentsRepo).save(argThat(document -> NEW_HASH.equals(document.getContentHash())
+                && document.getFileSize() == 800 && document.getOriginalSize() == 5000 && document.getStoredSize() == 800));
+        // Both puts are unpinned; the unreferenced original is then deleted
+        verify(documentStore).unpin(OLD_HASH);
+        verify(documentStore).unpin(NEW_HASH);
+        verify(documentStore).delete(eq(OLD_HASH), any());
+    }
+
+    @Test
+    void testSaveOrUpdateDocument_RecordsCompressedSize() throws IOException {
+        when(documentStore.put(any(), any())).thenReturn(new StoredContent(NEW_HASH, 4000, 1200));
+        when(documentsRepo.findByAccountNumberAndDocumentName(123, "BANK_STATEMENT")).thenReturn(Optional.empty());
+
+        documentsService.saveOrUpdateDocument(123, "BANK_STATEMENT", new ByteArrayInputStream(new byte[4000]),
+                "application/pdf");
+
+        verify(imageNormalizer, never()).downscale(any(), any());
+        verify(documentsRepo).save(argThat(document -> document.getFileSize() == 4000
+                && document.getOriginalSize() == 4000 && document.getStoredSize() == 1200));
+    }
+
+    @Test
+    void testDeleteDocuments_DeletesUnreferencedContent() throws IOException {
+        Documents document = new Documents();
+        document.setContentHash(OLD_HASH);
+        when(documentsRepo.findById(1)).thenReturn(Optional.of(document));
+
+        documentsService.deleteDocuments(1);
+
+        verify(documentsRepo).deleteById(1);
+        verify(contentCache).evict(OLD_HASH);
+        verify(documentStore).delete(eq(OLD_HASH), any());
+    }
+
+    @Test
+    void testDeleteDocuments_StoreRechecksReferencesBeforeDeleting() throws IOException {
+        Documents document = new Documents();
+        document.setContentHash(OLD_HASH);
+        when(documentsRepo.findById(1)).thenReturn(Optional.of(document));
+        // Unreferenced when the document is deleted, reused by an upload before the store deletes
+        when(documentsRepo.countByContentHash(OLD_HASH)).thenReturn(0L, 1L);
+
+        documentsService.deleteDocuments(1);
+
+        ArgumentCaptor<BooleanSupplier> inUse = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(documentStore).delete(eq(OLD_HASH), inUse.capture());
+        assertTrue(inUse.getValue().getAsBoolean());
+    }
+
+    @Test
+    void testGetDocumentContent() throws IOException {
+        Documents document = new Documents();
+        document.setContentHash(NEW_HASH);
+        Resource content = new ByteArrayResource(new byte[] { 1, 2, 3, 4 });
+        when(documentStore.get(NEW_HASH)).thenReturn(content);
+
+        assertSame(content, documentsService.getDocumentContent(document));
+        verify(contentCache).get(eq(NEW_HASH), any());
+    }
+
+    @Test
+    void testGetDocumentContent_Missing() {
+        Documents document = new Documents();
+        document.setDocumentId(1);
+        document.setContentHash(NEW_HASH);
+
+        assertThrows(DocumentNotFoundException.class, () -> documentsService.getDocumentContent(document));
     }
 
     @Test
     void testSaveOrUpdateDocument_NewDocument() throws IOException {
         // Arrange
         when(documentsRepo.findByAccountNumberAndDocumentName(123, "AADHAAR")).thenReturn(Optional.empty());
-        when(multipartFile.getBytes()).thenReturn(new byte[0]);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
         when(multipartFile.getContentType()).thenReturn("application/pdf");
 
         // Act
@@ -146,6 +282,17 @@ class DocumentsServiceTest {
         assertEquals(2, result.size());
     }
 
+    @Test
+    void testGetDocumentSummariesByAccountNumber() {
+        DocumentSummary summary = mock(DocumentSummary.class);
+        when(documentsRepo.findSummariesByAccountNumber(123)).thenReturn(List.of(summary));
+        when(documentsRepo.existsByAccountNumber(123)).thenReturn(true);
+
+        assertEquals(List.of(summary), documentsService.getDocumentSummariesByAccountNumber(123));
+        assertTrue(documentsService.hasDocuments(123));
+        verify(documentsRepo, never()).findByAccountNumber(123);
+    }
+
     @Test
     void testGetDocumentById_Found() {
         // Arrange
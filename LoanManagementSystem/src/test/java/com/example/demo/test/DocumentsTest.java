@@ -18,7 +18,8 @@ import static org.junit.jupiter.api.Assertions.*;
 	        document.setDocumentName("AADHAAR");
 	        document.setDocumentInfo("UID: 1234-5678-9101");
 	        document.setVerificationStatus("Verified");
-	        document.setFileData(new byte[]{1, 2, 3, 4});
+	        document.setContentHash("9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a");
+	        document.setFileSize(4L);
 	        document.setFileType("image/jpeg");
 
 	        // Validate the values using getters
@@ -27,7 +28,8 @@ import static org.junit.jupiter.api.Assertions.*;
 	        assertEquals("AADHAAR", document.getDocumentName());
 	        assertEquals("UID: 1234-5678-9101", document.getDocumentInfo());
 	        assertEquals("Verified", document.getVerificationStatus());
-	        assertArrayEquals(new byte[]{1, 2, 3, 4}, document.getFileData());
+	        assertEquals("9f64a747e1b97f131fabb6b447296c9b6f0201e79fb3c5356e6c77e89b6a806a", document.getContentHash());
+	        assertEquals(4L, document.getFileSize());
 	        assertEquals("image/jpeg", document.getFileType());
 	    }
 
@@ -35,7 +37,8 @@ import static org.junit.jupiter.api.Assertions.*;
 	    @Test
 	    void testAllArgsConstructor() {
 	        // Create an instance using the all-args constructor
-	        Documents document = new Documents(1, 12345, "PAN", "PAN Number: ABCDE1234F", "Verified", new byte[]{5, 6, 7, 8}, "image/png");
+	        Documents document = new Documents(1, 12345, "PAN", "PAN Number: ABCDE1234F", "Verified",
+	                "ef0f8c5b2e7b26e4e4ab8b3bdbe4a4ebf8b5c0b4ffea0bf3b1b6b46d0c55b1ef", 4L, 9L, 3L, "image/png");
 
 	        // Validate the values using getters
 	        assertEquals(1, document.getDocumentId());
@@ -43,7 +46,8 @@ import static org.junit.jupiter.api.Assertions.*;
 	        assertEquals("PAN", document.getDocumentName());
 	        assertEquals("PAN Number: ABCDE1234F", document.getDocumentInfo());
 	        assertEquals("Verified", document.getVerificationStatus());
-	        assertArrayEquals(new byte[]{5, 6, 7, 8}, document.getFileData());
+	        assertEquals("ef0f8c5b2e7b26e4e4ab8b3bdbe4a4ebf8b5c0b4ffea0bf3b1b6b46d0c55b1ef", document.getContentHash());
+	        assertEquals(4L, document.getFileSize());
 	        assertEquals("image/png", document.getFileType());
 	    }
 
@@ -58,7 +62,7 @@ import static org.junit.jupiter.api.Assertions.*;
 	        document.setDocumentName("SIGNATURE");
 	        document.setDocumentInfo("Signature on file");
 	        document.setVerificationStatus("Pending");
-	        document.setFileData(new byte[]{9, 10, 11, 12});
+	        document.setFileSize(12L);
 	        document.setFileType("application/pdf");
 
 	        // Validate values using assertions
@@ -68,7 +72,7 @@ import static org.junit.jupiter.api.Assertions.*;
 	            () -> assertEquals("SIGNATURE", document.getDocumentName()),
 	            () -> assertEquals("Signature on file", document.getDocumentInfo()),
 	            () -> assertEquals("Pending", document.getVerificationStatus()),
-	            () -> assertArrayEquals(new byte[]{9, 10, 11, 12}, document.getFileData()),
+	            () -> assertEquals(12L, document.getFileSize()),
 	            () -> assertEquals("application/pdf", document.getFileType())
 	        );
 	    }
@@ -83,14 +87,14 @@ import static org.junit.jupiter.api.Assertions.*;
 	        assertEquals("Pending", document.getVerificationStatus());
 	    }
 
-	    // Test 5: Test File Data and File Type
+	    // Test 5: Test Content Hash and File Type
 	    @Test
-	    void testFileDataAndFileType() {
-	        byte[] fileData = {1, 2, 3};
-	        Documents document = new Documents(1, 12345, "AADHAAR", "Document Info", "Pending", fileData, "image/jpeg");
+	    void testContentHashAndFileType() {
+	        String contentHash = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+	        Documents document = new Documents(1, 12345, "AADHAAR", "Document Info", "Pending", contentHash, 3L, 3L, 3L, "image/jpeg");
 
-	        // Validate that the file data and file type are correctly set
-	        assertArrayEquals(fileData, document.getFileData());
+	        // Validate that the content hash and file type are correctly set
+	        assertEquals(contentHash, document.getContentHash());
 	        assertEquals("image/jpeg", document.getFileType());
 	    }
 
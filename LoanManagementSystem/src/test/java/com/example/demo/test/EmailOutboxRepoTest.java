@@ -0,0 +1,52 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repo.EmailOutboxRepo;
+
+/**
+ * The batch insert used by the reminder job writes rows the poller can claim.
+ */
+@DataJpaTest
+class EmailOutboxRepoTest {
+
+    @Autowired
+    private EmailOutboxRepo emailOutboxRepo;
+
+    @Test
+    void insertedRowsAreDueForDelivery() {
+        Date now = new Date();
+        List<EmailOutbox> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            EmailOutbox row = new EmailOutbox();
+            row.setRecipient("borrower" + i + "@example.com");
+            row.setSubject("Urgent: 1 Loan Repayment(s) Due");
+            row.setBody("<p>" + "x".repeat(5000) + "</p>");
+            row.setStatus(Constants.PENDING);
+            row.setNextAttemptAt(now);
+            row.setCreatedAt(now);
+            rows.add(row);
+        }
+
+        emailOutboxRepo.insertAll(rows);
+
+        List<Long> due = emailOutboxRepo.findDueIds(List.of(Constants.PENDING), new Date(now.getTime() + 1000),
+                PageRequest.of(0, 10));
+        assertEquals(3, due.size());
+        EmailOutbox stored = emailOutboxRepo.findById(due.get(0)).orElseThrow();
+        assertEquals(5007, stored.getBody().length());
+        assertEquals(0, stored.getAttempts());
+        assertEquals(3, emailOutboxRepo.countByStatus(Constants.PENDING));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import com.example.demo.model.Constants;
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.repo.EmailOutboxRepo;
+import com.example.demo.service.EmailOutboxService;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+class EmailOutboxServiceTest {
+
+    @Mock
+    private EmailOutboxRepo emailOutboxRepo;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    // Last state written for the single row under test
+    private final AtomicReference<EmailOutbox> stored = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage(Session.getInstance(new Properties())));
+        when(emailOutboxRepo.save(any(EmailOutbox.class))).thenAnswer(inv -> {
+            EmailOutbox row = inv.getArgument(0);
+            row.setOutboxId(1L);
+            stored.set(row);
+            return row;
+        });
+        when(emailOutboxRepo.findById(1L)).thenAnswer(inv -> Optional.ofNullable(stored.get()));
+        when(emailOutboxRepo.claim(eq(1L), anyCollection(), eq(Constants.SENDING), any(), any())).thenReturn(1);
+    }
+
+    private EmailOutboxService service(int failureThreshold) {
+        return new EmailOutboxService(emailOutboxRepo, mailSender, Runnable::run, failureThreshold, 60000);
+    }
+
+    @Test
+    void testEnqueue_DeliversOutsideTransaction() {
+        service(5).enqueue("user@example.com", "Subject", "<p>Body</p>");
+
+        verify(mailSender).send(any(MimeMessage.class));
+        assertEquals(Constants.SENT, stored.get().getStatus());
+        assertNotNull(stored.get().getSentAt());
+    }
+
+    @Test
+    void testEnqueueAll_InsertsOneBatchAndHandsTheRowsToThePoller() {
+        doAnswer(inv -> {
+            List<EmailOutbox> rows = inv.getArgument(0);
+            rows.get(0).setOutboxId(1L);
+            stored.set(rows.get(0));
+            return null;
+        }).when(emailOutboxRepo).insertAll(anyList());
+        when(emailOutboxRepo.findDueIds(anyCollection(), any(Date.class), any())).thenReturn(List.of(1L));
+
+        EmailOutbox second = mail("second@example.com");
+
+        service(5).enqueueAll(List.of(mail("first@example.com"), second));
+
+        verify(emailOutboxRepo, times(1)).insertAll(argThat(rows -> rows.size() == 2));
+        // Rows are not saved one at a time; only the delivered one is updated
+        verify(emailOutboxRepo, never()).save(second);
+        assertEquals(Constants.PENDING, second.getStatus());
+        assertNotNull(second.getNextAttemptAt());
+        // The poller ran once the rows were written
+        verify(mailSender).send(any(MimeMessage.class));
+        assertEquals(Constants.SENT, stored.get().getStatus());
+    }
+
+    @Test
+    void testEnqueue_SmtpFailureSchedulesRetry() {
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(any(MimeMessage.class));
+
+        service(5).enqueue("user@example.com", "Subject", "<p>Body</p>");
+
+        EmailOutbox row = stored.get();
+        assertEquals(Constants.PENDING, row.getStatus());
+        assertEquals(1, row.getAttempts());
+        assertTrue(row.getNextAttemptAt().getTime() > System.currentTimeMillis());
+        assertEquals("smtp down", row.getLastError());
+    }
+
+    @Test
+    void testDeliver_MovesToDeadAfterMaxAttempts() {
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(any(MimeMessage.class));
+        when(emailOutboxRepo.findDueIds(anyCollection(), any(), any())).thenReturn(List.of(1L));
+        EmailOutboxService emailOutboxService = service(100);
+
+        emailOutboxService.enqueue("user@example.com", "Subject", "<p>Body</p>");
+        for (int i = 1; i < 6; i++) {
+            stored.get().setNextAttemptAt(new Date(0));
+            emailOutboxService.pollDue();
+        }
+
+        assertEquals(Constants.DEAD, stored.get().getStatus());
+        assertEquals(6, stored.get().getAttempts());
+    }
+
+    @Test
+    void testDeliver_OpenCircuitDoesNotCountAttempt() {
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(any(MimeMessage.class));
+        EmailOutboxService emailOutboxService = service(1);
+
+        emailOutboxService.enqueue("user@example.com", "Subject", "<p>Body</p>");
+        emailOutboxService.enqueue("user@example.com", "Subject", "<p>Body</p>");
+
+        // The second mail is not attempted while the circuit is open.
+        verify(mailSender, times(1)).send(any(MimeMessage.class));
+        assertEquals(Constants.PENDING, stored.get().getStatus());
+        assertEquals(0, stored.get().getAttempts());
+    }
+
+    @Test
+    void testDeliver_MalformedTrialMailDoesNotHoldTheCircuit() {
+        doThrow(new MailSendException("smtp down")).doNothing().when(mailSender).send(any(MimeMessage.class));
+        // The circuit opens on the first failure and allows a trial right away
+        EmailOutboxService emailOutboxService = new EmailOutboxService(emailOutboxRepo, mailSender, Runnable::run, 1, 0);
+
+        emailOutboxService.enqueue("user@example.com", "Subject", "<p>Body</p>");
+        emailOutboxService.enqueue("user@@example.com", "Subject", "<p>Body</p>");
+        assertEquals(Constants.DEAD, stored.get().getStatus());
+
+        emailOutboxService.enqueue("user@example.com", "Subject", "<p>Body</p>");
+
+        verify(mailSender, times(2)).send(any(MimeMessage.class));
+        assertEquals(Constants.SENT, stored.get().getStatus());
+    }
+
+    @Test
+    void testEnqueue_SaturatedExecutorLeavesRowPending() {
+        EmailOutboxService emailOutboxService = new EmailOutboxService(emailOutboxRepo, mailSender,
+                task -> { throw new RejectedExecutionException("full"); }, 5, 60000);
+
+        assertDoesNotThrow(() -> emailOutboxService.enqueue("user@example.com", "Subject", "<p>Body</p>"));
+
+        verify(mailSender, never()).send(any(MimeMessage.class));
+        assertEquals(Constants.PENDING, stored.get().getStatus());
+    }
+
+    private static EmailOutbox mail(String recipient) {
+        EmailOutbox row = new EmailOutbox();
+        row.setRecipient(recipient);
+        row.setSubject("Reminder");
+        row.setBody("<p>Body</p>");
+        return row;
+    }
+}
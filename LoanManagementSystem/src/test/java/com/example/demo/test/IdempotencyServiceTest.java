@@ -0,0 +1,253 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.demo.config.IdempotencyFilter;
+import com.example.demo.model.Constants;
+import com.example.demo.model.IdempotencyRecord;
+import com.example.demo.model.IdempotentResponse;
+import com.example.demo.repo.IdempotencyRecordRepo;
+import com.example.demo.service.IdempotencyService;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepo idempotencyRecordRepo;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepo, 100, 2000, 24);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("borrower@example.com", null, AuthorityUtils.createAuthorityList("USER")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRetryReplaysTheFirstResponse() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        IdempotentResponse first = idempotencyService.execute("k1", "hash", () -> ok(runs, "Transfer successful"));
+        IdempotentResponse retry = idempotencyService.execute("k1", "hash", () -> ok(runs, "Transfer successful"));
+
+        assertEquals(1, runs.get());
+        assertSame(first, retry);
+        verify(idempotencyRecordRepo).claim(eq("k1"), eq("hash"), eq(Constants.PENDING), any(Date.class));
+        verify(idempotencyRecordRepo).complete(eq("k1"), eq(200), anyString(), eq("Transfer successful"), any(Date.class),
+                eq(Constants.PENDING), eq(Constants.COMPLETED));
+    }
+
+    @Test
+    void testConcurrentDuplicateWaitsForTheInFlightRequest() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotentResponse> first = CompletableFuture.supplyAsync(() -> call("k2", () -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ok(runs, "Pre-closure processed successfully");
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<IdempotentResponse> duplicate = CompletableFuture.supplyAsync(() -> call("k2", () -> ok(runs, "again")));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals("Pre-closure processed successfully", first.join().getBody());
+        assertEquals("Pre-closure processed successfully", duplicate.join().getBody());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testKeyReusedForAnotherRequestIsRejected() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        idempotencyService.execute("k3", "hash-a", () -> ok(runs, "Transfer successful"));
+        IdempotentResponse reused = idempotencyService.execute("k3", "hash-b", () -> ok(runs, "Transfer successful"));
+
+        assertEquals(422, reused.getStatus());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testServerErrorReleasesTheKey() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        IdempotentResponse failed = idempotencyService.execute("k4", "hash", () -> {
+            runs.incrementAndGet();
+            return new IdempotentResponse("hash", 500, "text/plain", "Pre-closure failed");
+        });
+        idempotencyService.execute("k4", "hash", () -> ok(runs, "Pre-closure processed successfully"));
+
+        assertEquals(500, failed.getStatus());
+        assertEquals(2, runs.get());
+        verify(idempotencyRecordRepo).release("k4", Constants.PENDING);
+    }
+
+    @Test
+    void testKeyCompletedOnAnotherNodeIsReplayedFromTheTable() throws Exception {
+        when(idempotencyRecordRepo.claim(eq("k5"), eq("hash"), eq(Constants.PENDING), any(Date.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+        IdempotencyRecord record = new IdempotencyRecord("k5", "hash", Constants.COMPLETED, 200, "text/plain",
+                "Transfer successful", new Date(), new Date());
+        when(idempotencyRecordRepo.findById("k5")).thenReturn(Optional.of(record));
+
+        AtomicInteger runs = new AtomicInteger();
+        IdempotentResponse replayed = idempotencyService.execute("k5", "hash", () -> ok(runs, "again"));
+
+        assertEquals("Transfer successful", replayed.getBody());
+        assertEquals(0, runs.get());
+        verify(idempotencyRecordRepo, never()).complete(anyString(), any(Integer.class), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testOtherIntegrityViolationIsNotTakenForAHeldKey() {
+        when(idempotencyRecordRepo.claim(eq("k6"), eq("hash"), eq(Constants.PENDING), any(Date.class)))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        AtomicInteger runs = new AtomicInteger();
+        assertThrows(DataIntegrityViolationException.class, () -> idempotencyService.execute("k6", "hash", () -> ok(runs, "again")));
+        assertEquals(0, runs.get());
+        verify(idempotencyRecordRepo, never()).findById(anyString());
+    }
+
+    @Test
+    void testFilterStoresLongKeysAsAFixedLengthHash() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyService, List.of("/banktransaction/transferFunds"));
+        AtomicInteger runs = new AtomicInteger();
+        HttpServlet endpoint = new HttpServlet() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                runs.incrementAndGet();
+            }
+        };
+
+        filter.doFilter(transferRequest("k".repeat(1000)), new MockHttpServletResponse(), new MockFilterChain(endpoint));
+
+        assertEquals(1, runs.get());
+        verify(idempotencyRecordRepo).claim(argThat(key -> key.length() == 64), anyString(), eq(Constants.PENDING), any(Date.class));
+    }
+
+    @Test
+    void testFilterRunsTheEndpointOnceAndMarksTheReplay() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyService, List.of("/banktransaction/transferFunds"));
+        AtomicInteger runs = new AtomicInteger();
+        HttpServlet endpoint = new HttpServlet() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                runs.incrementAndGet();
+                response.setContentType("text/plain");
+                response.getWriter().write("Transfer successful");
+            }
+        };
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(transferRequest("abc"), first, new MockFilterChain(endpoint));
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+        filter.doFilter(transferRequest("abc"), retry, new MockFilterChain(endpoint));
+        MockHttpServletResponse unkeyed = new MockHttpServletResponse();
+        filter.doFilter(transferRequest(null), unkeyed, new MockFilterChain(endpoint));
+
+        assertEquals("Transfer successful", first.getContentAsString());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED));
+        assertEquals("Transfer successful", retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED));
+        assertEquals(2, runs.get());
+        verify(idempotencyRecordRepo, times(1)).claim(anyString(), anyString(), eq(Constants.PENDING), any(Date.class));
+    }
+
+    @Test
+    void testFilterRefusesKeyedRequestsFromAnonymousCallers() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+        IdempotencyFilter filter = new IdempotencyFilter(idempotencyService, List.of("/banktransaction/transferFunds"));
+        AtomicInteger runs = new AtomicInteger();
+        HttpServlet endpoint = new HttpServlet() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                runs.incrementAndGet();
+            }
+        };
+
+        MockHttpServletResponse keyed = new MockHttpServletResponse();
+        filter.doFilter(transferRequest("abc"), keyed, new MockFilterChain(endpoint));
+        filter.doFilter(transferRequest(null), new MockHttpServletResponse(), new MockFilterChain(endpoint));
+
+        assertEquals(401, keyed.getStatus());
+        assertEquals(1, runs.get());
+        verify(idempotencyRecordRepo, never()).claim(anyString(), anyString(), anyString(), any(Date.class));
+    }
+
+    private static MockHttpServletRequest transferRequest(String idempotencyKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/banktransaction/transferFunds");
+        request.setParameter("accountNumber", "1");
+        request.setParameter("toAccNo", "2");
+        request.setParameter("amount", "500");
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY, idempotencyKey);
+        }
+        return request;
+    }
+
+    private IdempotentResponse call(String key, Callable<IdempotentResponse> action) {
+        try {
+            return idempotencyService.execute(key, "hash", action);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static IdempotentResponse ok(AtomicInteger runs, String body) {
+        runs.incrementAndGet();
+        return new IdempotentResponse("hash", 200, "text/plain", body);
+    }
+}
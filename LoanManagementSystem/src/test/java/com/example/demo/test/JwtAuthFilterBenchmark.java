@@ -0,0 +1,105 @@
+package com.example.demo.test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.demo.config.JwtAuthFilter;
+import com.example.demo.config.JwtService;
+import com.example.demo.service.UserDetailsCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Per-request cost of JwtAuthFilter with a valid bearer token, with the verified
+ * token cache off and on. The user lookup is a constant so only the token handling
+ * is measured. legacyThreeParses repeats what the filter used to do: three parses,
+ * each rebuilding the key and the parser.
+ * Run with: mvn clean test -Pbenchmark -Dtest=JwtAuthFilterBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+
+    @Param({ "0", "60000" })
+    public long cacheTtlMillis;
+
+    private JwtAuthFilter jwtAuthFilter;
+    private UserDetails userDetails;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        LogManager.getRootLogger().setLevel(Level.WARN);
+        JwtService jwtService = new JwtService(cacheTtlMillis, 10000);
+        userDetails = User.withUsername("ravi").password("x").authorities("USER").build();
+        jwtAuthFilter = new JwtAuthFilter(jwtService, username -> userDetails, new UserDetailsCache(60000, 10000));
+        token = jwtService.generateToken("ravi");
+        request = new MockHttpServletRequest("GET", "/loanCalculator/schedule");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        SecurityContextHolder.clearContext();
+        jwtAuthFilter.doFilter(request, response, new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String username = legacyClaims(token).getSubject();
+        Date expiration = legacyClaims(token).getExpiration();
+        return legacyClaims(token).getSubject().equals(userDetails.getUsername()) && username != null
+                && !expiration.before(new Date());
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        new Runner(new OptionsBuilder().include(JwtAuthFilterBenchmark.class.getName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
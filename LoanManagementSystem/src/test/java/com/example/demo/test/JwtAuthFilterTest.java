@@ -0,0 +1,87 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import com.example.demo.config.JwtAuthFilter;
+import com.example.demo.config.JwtService;
+import com.example.demo.service.UserDetailsCache;
+
+class JwtAuthFilterTest {
+
+    private JwtService jwtService;
+    private UserDetailsService userDetailsService;
+    private JwtAuthFilter jwtAuthFilter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(60000, 100);
+        userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("ravi"))
+                .thenReturn(User.withUsername("ravi").password("x").authorities("USER").build());
+        jwtAuthFilter = new JwtAuthFilter(jwtService, userDetailsService, new UserDetailsCache(60000, 100));
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testValidBearerTokenAuthenticatesTheRequest() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(request("Bearer " + jwtService.generateToken("ravi")), new MockHttpServletResponse(), chain);
+
+        assertEquals("ravi", SecurityContextHolder.getContext().getAuthentication().getName());
+        assertNotNull(chain.getRequest());
+        verify(userDetailsService, times(1)).loadUserByUsername("ravi");
+    }
+
+    @Test
+    void testRepeatRequestsLoadTheUserOnce() throws Exception {
+        String authorization = "Bearer " + jwtService.generateToken("ravi");
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            jwtAuthFilter.doFilter(request(authorization), new MockHttpServletResponse(), new MockFilterChain());
+            assertEquals("ravi", SecurityContextHolder.getContext().getAuthentication().getName());
+        }
+
+        verify(userDetailsService, times(1)).loadUserByUsername("ravi");
+    }
+
+    @Test
+    void testInvalidBearerTokenLeavesTheRequestAnonymous() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(request("Bearer not-a-token"), new MockHttpServletResponse(), chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(chain.getRequest());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/loanCalculator/schedule");
+        request.addHeader("Authorization", authorization);
+        return request;
+    }
+}
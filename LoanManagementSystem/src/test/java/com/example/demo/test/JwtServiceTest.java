@@ -0,0 +1,88 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.demo.config.JwtService;
+import com.example.demo.config.VerifiedToken;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+class JwtServiceTest {
+
+    private final UserDetails ravi = User.withUsername("ravi").password("x").authorities("USER").build();
+
+    @Test
+    void testVerifyReturnsTheClaimsOfAValidToken() {
+        JwtService jwtService = new JwtService(0, 0);
+        String token = jwtService.generateToken("ravi");
+
+        VerifiedToken verified = jwtService.verify(token);
+
+        assertEquals("ravi", verified.getUsername());
+        assertTrue(verified.getExpiration().after(new Date()));
+        assertTrue(jwtService.isValidFor(verified, ravi));
+        assertTrue(jwtService.validateToken(token, ravi));
+        assertEquals("ravi", jwtService.extractUsername(token));
+    }
+
+    @Test
+    void testForgedMalformedAndExpiredTokensAreRejected() {
+        JwtService jwtService = new JwtService(60000, 100);
+        String token = jwtService.generateToken("ravi");
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "AAAA";
+        String expired = Jwts.builder().setSubject("ravi")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtService.SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtService.verify(forged));
+        assertNull(jwtService.verify("not-a-token"));
+        assertNull(jwtService.verify(expired));
+        assertNull(jwtService.verify(null));
+        assertFalse(jwtService.validateToken(expired, ravi));
+    }
+
+    @Test
+    void testTokenOfAnotherUserIsNotValid() {
+        JwtService jwtService = new JwtService(0, 0);
+        UserDetails priya = User.withUsername("priya").password("x").authorities("USER").build();
+
+        assertFalse(jwtService.validateToken(jwtService.generateToken("ravi"), priya));
+    }
+
+    @Test
+    void testVerifiedTokensAreCachedOnlyWhenEnabled() {
+        JwtService cached = new JwtService(60000, 100);
+        JwtService uncached = new JwtService(0, 0);
+        String token = cached.generateToken("ravi");
+
+        assertSame(cached.verify(token), cached.verify(token));
+        assertNotSame(uncached.verify(token), uncached.verify(token));
+    }
+
+    @Test
+    void testCacheStaysWithinItsBound() {
+        JwtService jwtService = new JwtService(60000, 2);
+        String first = jwtService.generateToken("a");
+        VerifiedToken verified = jwtService.verify(first);
+        jwtService.verify(jwtService.generateToken("b"));
+        jwtService.verify(jwtService.generateToken("c"));
+
+        // The full cache was dropped to make room, so the first token is parsed again
+        assertNotSame(verified, jwtService.verify(first));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.example.demo.exception.InvalidCursorException;
+import com.example.demo.model.BankTransaction;
+import com.example.demo.model.Constants;
+import com.example.demo.model.KeysetPage;
+import com.example.demo.repo.BankTransactionRepo;
+import com.example.demo.service.BankTransactionService;
+
+/**
+ * Walks the keyset-paginated transaction listing on the embedded database.
+ */
+@DataJpaTest
+class KeysetPaginationTest {
+
+    private static final int TRANSACTIONS = 23;
+
+    @Autowired
+    private BankTransactionRepo bankTransactionRepo;
+
+    private BankTransactionService bankTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        bankTransactionService = new BankTransactionService(bankTransactionRepo, null, null, null);
+        List<BankTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactions.add(new BankTransaction(0, 1000 + i, 2000, Constants.TRANSFER, 100 + i, new Date(), 0,
+                    Constants.COMPLETED));
+        }
+        bankTransactionRepo.saveAll(transactions);
+    }
+
+    @Test
+    void testCursorWalksEveryRowOnceInKeyOrder() {
+        Set<Integer> seen = new HashSet<>();
+        int previous = Integer.MIN_VALUE;
+        int pages = 0;
+        String cursor = null;
+        do {
+            KeysetPage<BankTransaction> page = bankTransactionService.showTransactionInfoPage(cursor, 5);
+            for (BankTransaction transaction : page.getContent()) {
+                assertTrue(transaction.getTransactionId() > previous);
+                previous = transaction.getTransactionId();
+                seen.add(transaction.getTransactionId());
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(TRANSACTIONS, seen.size());
+        assertEquals(5, pages);
+    }
+
+    @Test
+    void testLastPageHasNoCursor() {
+        KeysetPage<BankTransaction> first = bankTransactionService.showTransactionInfoPage(null, 20);
+        assertEquals(20, first.getSize());
+        assertNotNull(first.getNextCursor());
+
+        KeysetPage<BankTransaction> last = bankTransactionService.showTransactionInfoPage(first.getNextCursor(), 20);
+        assertEquals(TRANSACTIONS - 20, last.getSize());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testPageSizeIsCapped() {
+        assertEquals(Constants.MAX_PAGE_SIZE, KeysetPage.limit(100_000).getPageSize());
+        assertEquals(1, KeysetPage.limit(0).getPageSize());
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        assertThrows(InvalidCursorException.class, () -> bankTransactionService.showTransactionInfoPage("not a cursor!", 5));
+        assertThrows(InvalidCursorException.class, () -> bankTransactionService.showTransactionInfoPage("YWJj", 5));
+    }
+}
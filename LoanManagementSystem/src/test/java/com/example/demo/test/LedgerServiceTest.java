@@ -0,0 +1,270 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.exception.LedgerConflictException;
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.Constants;
+import com.example.demo.model.DueInstallment;
+import com.example.demo.model.LedgerBalance;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.LedgerRepo;
+import com.example.demo.service.LedgerService;
+
+/**
+ * Runs the ledger mode against the embedded database: movements become postings,
+ * the account row is left alone until compaction, and concurrent writers on one
+ * account never overdraw it.
+ */
+@DataJpaTest
+@Import({ LedgerRepo.class, AutoDebitRepo.class })
+class LedgerServiceTest {
+
+    @Autowired
+    private AccountDetailsRepo accountDetailsRepo;
+    @Autowired
+    private AutoDebitRepo autoDebitRepo;
+    @Autowired
+    private LedgerRepo ledgerRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void movementsAppendBalancedJournalsAndLeaveTheAccountRowAlone() {
+        LedgerService ledgerService = ledger(50);
+        AccountDetails from = account(1000);
+        AccountDetails to = account(0);
+
+        assertTrue(ledgerService.transfer(from.getAccountNumber(), to.getAccountNumber(), 300, Constants.TRANSFER));
+        assertTrue(ledgerService.debitIfSufficient(from.getAccountNumber(), 200, Constants.MANUAL_PAYMENT));
+        ledgerService.credit(to.getAccountNumber(), 50, Constants.LOAN_DISBURSAL);
+        assertFalse(ledgerService.debitIfSufficient(from.getAccountNumber(), 501, Constants.MANUAL_PAYMENT));
+
+        assertEquals(500, ledgerService.balanceOf(from), 0.001);
+        assertEquals(350, ledgerService.balanceOf(to), 0.001);
+        // Three journals of two legs each, every journal sums to zero, and the bounced debit wrote nothing
+        assertEquals(6, count("SELECT COUNT(*) FROM LEDGERPOSTING"));
+        assertEquals(0, count("SELECT COUNT(*) FROM (SELECT JOURNALID FROM LEDGERPOSTING GROUP BY JOURNALID HAVING SUM(AMOUNT) <> 0) j"));
+        assertEquals(2, count("SELECT MAX(ACCOUNTSEQ) FROM LEDGERPOSTING WHERE ACCOUNTNUMBER = " + from.getAccountNumber()));
+        assertEquals(1000, storedBalance(from.getAccountNumber()), 0.001);
+    }
+
+    @Test
+    void compactionRollsTheTailIntoASnapshot() {
+        LedgerService ledgerService = ledger(3);
+        AccountDetails account = account(100);
+        for (int i = 0; i < 4; i++) {
+            ledgerService.credit(account.getAccountNumber(), 10, Constants.LOAN_DISBURSAL);
+        }
+
+        assertEquals(1, ledgerService.compact());
+        assertEquals(140, storedBalance(account.getAccountNumber()), 0.001);
+        assertEquals(4, count("SELECT LASTSEQ FROM BALANCESNAPSHOT WHERE ACCOUNTNUMBER = " + account.getAccountNumber()));
+
+        // Postings after the snapshot are added on top of it exactly once
+        ledgerService.debit(account.getAccountNumber(), 25, Constants.LOAN_REPAYMENT);
+        assertEquals(115, ledgerService.balanceOf(account), 0.001);
+        assertEquals(0, ledgerService.compact());
+
+        for (int i = 0; i < 3; i++) {
+            ledgerService.credit(account.getAccountNumber(), 1, Constants.LOAN_DISBURSAL);
+        }
+        assertEquals(1, ledgerService.compact());
+        assertEquals(118, storedBalance(account.getAccountNumber()), 0.001);
+        assertEquals(118, ledgerService.balanceOf(account), 0.001);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // each writer commits on its own
+    void concurrentDebitsOnOneAccountNeverOverdraw() throws Exception {
+        LedgerService ledgerService = ledger(50);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AccountDetails account = transactionTemplate.execute(status -> account(1000));
+        int accountNumber = account.getAccountNumber();
+
+        AtomicInteger debited = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        if (Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                                ledgerService.debitIfSufficient(accountNumber, 10, Constants.MANUAL_PAYMENT)))) {
+                            debited.incrementAndGet();
+                        }
+                    } catch (LedgerConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }, writers));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+            double balance = transactionTemplate.execute(status -> ledgerService.balanceOf(account));
+            assertEquals(100, debited.get() + (int) Math.round(balance / 10));
+            assertTrue(balance >= 0);
+            // Sequence numbers are gapless: one per successful debit
+            assertEquals(debited.get(), count("SELECT COUNT(DISTINCT ACCOUNTSEQ) FROM LEDGERPOSTING WHERE ACCOUNTNUMBER = " + accountNumber));
+            assertEquals(debited.get(), count("SELECT COALESCE(MAX(ACCOUNTSEQ), 0) FROM LEDGERPOSTING WHERE ACCOUNTNUMBER = " + accountNumber));
+        } finally {
+            writers.shutdownNow();
+            jdbcTemplate.update("DELETE FROM LEDGERPOSTING");
+            jdbcTemplate.update("DELETE FROM BALANCESNAPSHOT");
+            accountDetailsRepo.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // each writer commits on its own
+    void appendsSeeCommitsMadeAfterTheTransactionsSnapshot() {
+        RepeatableReadLedgerRepo repeatableReadRepo = new RepeatableReadLedgerRepo(jdbcTemplate);
+        LedgerService ledgerService = new LedgerService(accountDetailsRepo, autoDebitRepo, repeatableReadRepo, true, 50, 500, 3);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AccountDetails account = transactionTemplate.execute(status -> account(1000));
+        int accountNumber = account.getAccountNumber();
+
+        ExecutorService otherNode = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repeatableReadRepo.begin();
+                try {
+                    assertEquals(1000, ledgerService.balanceOf(account), 0.001);
+                    CompletableFuture.runAsync(() -> transactionTemplate.execute(other ->
+                            ledgerService.debitIfSufficient(accountNumber, 600, Constants.MANUAL_PAYMENT)), otherNode).join();
+
+                    // Neither the funds check nor the sequence may come from the stale snapshot
+                    assertEquals(1000, ledgerService.balanceOf(account), 0.001);
+                    assertFalse(ledgerService.debitIfSufficient(accountNumber, 500, Constants.MANUAL_PAYMENT));
+                    assertTrue(ledgerService.debitIfSufficient(accountNumber, 300, Constants.MANUAL_PAYMENT));
+                } finally {
+                    repeatableReadRepo.end();
+                }
+            });
+
+            assertEquals(100, transactionTemplate.execute(status -> ledgerService.balanceOf(account)), 0.001);
+            assertEquals(2, count("SELECT MAX(ACCOUNTSEQ) FROM LEDGERPOSTING WHERE ACCOUNTNUMBER = " + accountNumber));
+        } finally {
+            otherNode.shutdownNow();
+            jdbcTemplate.update("DELETE FROM LEDGERPOSTING");
+            jdbcTemplate.update("DELETE FROM BALANCESNAPSHOT");
+            accountDetailsRepo.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // each writer commits on its own
+    void appendsLeaveTheAccountRowUnlocked() {
+        LedgerService ledgerService = ledger(50);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AccountDetails account = transactionTemplate.execute(status -> account(1000));
+        int accountNumber = account.getAccountNumber();
+
+        ExecutorService otherWriter = Executors.newSingleThreadExecutor();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                assertTrue(ledgerService.debitIfSufficient(accountNumber, 100, Constants.MANUAL_PAYMENT));
+                assertEquals(1, ledgerService.debitAll(List.of(new DueInstallment(1, 1, 50, 500, Constants.AUTO_DEBIT,
+                        accountNumber, "ledger@example.com", "Ledger", "Test")))[0]);
+
+                // Still inside the appending transaction: the account row takes other writers at once
+                int updated = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(other -> jdbcTemplate.update(
+                        "UPDATE ACCOUNTDETAILS SET EMAIL = ? WHERE ACCOUNTNUMBER = ?", "moved@example.com", accountNumber)),
+                        otherWriter).join();
+                assertEquals(1, updated);
+            });
+
+            assertEquals(850, transactionTemplate.execute(status -> ledgerService.balanceOf(account)), 0.001);
+        } finally {
+            otherWriter.shutdownNow();
+            jdbcTemplate.update("DELETE FROM LEDGERPOSTING");
+            jdbcTemplate.update("DELETE FROM BALANCESNAPSHOT");
+            accountDetailsRepo.deleteAll();
+        }
+    }
+
+    private LedgerService ledger(int compactionThreshold) {
+        return new LedgerService(accountDetailsRepo, autoDebitRepo, ledgerRepo, true, compactionThreshold, 500, 3);
+    }
+
+    private AccountDetails account(double balance) {
+        AccountDetails account = new AccountDetails();
+        account.setFirstName("Ledger");
+        account.setLastName("Test");
+        account.setEmail("ledger@example.com");
+        account.setBalance(balance);
+        return accountDetailsRepo.save(account);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private double storedBalance(int accountNumber) {
+        return jdbcTemplate.queryForObject("SELECT BALANCE FROM ACCOUNTDETAILS WHERE ACCOUNTNUMBER = ?", Double.class, accountNumber);
+    }
+
+    /**
+     * Plays MySQL's REPEATABLE READ on top of H2: between begin() and end(), plain
+     * reads on a thread keep returning what its first read saw, while locking reads
+     * return the latest commits. H2's own REPEATABLE READ also hides later commits
+     * from locking reads, so it cannot tell the two apart.
+     */
+    static class RepeatableReadLedgerRepo extends LedgerRepo {
+
+        private final ThreadLocal<Map<Integer, LedgerBalance>> snapshot = new ThreadLocal<>();
+
+        RepeatableReadLedgerRepo(JdbcTemplate jdbcTemplate) {
+            super(jdbcTemplate);
+        }
+
+        void begin() {
+            snapshot.set(new HashMap<>());
+        }
+
+        void end() {
+            snapshot.remove();
+        }
+
+        @Override
+        public Map<Integer, LedgerBalance> findBalances(Collection<Integer> accountNumbers) {
+            Map<Integer, LedgerBalance> seen = snapshot.get();
+            if (seen == null) {
+                return super.findBalances(accountNumbers);
+            }
+            Map<Integer, LedgerBalance> balances = new HashMap<>();
+            for (Integer accountNumber : accountNumbers) {
+                LedgerBalance balance = seen.computeIfAbsent(accountNumber, n -> super.findBalances(List.of(n)).get(n));
+                if (balance != null) {
+                    balances.put(accountNumber, new LedgerBalance(accountNumber, balance.getBalance(), balance.getHeadSeq()));
+                }
+            }
+            return balances;
+        }
+    }
+}
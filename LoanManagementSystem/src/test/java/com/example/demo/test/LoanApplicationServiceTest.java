@@ -23,6 +23,7 @@ import com.example.demo.repo.AccountDetailsRepo;
 import com.example.demo.repo.LoanApplicationRepo;
 import com.example.demo.repo.LoanRepaymentsRepo;
 import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.service.AnnuityFactorCache;
 import com.example.demo.service.BankTransactionService;
 import com.example.demo.service.EmailService;
 import com.example.demo.service.LoanApplicationService;
@@ -55,7 +56,7 @@ class LoanApplicationServiceTest {
         // Instantiate the service using constructor injection
         loanApplicationService = new LoanApplicationService(
                 loanApplicationRepo, loanSanctionRepo, accountDetailsRepo,
-                loanRepaymentsRepo, emailService, bankTransactionService);
+                loanRepaymentsRepo, emailService, bankTransactionService, new AnnuityFactorCache());
 
         // Attach custom appender to the static logger in LoanApplicationService
         testAppender = new TestAppender();
@@ -216,7 +217,7 @@ class LoanApplicationServiceTest {
         when(loanApplicationRepo.save(any(LoanApplication.class))).thenReturn(loanApplication);
         // Assume no existing sanction for simplicity
         when(loanSanctionRepo.findByLoanId(1)).thenReturn(null);
-        when(loanRepaymentsRepo.save(any(LoanRepayments.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doNothing().when(loanRepaymentsRepo).saveAllInBatches(anyList());
         doNothing().when(bankTransactionService).creditLoanAmount(anyInt(), anyDouble());
         // Provide account details
         AccountDetails accDetails = new AccountDetails();
@@ -357,9 +358,24 @@ class LoanApplicationServiceTest {
         assertTrue(result);
         verify(loanApplicationRepo).findById(1);
         verify(loanApplicationRepo).save(mockLoanApplication);
-        verify(loanSanctionRepo).save(any(LoanSanction.class));
         verify(emailService).sendLoanStatusEmail(anyString(), anyString(), anyString(), anyDouble(), anyBoolean());
 
+        // Sanction starts with its repayment counters primed from the schedule
+        ArgumentCaptor<LoanSanction> sanctionCaptor = ArgumentCaptor.forClass(LoanSanction.class);
+        verify(loanSanctionRepo).save(sanctionCaptor.capture());
+        assertEquals(24, sanctionCaptor.getValue().getInstallmentsRemaining());
+        assertEquals(100000.0, sanctionCaptor.getValue().getOutstandingPrincipal());
+        assertEquals(sanctionCaptor.getValue().getLoanStartDate(), sanctionCaptor.getValue().getNextDueDate());
+
+        // The whole 24 month schedule is handed to the repository in a single batched call
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LoanRepayments>> scheduleCaptor = ArgumentCaptor.forClass(List.class);
+        verify(loanRepaymentsRepo, times(1)).saveAllInBatches(scheduleCaptor.capture());
+        verify(loanRepaymentsRepo, never()).save(any(LoanRepayments.class));
+        List<LoanRepayments> schedule = scheduleCaptor.getValue();
+        assertEquals(24, schedule.size());
+        assertEquals(100000.0, schedule.get(0).getDueLoanAmount());
+        assertEquals(Constants.PENDING, schedule.get(23).getPaymentStatus());
     }
 
         @Test
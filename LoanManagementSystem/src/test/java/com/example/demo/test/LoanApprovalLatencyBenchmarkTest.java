@@ -0,0 +1,107 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.apache.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.LoanApplication;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.LedgerRepo;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.repo.LoanRepaymentsRepo;
+import com.example.demo.service.AccountShardEngine;
+import com.example.demo.service.AnnuityFactorCache;
+import com.example.demo.service.BankTransactionService;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.LedgerService;
+import com.example.demo.service.LoanApplicationService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Measures acceptLoan latency against loan tenure on the embedded database.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ LoanApplicationService.class, BankTransactionService.class, AccountShardEngine.class, AnnuityFactorCache.class,
+        LedgerService.class, LedgerRepo.class, AutoDebitRepo.class })
+class LoanApprovalLatencyBenchmarkTest {
+
+    private static final Logger logger = Logger.getLogger(LoanApprovalLatencyBenchmarkTest.class);
+
+    private static final int[] TENURES_IN_YEARS = { 1, 5, 10, 20, 30 };
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Autowired
+    private LoanApplicationService loanApplicationService;
+    @Autowired
+    private LoanApplicationRepo loanApplicationRepo;
+    @Autowired
+    private LoanRepaymentsRepo loanRepaymentsRepo;
+    @Autowired
+    private AccountDetailsRepo accountDetailsRepo;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private int nextLoanId = 1;
+
+    @Test
+    void approvalLatencyByTenure() {
+        AccountDetails account = new AccountDetails();
+        account.setFirstName("Bench");
+        account.setLastName("Mark");
+        account.setEmail("bench@example.com");
+        account.setBalance(0);
+        int accountNumber = accountDetailsRepo.save(account).getAccountNumber();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        logger.info(String.format("%-8s %-8s %-14s %-12s", "YEARS", "MONTHS", "AVG_MILLIS", "STATEMENTS"));
+        for (int years : TENURES_IN_YEARS) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                approve(accountNumber, years);
+            }
+
+            statistics.clear();
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                int loanId = approve(accountNumber, years);
+                assertEquals(years * 12, loanRepaymentsRepo.findByLoanId(loanId).size());
+            }
+            double avgMillis = (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+            long statementsPerApproval = statistics.getPrepareStatementCount() / MEASURED_ROUNDS;
+
+            logger.info(String.format("%-8d %-8d %-14.3f %-12d", years, years * 12, avgMillis, statementsPerApproval));
+        }
+    }
+
+    private int approve(int accountNumber, int years) {
+        LoanApplication loanApplication = new LoanApplication();
+        loanApplication.setLoanId(nextLoanId++);
+        loanApplication.setAccountNumber(accountNumber);
+        loanApplication.setLoanAmount(2500000);
+        loanApplication.setLoanType("HOME");
+        loanApplication.setEmployType("SALARIED");
+        loanApplication.setInterestRate(8.5);
+        loanApplication.setTenure(years);
+        loanApplicationRepo.save(loanApplication);
+
+        loanApplicationService.acceptLoan(loanApplication.getLoanId());
+        return loanApplication.getLoanId();
+    }
+}
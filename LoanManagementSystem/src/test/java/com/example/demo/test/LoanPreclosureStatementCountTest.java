@@ -0,0 +1,129 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.Constants;
+import com.example.demo.model.LoanApplication;
+import com.example.demo.model.LoanRepayments;
+import com.example.demo.model.LoanSanction;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.LedgerRepo;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.repo.LoanRepaymentsRepo;
+import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.LedgerService;
+import com.example.demo.service.LoanRepaymentsService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pre-closure must cost a fixed number of statements, independent of how many
+ * installments are still pending.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ LoanRepaymentsService.class, LedgerService.class, LedgerRepo.class, AutoDebitRepo.class })
+class LoanPreclosureStatementCountTest {
+
+    @Autowired
+    private LoanRepaymentsService loanRepaymentsService;
+    @Autowired
+    private LoanApplicationRepo loanApplicationRepo;
+    @Autowired
+    private LoanSanctionRepo loanSanctionRepo;
+    @Autowired
+    private LoanRepaymentsRepo loanRepaymentsRepo;
+    @Autowired
+    private AccountDetailsRepo accountDetailsRepo;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Test
+    void preclosureStatementCountDoesNotGrowWithTenure() {
+        long shortLoan = preclose(1, 12);
+        long longLoan = preclose(2, 360);
+
+        assertEquals(shortLoan, longLoan);
+        assertTrue(longLoan <= 7, "pre-closure issued " + longLoan + " statements");
+    }
+
+    @Test
+    void preclosureSettlesScheduleAndDebitsAccount() {
+        preclose(3, 24);
+
+        assertTrue(loanRepaymentsRepo.findByLoanIdAndPaymentStatus(3, Constants.PENDING).isEmpty());
+        assertEquals(Constants.CLOSED, loanApplicationRepo.findById(3).get().getStatus());
+        LoanSanction loanSanction = loanSanctionRepo.findByLoanId(3);
+        assertEquals(Constants.CLOSED, loanSanction.getSanctionStatus());
+        assertEquals(0, loanSanction.getInstallmentsRemaining());
+        assertEquals(0.0, accountDetailsRepo.findAll().get(0).getBalance(), 0.001);
+    }
+
+    // Seeds a loan with the given number of pending installments and returns the statements pre-closure used
+    private long preclose(int loanId, int pendingInstallments) {
+        AccountDetails account = new AccountDetails();
+        account.setFirstName("Pre");
+        account.setLastName("Closure");
+        account.setEmail("preclosure@example.com");
+        account.setBalance(50000);
+        int accountNumber = accountDetailsRepo.save(account).getAccountNumber();
+
+        LoanApplication loanApplication = new LoanApplication();
+        loanApplication.setLoanId(loanId);
+        loanApplication.setAccountNumber(accountNumber);
+        loanApplication.setLoanAmount(50000);
+        loanApplication.setStatus(Constants.APPROVED);
+        loanApplicationRepo.save(loanApplication);
+
+        LoanSanction loanSanction = new LoanSanction();
+        loanSanction.setLoanId(loanId);
+        loanSanction.setSanctionStatus(Constants.APPROVED);
+        loanSanction.setInstallmentsRemaining(pendingInstallments);
+        loanSanctionRepo.save(loanSanction);
+
+        Calendar calendar = Calendar.getInstance();
+        List<LoanRepayments> schedule = new ArrayList<>();
+        for (int month = 0; month < pendingInstallments; month++) {
+            LoanRepayments repayment = new LoanRepayments();
+            repayment.setLoanId(loanId);
+            repayment.setPaymentDate(calendar.getTime());
+            repayment.setPaymentAmount(1000);
+            repayment.setDueLoanAmount(50000 - 1000.0 * month);
+            repayment.setPaymentStatus(Constants.PENDING);
+            schedule.add(repayment);
+            calendar.add(Calendar.MONTH, 1);
+        }
+        loanRepaymentsRepo.saveAllInBatches(schedule);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        loanRepaymentsService.processPreclosure(loanId, accountNumber, 50000, "ONLINE");
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        return statements;
+    }
+}
@@ -7,6 +7,8 @@ import static org.mockito.Mockito.never;
 
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,18 +17,20 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import com.example.demo.model.*;
 import com.example.demo.repo.*;
 import com.example.demo.service.EmailService;
+import com.example.demo.service.LedgerService;
 import com.example.demo.service.LoanRepaymentsService;
 import com.example.demo.exception.*;
 import org.apache.log4j.Logger;
@@ -51,11 +55,13 @@ import org.apache.log4j.Logger;
     
     @Mock
     private LoanSanctionRepo loanSanctionRepo;
+
+    @Mock
+    private LedgerRepo ledgerRepo;
     
     @Mock
     private Logger logger;
 
-    @InjectMocks
     private LoanRepaymentsService loanRepaymentsService;
 
     private LoanRepayments sampleRepayment;
@@ -67,6 +73,10 @@ import org.apache.log4j.Logger;
 
     @BeforeEach
     void setUp() {
+        loanRepaymentsService = new LoanRepaymentsService(loanRepaymentsRepo, loanApplicationRepo, bankTransactionRepo,
+                accountDetailsRepo, emailService, loanSanctionRepo,
+                new LedgerService(accountDetailsRepo, null, null, false, 50, 500, 3));
+
         // Initialize sample data
         sampleRepayment = new LoanRepayments();
         sampleRepayment.setPaymentId(1);
@@ -134,12 +144,12 @@ import org.apache.log4j.Logger;
         when(loanApplicationRepo.findById(anyInt())).thenReturn(Optional.of(sampleLoanApplication));
         when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(sampleAccountDetails);
         when(loanRepaymentsRepo.save(any())).thenReturn(sampleRepayment);
-        when(accountDetailsRepo.save(any())).thenReturn(sampleAccountDetails);
 
         assertDoesNotThrow(() -> loanRepaymentsService.processNormalRepayments(sampleRepayment));
 
         verify(loanRepaymentsRepo).save(any(LoanRepayments.class));
-        verify(accountDetailsRepo).save(any(AccountDetails.class));
+        verify(accountDetailsRepo).debit(12345, 1000.0);
+        verify(accountDetailsRepo, never()).save(any(AccountDetails.class));
     }
     @Test
     public void testProcessNormalRepayments_loanNotFound_logsError() {
@@ -200,30 +210,45 @@ import org.apache.log4j.Logger;
 
     @Test
     void testProcessPreclosure() {
-        when(loanApplicationRepo.findById(anyInt())).thenReturn(Optional.of(sampleLoanApplication));
+        when(loanApplicationRepo.updateStatus(1, Constants.CLOSED)).thenReturn(1);
         when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(sampleAccountDetails);
-        when(loanRepaymentsRepo.findByLoanIdAndPaymentStatus(anyInt(), anyString()))
-            .thenReturn(Arrays.asList(sampleRepayment));
-        when(loanSanctionRepo.findByLoanId(anyInt())).thenReturn(sampleLoanSanction);
+        when(accountDetailsRepo.debitIfSufficient(12345, 5000.0)).thenReturn(1);
+        when(loanRepaymentsRepo.settlePendingInstallments(1, "ONLINE", Constants.PENDING, Constants.COMPLETED))
+            .thenReturn(24);
 
         assertDoesNotThrow(() -> 
             loanRepaymentsService.processPreclosure(1, 12345, 5000.0, "ONLINE")
         );
 
         verify(bankTransactionRepo).save(any(BankTransaction.class));
-        verify(accountDetailsRepo).save(any(AccountDetails.class));
-        verify(loanRepaymentsRepo).save(any(LoanRepayments.class));
+        verify(loanRepaymentsRepo).settlePendingInstallments(1, "ONLINE", Constants.PENDING, Constants.COMPLETED);
+        verify(loanSanctionRepo).closeSettled(1, Constants.CLOSED);
+        // Set-based: no per-installment or per-entity saves
+        verify(loanRepaymentsRepo, never()).save(any(LoanRepayments.class));
+        verify(accountDetailsRepo, never()).save(any(AccountDetails.class));
     }
 
     @Test
     void testProcessPreclosureInsufficientBalance() {
-        sampleAccountDetails.setBalance(1000.0); // Set insufficient balance
-        when(loanApplicationRepo.findById(anyInt())).thenReturn(Optional.of(sampleLoanApplication));
+        when(loanApplicationRepo.updateStatus(1, Constants.CLOSED)).thenReturn(1);
         when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(sampleAccountDetails);
+        when(accountDetailsRepo.debitIfSufficient(12345, 5000.0)).thenReturn(0); // Balance does not cover the amount
 
         assertThrows(InsufficientBalanceException.class, () ->
             loanRepaymentsService.processPreclosure(1, 12345, 5000.0, "ONLINE")
         );
+        verify(bankTransactionRepo, never()).save(any(BankTransaction.class));
+        verify(loanRepaymentsRepo, never()).settlePendingInstallments(anyInt(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testProcessPreclosureLoanNotFound() {
+        when(loanApplicationRepo.updateStatus(1, Constants.CLOSED)).thenReturn(0);
+
+        assertThrows(LoanApplicationNotFoundException.class, () ->
+            loanRepaymentsService.processPreclosure(1, 12345, 5000.0, "ONLINE")
+        );
+        verify(accountDetailsRepo, never()).debitIfSufficient(anyInt(), anyDouble());
     }
 
     @Test
@@ -250,21 +275,40 @@ import org.apache.log4j.Logger;
 
     @Test
     void testProcessLoanDueReminders() {
-        List<LoanRepayments> overdueRepayments = Arrays.asList(sampleRepayment);
-        when(loanRepaymentsRepo.findByPaymentDateBeforeAndPaymentStatus(any(Date.class), anyString()))
-            .thenReturn(overdueRepayments);
-        when(loanApplicationRepo.findById(anyInt())).thenReturn(Optional.of(sampleLoanApplication));
-        when(accountDetailsRepo.findByAccountNumber(anyInt())).thenReturn(sampleAccountDetails);
-
-        assertDoesNotThrow(() -> loanRepaymentsService.processLoanDueReminders());
+        LoanRepaymentsService service = new LoanRepaymentsService(loanRepaymentsRepo, loanApplicationRepo,
+                bankTransactionRepo, accountDetailsRepo, emailService, loanSanctionRepo,
+                new LedgerService(accountDetailsRepo, null, null, false, 50, 500, 3));
+        // Two overdue installments for account 1001 and one for account 1002, in keyset order
+        List<OverdueReminderView> page = Arrays.asList(
+                reminderRow(10, 1, 1001), reminderRow(11, 1, 1001), reminderRow(12, 2, 1002));
+        when(loanRepaymentsRepo.findOverdueReminderPage(eq(Constants.PENDING), any(Date.class),
+                anyInt(), anyInt(), any(Pageable.class))).thenReturn(page);
+
+        assertDoesNotThrow(service::processLoanDueReminders);
+
+        // One query for the whole page and no per-row lookups
+        verify(loanRepaymentsRepo, times(1)).findOverdueReminderPage(eq(Constants.PENDING), any(Date.class),
+                anyInt(), anyInt(), any(Pageable.class));
+        verify(loanApplicationRepo, never()).findById(anyInt());
+        verify(accountDetailsRepo, never()).findByAccountNumber(anyInt());
+
+        // One grouped mail per borrower, queued together for the page
+        verify(emailService, times(1)).sendLoanDueReminders(argThat(borrowers -> borrowers.size() == 2
+                && borrowers.get(0).size() == 2 && borrowers.get(0).get(0).getAccountNumber() == 1001
+                && borrowers.get(1).size() == 1 && borrowers.get(1).get(0).getAccountNumber() == 1002));
+    }
 
-        try {
-			verify(emailService).sendLoanDueReminder(
-			    anyString(), anyString(), anyInt(), any(Double.class), any(Date.class)
-			);
-		} catch (EmailSendingException e) {
-			e.printStackTrace();
-		}
+    private static OverdueReminderView reminderRow(int paymentId, int loanId, int accountNumber) {
+        return new OverdueReminderView() {
+            public int getPaymentId() { return paymentId; }
+            public int getLoanId() { return loanId; }
+            public Date getPaymentDate() { return new Date(); }
+            public double getDueLoanAmount() { return 5000.0; }
+            public int getAccountNumber() { return accountNumber; }
+            public String getEmail() { return "borrower" + accountNumber + "@example.com"; }
+            public String getFirstName() { return "First"; }
+            public String getLastName() { return "Last"; }
+        };
     }
     @Test
      void testAddRepayment() {
@@ -482,17 +526,52 @@ import org.apache.log4j.Logger;
         when(loanRepaymentsRepo.findById(100)).thenReturn(Optional.of(repaymentDb));
         when(loanApplicationRepo.findById(1)).thenReturn(Optional.of(loanApplication));
         when(accountDetailsRepo.findByAccountNumber(12345)).thenReturn(accountDetails);
-        when(loanSanctionRepo.findByLoanId(1)).thenReturn(loanSanction);
-        when(loanRepaymentsService.getRepaymentsForLoan(1)).thenReturn(Arrays.asList(repaymentDb)); // Mock repayments for the loan
+        when(loanSanctionRepo.recordInstallmentSettled(1, Constants.PENDING)).thenReturn(1); // Last installment booked
+        when(loanSanctionRepo.closeIfSettled(1, Constants.CLOSED)).thenReturn(1); // Counter reached zero
 
         // Act
         loanRepaymentsService.processNormalRepayments(repayment);
 
         // Assert
-        verify(accountDetailsRepo, times(1)).save(accountDetails); // Verify balance was updated
-        assertEquals(Constants.CLOSED, loanSanction.getSanctionStatus()); // Check that the loan was closed
-        verify(loanSanctionRepo, times(1)).save(loanSanction); // Verify the loan sanction status was updated
-        verify(loanRepaymentsService, times(1)).initiateRepayment(repayment); // Verify the repayment process was initiated
+        verify(accountDetailsRepo, times(1)).debit(12345, 1000); // Verify balance was updated
+        verify(loanSanctionRepo, times(1)).recordInstallmentSettled(1, Constants.PENDING);
+        verify(loanSanctionRepo, times(1)).closeIfSettled(1, Constants.CLOSED); // Closure is a single conditional update
+        verify(loanSanctionRepo, never()).initializeCounters(anyInt(), anyString());
+        verify(loanRepaymentsRepo, never()).findRepaymentsByLoanIdAndPaymentDateBetween(anyInt(), any(), any()); // Schedule is not rescanned
+    }
+
+    @Test
+    void testProcessNormalRepayments_ledgerModeRecordsTheBalanceLeft() {
+        LoanRepaymentsService ledgerModeService = new LoanRepaymentsService(loanRepaymentsRepo, loanApplicationRepo,
+                bankTransactionRepo, accountDetailsRepo, emailService, loanSanctionRepo,
+                new LedgerService(accountDetailsRepo, null, ledgerRepo, true, 50, 500, 3));
+        LoanRepayments repayment = new LoanRepayments();
+        repayment.setPaymentId(100);
+        repayment.setLoanId(1);
+        repayment.setPaymentStatus(Constants.COMPLETED);
+        repayment.setPaymentAmount(1000);
+        repayment.setDueLoanAmount(5000);
+
+        LoanRepayments repaymentDb = new LoanRepayments();
+        repaymentDb.setPaymentId(100);
+        repaymentDb.setPaymentStatus(Constants.PENDING);
+        repaymentDb.setPaymentAmount(1000);
+
+        when(loanRepaymentsRepo.findById(100)).thenReturn(Optional.of(repaymentDb));
+        when(loanApplicationRepo.findById(1)).thenReturn(Optional.of(sampleLoanApplication));
+        when(accountDetailsRepo.findByAccountNumber(12345)).thenReturn(sampleAccountDetails);
+        when(loanSanctionRepo.recordInstallmentSettled(1, Constants.PENDING)).thenReturn(1);
+        // A read after the debit would already include it
+        when(ledgerRepo.findBalances(List.of(12345)))
+                .thenReturn(Map.of(12345, new LedgerBalance(12345, 10000, 4)))
+                .thenReturn(Map.of(12345, new LedgerBalance(12345, 9000, 5)));
+        when(ledgerRepo.findBalanceForUpdate(12345)).thenReturn(new LedgerBalance(12345, 10000, 4));
+
+        ledgerModeService.processNormalRepayments(repayment);
+
+        verify(ledgerRepo, times(2)).insertPostings(any());
+        verify(accountDetailsRepo, never()).debit(anyInt(), anyDouble());
+        verify(bankTransactionRepo).save(argThat(t -> t.getBalanceAfterTransaction() == 9000.0));
     }
 
     @Test
@@ -525,6 +604,7 @@ import org.apache.log4j.Logger;
         LoanRepayments repaymentDb = new LoanRepayments();
         repaymentDb.setPaymentId(100);
         repaymentDb.setPaymentStatus(Constants.PENDING);
+        repaymentDb.setPaymentAmount(1000);
 
         LoanApplication loanApplication = new LoanApplication();
         loanApplication.setLoanId(1);
@@ -541,16 +621,51 @@ import org.apache.log4j.Logger;
         when(loanRepaymentsRepo.findById(100)).thenReturn(Optional.of(repaymentDb));
         when(loanApplicationRepo.findById(1)).thenReturn(Optional.of(loanApplication));
         when(accountDetailsRepo.findByAccountNumber(12345)).thenReturn(accountDetails);
-        when(loanSanctionRepo.findByLoanId(1)).thenReturn(loanSanction);
-        when(loanRepaymentsService.getRepaymentsForLoan(1)).thenReturn(Arrays.asList(repaymentDb, repayment)); // Mock repayments for the loan
+        when(loanSanctionRepo.recordInstallmentSettled(1, Constants.PENDING)).thenReturn(1);
+        when(loanSanctionRepo.closeIfSettled(1, Constants.CLOSED)).thenReturn(0); // Installments still remaining
 
         // Act
         loanRepaymentsService.processNormalRepayments(repayment);
 
         // Assert
-        verify(accountDetailsRepo, times(1)).save(accountDetails); // Verify balance was updated
+        verify(accountDetailsRepo, times(1)).debit(12345, 1000); // Verify balance was updated
         assertEquals(Constants.ACTIVE, loanSanction.getSanctionStatus()); // Loan should still be active
         verify(loanSanctionRepo, never()).save(loanSanction); // Loan sanction should not be updated
-        verify(loanRepaymentsService, times(1)).initiateRepayment(repayment); // Verify the repayment process was initiated
+        verify(loanSanctionRepo, times(1)).recordInstallmentSettled(1, Constants.PENDING);
+    }
+
+    @Test
+     void testProcessNormalRepayments_legacySanctionInitializesCounters() {
+        // Arrange
+        LoanRepayments repayment = new LoanRepayments();
+        repayment.setPaymentId(100);
+        repayment.setLoanId(1);
+        repayment.setPaymentStatus(Constants.COMPLETED);
+        repayment.setPaymentAmount(1000);
+
+        LoanRepayments repaymentDb = new LoanRepayments();
+        repaymentDb.setPaymentId(100);
+        repaymentDb.setPaymentStatus(Constants.PENDING);
+        repaymentDb.setPaymentAmount(1000);
+
+        LoanApplication loanApplication = new LoanApplication();
+        loanApplication.setLoanId(1);
+        loanApplication.setAccountNumber(12345);
+
+        AccountDetails accountDetails = new AccountDetails();
+        accountDetails.setAccountNumber(12345);
+        accountDetails.setBalance(2000);
+
+        when(loanRepaymentsRepo.findById(100)).thenReturn(Optional.of(repaymentDb));
+        when(loanApplicationRepo.findById(1)).thenReturn(Optional.of(loanApplication));
+        when(accountDetailsRepo.findByAccountNumber(12345)).thenReturn(accountDetails);
+        when(loanSanctionRepo.recordInstallmentSettled(1, Constants.PENDING)).thenReturn(0); // Counters not set yet
+
+        // Act
+        loanRepaymentsService.processNormalRepayments(repayment);
+
+        // Assert
+        verify(loanSanctionRepo, times(1)).initializeCounters(1, Constants.PENDING);
+        verify(loanSanctionRepo, times(1)).closeIfSettled(1, Constants.CLOSED);
     }
 }
\ No newline at end of file
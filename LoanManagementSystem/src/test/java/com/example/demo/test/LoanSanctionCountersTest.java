@@ -0,0 +1,144 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.Constants;
+import com.example.demo.model.LoanApplication;
+import com.example.demo.model.LoanRepayments;
+import com.example.demo.model.LoanSanction;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.AutoDebitRepo;
+import com.example.demo.repo.LedgerRepo;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.repo.LoanRepaymentsRepo;
+import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.LedgerService;
+import com.example.demo.service.LoanRepaymentsService;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * The sanction's running counters must follow the amortization schedule: after a
+ * repayment the outstanding principal is the balance the next installment carries,
+ * not the old figure less an installment that also paid interest.
+ */
+@DataJpaTest
+@Import({ LoanRepaymentsService.class, LedgerService.class, LedgerRepo.class, AutoDebitRepo.class })
+class LoanSanctionCountersTest {
+
+    // 3000 at 1% a month over three months
+    private static final double INSTALLMENT = 1020.07;
+    private static final double[] BALANCES = { 3000.00, 2009.93, 1009.96 };
+
+    @Autowired
+    private LoanRepaymentsService loanRepaymentsService;
+    @Autowired
+    private LoanApplicationRepo loanApplicationRepo;
+    @Autowired
+    private LoanSanctionRepo loanSanctionRepo;
+    @Autowired
+    private LoanRepaymentsRepo loanRepaymentsRepo;
+    @Autowired
+    private AccountDetailsRepo accountDetailsRepo;
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    @Test
+    void repaymentLeavesTheNextAmortizedBalanceOutstanding() {
+        List<LoanRepayments> schedule = loan(1, 3);
+
+        repay(schedule.get(0));
+
+        LoanSanction loanSanction = loanSanctionRepo.findByLoanId(1);
+        assertEquals(2, loanSanction.getInstallmentsRemaining());
+        assertEquals(BALANCES[1], loanSanction.getOutstandingPrincipal(), 0.001);
+        assertEquals(schedule.get(1).getPaymentDate().getTime(), loanSanction.getNextDueDate().getTime());
+    }
+
+    @Test
+    void bookedCountersMatchCountersDerivedFromTheSchedule() {
+        repay(loan(1, 3).get(0));
+        repay(loan(2, 3).get(0));
+        // Loan 2 as a sanction approved before the counters existed
+        LoanSanction legacy = loanSanctionRepo.findByLoanId(2);
+        legacy.setInstallmentsRemaining(null);
+        legacy.setOutstandingPrincipal(null);
+        loanSanctionRepo.saveAndFlush(legacy);
+        loanSanctionRepo.initializeCounters(2, Constants.PENDING);
+        entityManager.clear();
+
+        LoanSanction booked = loanSanctionRepo.findByLoanId(1);
+        LoanSanction derived = loanSanctionRepo.findByLoanId(2);
+        assertEquals(derived.getInstallmentsRemaining(), booked.getInstallmentsRemaining());
+        assertEquals(derived.getOutstandingPrincipal(), booked.getOutstandingPrincipal(), 0.001);
+    }
+
+    private List<LoanRepayments> loan(int loanId, int installments) {
+        AccountDetails account = new AccountDetails();
+        account.setFirstName("Counter");
+        account.setLastName("Test");
+        account.setEmail("counters@example.com");
+        account.setBalance(10000);
+        int accountNumber = accountDetailsRepo.save(account).getAccountNumber();
+
+        LoanApplication loanApplication = new LoanApplication();
+        loanApplication.setLoanId(loanId);
+        loanApplication.setAccountNumber(accountNumber);
+        loanApplication.setLoanAmount(BALANCES[0]);
+        loanApplication.setStatus(Constants.APPROVED);
+        loanApplicationRepo.save(loanApplication);
+
+        Calendar calendar = Calendar.getInstance();
+        LoanSanction loanSanction = new LoanSanction();
+        loanSanction.setLoanId(loanId);
+        loanSanction.setSanctionStatus(Constants.APPROVED);
+        loanSanction.setInstallmentsRemaining(installments);
+        loanSanction.setOutstandingPrincipal(BALANCES[0]);
+        loanSanction.setNextDueDate(calendar.getTime());
+        loanSanctionRepo.save(loanSanction);
+
+        List<LoanRepayments> schedule = new ArrayList<>();
+        for (int month = 0; month < installments; month++) {
+            LoanRepayments repayment = new LoanRepayments();
+            repayment.setLoanId(loanId);
+            repayment.setPaymentDate(calendar.getTime());
+            repayment.setPaymentAmount(INSTALLMENT);
+            repayment.setDueLoanAmount(BALANCES[month]);
+            repayment.setPaymentMode("LOAN_REPAYMENT");
+            repayment.setPaymentStatus(Constants.PENDING);
+            schedule.add(repayment);
+            calendar.add(Calendar.MONTH, 1);
+        }
+        loanRepaymentsRepo.saveAllInBatches(schedule);
+        entityManager.flush();
+        entityManager.clear();
+        return schedule;
+    }
+
+    private void repay(LoanRepayments installment) {
+        LoanRepayments repayment = new LoanRepayments();
+        repayment.setPaymentId(installment.getPaymentId());
+        repayment.setLoanId(installment.getLoanId());
+        repayment.setPaymentAmount(installment.getPaymentAmount());
+        repayment.setPaymentMode("ONLINE");
+        repayment.setPaymentStatus(Constants.COMPLETED);
+        loanRepaymentsService.processNormalRepayments(repayment);
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.demo.model.KeysetPage;
+import com.example.demo.model.LoanApplication;
+import com.example.demo.model.LoanSanction;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.service.AmortizationKernel;
+import com.example.demo.service.AnnuityFactorCache;
+import com.example.demo.service.LoanSanctionService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Guards the sanction listings against N+1 queries: however many sanctions there
+ * are, each listing is a single statement.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class LoanSanctionQueryCountTest {
+
+    private static final int SANCTIONS = 40;
+
+    @Autowired
+    private LoanSanctionRepo loanSanctionRepo;
+    @Autowired
+    private LoanApplicationRepo loanApplicationRepo;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private LoanSanctionService loanSanctionService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        loanSanctionService = new LoanSanctionService(loanSanctionRepo, loanApplicationRepo, new AnnuityFactorCache());
+        List<LoanSanction> sanctions = new ArrayList<>();
+        for (int i = 0; i < SANCTIONS; i++) {
+            LoanApplication application = new LoanApplication();
+            application.setLoanId(i + 1);
+            application.setAccountNumber(1000 + i);
+            application.setLoanType("HOME");
+            application.setLoanAmount(100000 + i);
+            application.setTenure(1 + i % 30);
+            application.setInterestRate(8.5);
+            application.setStatus("APPROVED");
+            application = loanApplicationRepo.save(application);
+
+            LoanSanction sanction = new LoanSanction();
+            sanction.setLoanId(application.getLoanId());
+            sanction.setInterestRate(8.5);
+            sanction.setSanctionStatus("APPROVED");
+            sanctions.add(sanction);
+        }
+        // One sanction whose application is gone
+        LoanSanction orphan = new LoanSanction();
+        orphan.setLoanId(-1);
+        orphan.setInterestRate(8.5);
+        orphan.setSanctionStatus("APPROVED");
+        sanctions.add(orphan);
+        loanSanctionRepo.saveAll(sanctions);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testShowIsOneStatement() {
+        List<LoanSanction> sanctions = loanSanctionService.show();
+
+        assertEquals(SANCTIONS + 1, sanctions.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        for (LoanSanction sanction : sanctions) {
+            assertEquals(expectedInstallment(sanction), sanction.getMonthlyInstallmentsAmount(), 1e-9);
+        }
+    }
+
+    @Test
+    void testSearchBySanctionStatusIsOneStatement() {
+        List<LoanSanction> sanctions = loanSanctionService.searchBySanctionStatus("APPROVED");
+
+        assertEquals(SANCTIONS + 1, sanctions.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testEveryPageIsOneStatement() {
+        int seen = 0;
+        int pages = 0;
+        String cursor = null;
+        do {
+            KeysetPage<LoanSanction> page = loanSanctionService.showPage(cursor, 10);
+            seen += page.getSize();
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(SANCTIONS + 1, seen);
+        assertEquals(pages, statistics.getPrepareStatementCount());
+        assertNull(cursor);
+    }
+
+    // What the per-row lookup used to compute for the sanction
+    private double expectedInstallment(LoanSanction sanction) {
+        LoanApplication application = entityManager.find(LoanApplication.class, sanction.getLoanId());
+        if (application == null) {
+            return 0.0;
+        }
+        return AmortizationKernel.installment(application.getLoanAmount(),
+                AmortizationKernel.monthlyRate(sanction.getInterestRate()), application.getTenure() * 12);
+    }
+}
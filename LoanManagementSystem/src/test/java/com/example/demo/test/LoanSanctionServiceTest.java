@@ -13,11 +13,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import com.example.demo.model.LoanApplication;
 import com.example.demo.model.LoanSanction;
+import com.example.demo.model.SanctionTerms;
 import com.example.demo.repo.LoanApplicationRepo;
 import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.service.AnnuityFactorCache;
 import com.example.demo.service.LoanSanctionService;
 
 class LoanSanctionServiceTest {
@@ -34,6 +37,9 @@ class LoanSanctionServiceTest {
     @Mock
     private LoanApplication loanApplication;
 
+    @Spy
+    private AnnuityFactorCache annuityFactorCache = new AnnuityFactorCache();
+
     @InjectMocks
     private LoanSanctionService loanSanctionService;
 
@@ -56,14 +62,11 @@ class LoanSanctionServiceTest {
 
         @Test
          void testShow() {
-            List<LoanSanction> sanctions = new ArrayList<LoanSanction>();
-            sanctions.add(loanSanction);
-
-            // Mocking the behavior of loanSanctionRepo.findAll()
-            when(loanSanctionRepo.findAll()).thenReturn(sanctions);
+            List<SanctionTerms> sanctions = new ArrayList<SanctionTerms>();
+            sanctions.add(new SanctionTerms(loanSanction, loanApplication.getLoanAmount(), loanApplication.getTenure()));
 
-            // Mocking the behavior of loanApplicationRepo.findById()
-            when(loanApplicationRepo.findById(101)).thenReturn(Optional.of(loanApplication));
+            // The sanctions come joined with their application terms
+            when(loanSanctionRepo.findAllWithTerms()).thenReturn(sanctions);
 
             // Call the service method
             List<LoanSanction> result = loanSanctionService.show();
@@ -72,10 +75,11 @@ class LoanSanctionServiceTest {
             assertNotNull(result);
             assertEquals(1, result.size());
             assertEquals(loanSanction.getSanctionId(), result.get(0).getSanctionId());
+            assertTrue(result.get(0).getMonthlyInstallmentsAmount() > 0);
 
-            // Verify that the method calculateAndSetMonthlyInstallment was called once
-            verify(loanSanctionRepo, times(1)).findAll();
-            verify(loanApplicationRepo, times(1)).findById(101);
+            // No application is looked up per sanction
+            verify(loanSanctionRepo, times(1)).findAllWithTerms();
+            verifyNoInteractions(loanApplicationRepo);
         }
 
         @Test
@@ -193,12 +197,14 @@ class LoanSanctionServiceTest {
         LoanSanction sanction2 = new LoanSanction();
         sanction2.setSanctionStatus("APPROVED");
 
-        when(loanSanctionRepo.findBySanctionStatus("APPROVED"))
-                .thenReturn(Arrays.asList(sanction1, sanction2));
+        when(loanSanctionRepo.findBySanctionStatusWithTerms("APPROVED"))
+                .thenReturn(Arrays.asList(new SanctionTerms(sanction1, 100000.0, 10), new SanctionTerms(sanction2, null, null)));
 
         List<LoanSanction> result = loanSanctionService.searchBySanctionStatus("APPROVED");
 
         assertEquals(2, result.size());
-        verify(loanSanctionRepo).findBySanctionStatus("APPROVED");
+        assertEquals(0.0, result.get(1).getMonthlyInstallmentsAmount());
+        verify(loanSanctionRepo).findBySanctionStatusWithTerms("APPROVED");
+        verifyNoInteractions(loanApplicationRepo);
     }
 }
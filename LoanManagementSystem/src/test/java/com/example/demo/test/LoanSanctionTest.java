@@ -38,7 +38,7 @@ import com.example.demo.model.LoanSanction;
     @Test
      void testLoanSanctionParameterizedConstructor() {
         Date now = new Date();
-        LoanSanction loanSanctionObject = new LoanSanction(1, 2, now, 10000, "Alexa", "Approved", now, now, 5.5, 850);
+        LoanSanction loanSanctionObject = new LoanSanction(1, 2, now, 10000, "Alexa", "Approved", now, now, 5.5, 850, 12, 10000.0, now);
 
         assertEquals(1, loanSanctionObject.getSanctionId());
         assertEquals(2, loanSanctionObject.getLoanId());
@@ -48,6 +48,9 @@ import com.example.demo.model.LoanSanction;
         assertEquals("Approved", loanSanctionObject.getSanctionStatus());
         assertEquals(now, loanSanctionObject.getLoanStartDate());
         assertEquals(now, loanSanctionObject.getLoanEndDate());
+        assertEquals(12, loanSanctionObject.getInstallmentsRemaining());
+        assertEquals(10000.0, loanSanctionObject.getOutstandingPrincipal(), 0.001);
+        assertEquals(now, loanSanctionObject.getNextDueDate());
         assertEquals(5.5, loanSanctionObject.getInterestRate(), 0.001);
         assertEquals(850, loanSanctionObject.getMonthlyInstallmentsAmount(), 0.001);
     }
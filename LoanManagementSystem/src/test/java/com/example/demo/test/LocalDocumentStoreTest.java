@@ -0,0 +1,187 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import com.example.demo.model.StoredContent;
+import com.example.demo.service.LocalDocumentStore;
+
+class LocalDocumentStoreTest {
+
+    // SHA-256 of "abc"
+    private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testContentIsStoredUnderItsSha256() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+
+        StoredContent content = store.put(stream("abc"), "text/plain");
+
+        assertEquals(ABC, content.getHash());
+        assertEquals(3, content.getSize());
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), store.get(ABC).getContentAsByteArray());
+        assertEquals("abc", Files.readString(dir.resolve("ba").resolve(ABC)));
+    }
+
+    @Test
+    void testIdenticalUploadsShareOneFile() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+
+        store.put(stream("abc"), "text/plain");
+        store.put(stream("abc"), "text/plain");
+
+        assertEquals(1, storedFiles());
+        try (Stream<Path> incoming = Files.list(dir.resolve(".incoming"))) {
+            assertEquals(0, incoming.count());
+        }
+    }
+
+    @Test
+    void testDeleteRemovesTheContent() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+        store.put(stream("abc"), "text/plain");
+        store.unpin(ABC);
+
+        assertTrue(store.delete(ABC, () -> false));
+
+        assertNull(store.get(ABC));
+        assertEquals(0, storedFiles());
+    }
+
+    @Test
+    void testOnlyContentHashesAreAddressable() {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> store.get("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.delete(ABC.toUpperCase(), () -> false));
+    }
+
+    @Test
+    void testCompressibleContentIsStoredGzippedAndReadBackPlain() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+        String statement = "01-04-2024,SALARY CREDIT,50000.00\n".repeat(2000);
+
+        StoredContent content = store.put(stream(statement), "text/csv");
+
+        assertEquals(statement.length(), content.getSize());
+        assertTrue(content.getStoredSize() < content.getSize() / 10);
+        Path gzip = dir.resolve(content.getHash().substring(0, 2)).resolve(content.getHash() + ".gz");
+        assertEquals(content.getStoredSize(), Files.size(gzip));
+        Resource resource = store.get(content.getHash());
+        assertEquals(statement.length(), resource.contentLength());
+        assertEquals(statement, new String(resource.getContentAsByteArray(), StandardCharsets.UTF_8));
+
+        store.unpin(content.getHash());
+        store.delete(content.getHash(), () -> false);
+        assertEquals(0, storedFiles());
+    }
+
+    @Test
+    void testIncompressibleContentIsStoredAsIs() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+        byte[] scan = new byte[64 * 1024];
+        new Random(42).nextBytes(scan);
+
+        StoredContent content = store.put(new ByteArrayInputStream(scan), "application/pdf");
+
+        assertEquals(scan.length, content.getStoredSize());
+        assertArrayEquals(scan, Files.readAllBytes(dir.resolve(content.getHash().substring(0, 2)).resolve(content.getHash())));
+        assertArrayEquals(scan, store.get(content.getHash()).getContentAsByteArray());
+    }
+
+    @Test
+    void testPrecompressedTypesAreNotGzipped() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+        // Would shrink if gzipped, so only the declared type keeps it plain
+        String text = "01-04-2024,SALARY CREDIT,50000.00\n".repeat(2000);
+
+        StoredContent content = store.put(stream(text), "image/JPEG; charset=binary");
+
+        assertEquals(text.length(), content.getStoredSize());
+        assertEquals(text, Files.readString(dir.resolve(content.getHash().substring(0, 2)).resolve(content.getHash())));
+    }
+
+    @Test
+    void testPinnedOrReferencedContentIsNotDeleted() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), true, 6, 5);
+        // Two uploads of the same bytes hold two pins
+        store.put(stream("abc"), "text/plain");
+        store.put(stream("abc"), "text/plain");
+
+        store.unpin(ABC);
+        assertFalse(store.delete(ABC, () -> false));
+        store.unpin(ABC);
+        assertFalse(store.delete(ABC, () -> true));
+
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), store.get(ABC).getContentAsByteArray());
+        assertTrue(store.delete(ABC, () -> false));
+    }
+
+    @Test
+    void testUploadReusingContentRacesItsDeletion() throws Exception {
+        LocalDocumentStore store = new LocalDocumentStore(dir.toString(), false, 6, 5);
+        store.put(stream("abc"), "text/plain");
+        store.unpin(ABC);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger missing = new AtomicInteger();
+
+        // The last document using the bytes is deleted over and over while new uploads of them arrive
+        CompletableFuture<Void> deleter = CompletableFuture.runAsync(() -> {
+            while (!done.get()) {
+                try {
+                    store.delete(ABC, () -> false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        try {
+            for (int i = 0; i < 2000; i++) {
+                store.put(stream("abc"), "text/plain");
+                // Between put and commit the upload's content must stay readable
+                if (store.get(ABC) == null) {
+                    missing.incrementAndGet();
+                }
+                store.unpin(ABC);
+            }
+        } finally {
+            done.set(true);
+            deleter.join();
+        }
+
+        assertEquals(0, missing.get());
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long storedFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).filter(file -> !file.startsWith(dir.resolve(".incoming"))).count();
+        }
+    }
+}
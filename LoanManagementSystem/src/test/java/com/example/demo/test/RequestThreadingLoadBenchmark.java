@@ -0,0 +1,234 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.JwtApplication;
+import com.example.demo.model.AccountDetails;
+import com.example.demo.model.BankTransaction;
+import com.example.demo.model.LoanApplication;
+import com.example.demo.repo.AccountDetailsRepo;
+import com.example.demo.repo.BankTransactionRepo;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Closed-loop HTTP load against the loan and transaction read endpoints, once with
+ * Tomcat, @Scheduled and mail on platform threads and once on virtual threads
+ * (spring.threads.virtual.enabled). Each mode boots the whole application on a
+ * random port, seeds the same rows, and reports throughput and p50/p99 latency per
+ * endpoint to the log and to target/load-threading.json.
+ *
+ * The virtual run needs a Java 21+ JVM and is skipped on older ones. Against the
+ * default in-memory H2 the database never blocks, so the numbers mostly show
+ * dispatch overhead; point -Dload.jdbc-url (with -Dload.jdbc-user/-password) at a
+ * scratch MySQL schema to measure real blocking I/O. On Java 21 to 23, add
+ * -Djdk.tracePinnedThreads=short to surface monitors that pin carrier threads.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=RequestThreadingLoadBenchmark
+ *           [-Dload.concurrency=256] [-Dload.requests=20000] [-Dload.warmup=2000]
+ */
+@Tag("benchmark")
+class RequestThreadingLoadBenchmark {
+
+    private static final Logger logger = Logger.getLogger(RequestThreadingLoadBenchmark.class);
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 256);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 20000);
+    private static final int WARMUP = Integer.getInteger("load.warmup", 2000);
+    private static final int LOANS = 200;
+    private static final int TRANSACTIONS = 2000;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 50;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        // Per-request INFO logging goes through log4j's synchronized appenders and would be all that is measured
+        LogManager.getRootLogger().setLevel(Level.WARN);
+        logger.setLevel(Level.INFO);
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("java", Runtime.version().toString());
+        results.put("concurrency", CONCURRENCY);
+        results.put("requests", REQUESTS);
+        results.put("platform", run(false));
+        if (Runtime.version().feature() >= 21) {
+            results.put("virtual", run(true));
+        } else {
+            logger.warn("Virtual threads need Java 21+, running on " + Runtime.version() + ": virtual run skipped");
+        }
+
+        File out = new File("target/load-threading.json");
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out, results);
+        logger.info("Results written to " + out.getAbsolutePath());
+    }
+
+    private Map<String, Object> run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = start(virtualThreads)) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            int[] accounts = seed(context);
+
+            Map<String, IntFunction<String>> endpoints = new LinkedHashMap<>();
+            endpoints.put("loanById", i -> base + "/loanapplication/searchloanapplicationById/" + (i % LOANS + 1));
+            endpoints.put("loanPage", i -> base + "/loanapplication/showloanapplication/page?size=20");
+            endpoints.put("transactionById", i -> base + "/banktransaction/searchByTransactionId/" + (i % TRANSACTIONS + 1));
+            endpoints.put("transactionsByAccount",
+                    i -> base + "/banktransaction/searchByAccountNumber/" + accounts[i % accounts.length]);
+
+            Map<String, Object> byEndpoint = new LinkedHashMap<>();
+            logger.info(String.format("%-10s %-22s %-12s %-10s %-10s %-8s", "MODE", "ENDPOINT", "REQ_PER_SEC",
+                    "P50_MS", "P99_MS", "ERRORS"));
+            for (Map.Entry<String, IntFunction<String>> endpoint : endpoints.entrySet()) {
+                load(endpoint.getValue(), WARMUP);
+                Map<String, Number> result = load(endpoint.getValue(), REQUESTS);
+                byEndpoint.put(endpoint.getKey(), result);
+                logger.info(String.format("%-10s %-22s %-12.0f %-10.2f %-10.2f %-8d", mode, endpoint.getKey(),
+                        result.get("requestsPerSecond"), result.get("p50Ms"), result.get("p99Ms"), result.get("errors")));
+                assertEquals(0L, result.get("errors"), endpoint.getKey() + " answered with errors");
+            }
+            return byEndpoint;
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.threads.virtual.enabled", virtualThreads);
+        properties.put("spring.datasource.url", System.getProperty("load.jdbc-url",
+                "jdbc:h2:mem:load-" + (virtualThreads ? "virtual" : "platform") + ";DB_CLOSE_DELAY=-1"));
+        properties.put("spring.datasource.username", System.getProperty("load.jdbc-user", "sa"));
+        properties.put("spring.datasource.password", System.getProperty("load.jdbc-password", ""));
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.mail.host", "localhost");
+        properties.put("logging.level.root", "WARN");
+        return new SpringApplicationBuilder(JwtApplication.class).properties(properties).run();
+    }
+
+    private static int[] seed(ConfigurableApplicationContext context) {
+        AccountDetailsRepo accountDetailsRepo = context.getBean(AccountDetailsRepo.class);
+        LoanApplicationRepo loanApplicationRepo = context.getBean(LoanApplicationRepo.class);
+        BankTransactionRepo bankTransactionRepo = context.getBean(BankTransactionRepo.class);
+
+        int[] accounts = new int[TRANSACTIONS / TRANSACTIONS_PER_ACCOUNT];
+        for (int a = 0; a < accounts.length; a++) {
+            AccountDetails account = new AccountDetails();
+            account.setFirstName("Load");
+            account.setLastName("Test" + a);
+            account.setEmail("load" + a + "@example.com");
+            account.setBalance(100000);
+            accounts[a] = accountDetailsRepo.save(account).getAccountNumber();
+        }
+
+        List<LoanApplication> loans = new ArrayList<>();
+        for (int i = 1; i <= LOANS; i++) {
+            LoanApplication loan = new LoanApplication();
+            loan.setLoanId(i);
+            loan.setAccountNumber(accounts[i % accounts.length]);
+            loan.setLoanAmount(500000);
+            loan.setLoanType("HOME");
+            loan.setEmployType("SALARIED");
+            loan.setInterestRate(8.5);
+            loan.setTenure(10);
+            loans.add(loan);
+        }
+        loanApplicationRepo.saveAll(loans);
+
+        List<BankTransaction> transactions = new ArrayList<>();
+        Date now = new Date();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            BankTransaction transaction = new BankTransaction();
+            transaction.setAccountNumber(accounts[i % accounts.length]);
+            transaction.setToAccNo(accounts[(i + 1) % accounts.length]);
+            transaction.setTransactionType("DEBIT");
+            transaction.setTransactionAmount(100);
+            transaction.setTransactionDate(now);
+            transaction.setBalanceAfterTransaction(100000 - 100);
+            transaction.setTransactionStatus("SUCCESS");
+            transactions.add(transaction);
+        }
+        bankTransactionRepo.saveAll(transactions);
+        return accounts;
+    }
+
+    /**
+     * Sends total requests from CONCURRENCY client threads, each issuing the next
+     * request as soon as its previous one completes.
+     */
+    private Map<String, Number> load(IntFunction<String> url, int total) throws Exception {
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int c = 0; c < CONCURRENCY; c++) {
+                workers.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < total; i = next.getAndIncrement()) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(url.apply(i)))
+                                .timeout(Duration.ofSeconds(30)).GET().build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        Map<String, Number> result = new LinkedHashMap<>();
+        result.put("requestsPerSecond", total / seconds);
+        result.put("p50Ms", percentile(latencies, 0.50));
+        result.put("p99Ms", percentile(latencies, 0.99));
+        result.put("maxMs", latencies[latencies.length - 1] / 1e6);
+        result.put("errors", (long) errors.get());
+        return result;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.demo.model.Constants;
+import com.example.demo.repo.BankTransactionRepo;
+import com.example.demo.repo.DocumentsRepo;
+import com.example.demo.repo.EmailOutboxRepo;
+import com.example.demo.repo.LoanApplicationRepo;
+import com.example.demo.repo.LoanRepaymentsRepo;
+import com.example.demo.repo.LoanSanctionRepo;
+import com.example.demo.repo.SignUpRepo;
+
+/**
+ * Builds the schema from the Flyway migrations on an H2 database in MySQL mode,
+ * runs each hot-path finder against it, then runs EXPLAIN on the SQL Hibernate
+ * generated and fails if any of them scans a table.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:indexplan;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.demo.test.SchemaIndexPlanTest$CapturedSql" })
+class SchemaIndexPlanTest {
+
+    private static final int ROWS = 2000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BankTransactionRepo bankTransactionRepo;
+    @Autowired
+    private LoanRepaymentsRepo loanRepaymentsRepo;
+    @Autowired
+    private LoanApplicationRepo loanApplicationRepo;
+    @Autowired
+    private LoanSanctionRepo loanSanctionRepo;
+    @Autowired
+    private DocumentsRepo documentsRepo;
+    @Autowired
+    private SignUpRepo signUpRepo;
+    @Autowired
+    private EmailOutboxRepo emailOutboxRepo;
+
+    @BeforeEach
+    void setUp() {
+        // Enough rows, with realistic spread, that a scan is never the cheaper plan by accident
+        jdbcTemplate.update("INSERT INTO BANKTRANSACTION (ACCOUNTNUMBER, TOACCNO, TRANSACTIONTYPE, TRANSACTIONAMOUNT, "
+                + "TRANSACTIONDATE, BALANCEAFTERTRANSACTION, TRANSACTIONSTATUS) "
+                + "SELECT MOD(X, 200), 0, 'DEBIT', X, DATEADD('DAY', -MOD(X, 365), CURRENT_TIMESTAMP), 0, 'SUCCESS' "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO LOANREPAYMENTS (PAYMENTID, LOANID, PAYMENTDATE, PAYMENTAMOUNT, PAYMENTMODE, "
+                + "PAYMENTSTATUS, DUELOANAMOUNT) "
+                + "SELECT X, MOD(X, 100), DATEADD('MONTH', MOD(X, 24) - 12, CURRENT_TIMESTAMP), 100, 'AUTO', "
+                + "CASE WHEN MOD(X, 24) < 12 THEN 'COMPLETED' ELSE 'PENDING' END, 100 FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO LOANAPPLICATION (LOANID, ACCOUNTNUMBER, LOANTYPE, LOANAMOUNT, TENURE, "
+                + "INTERESTRATE, ANNUALINCOME, EMPLOYTYPE, CREDITSCORE, STATUS) "
+                + "SELECT X, MOD(X, 200), 'HOME', 100000, 12, 8, 500000, 'SALARIED', 700, "
+                + "CASEWHEN(MOD(X, 50) = 0, 'PENDING', 'APPROVED') FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO LOANSANCTION (LOANID, SANCTIONAMOUNT, SANCTIONSTATUS, INTERESTRATE, "
+                + "MONTHLYINSTALLMENTSAMOUNT) SELECT X, 100000, CASEWHEN(MOD(X, 50) = 0, 'CLOSED', 'ACTIVE'), 8, 1000 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO DOCUMENTS (ACCOUNTNUMBER, DOCUMENTNAME, FILETYPE, VERIFICATIONSTATUS, CONTENTHASH, "
+                + "FILESIZE) SELECT X, 'PAN', 'application/pdf', 'PENDING', LPAD(TO_CHAR(X), 64, '0'), 1 "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO SIGNUP (USERNAME, PASSWORD, EMAIL, ROLE) "
+                + "SELECT 'user' || X, 'secret', 'user' || X || '@example.com', 'USER' FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.update("INSERT INTO EMAILOUTBOX (RECIPIENT, SUBJECT, STATUS, ATTEMPTS, NEXTATTEMPTAT, CREATEDAT) "
+                + "SELECT 'user' || X || '@example.com', 'Reminder', CASEWHEN(MOD(X, 50) = 0, 'PENDING', 'SENT'), 0, "
+                + "CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.execute("ANALYZE");
+        CapturedSql.STATEMENTS.clear();
+    }
+
+    @Test
+    void testHotPathFindersUseAnIndex() throws Exception {
+        Date now = new Date();
+        bankTransactionRepo.findByAccountNumber(7);
+        bankTransactionRepo.streamStatement(7, new Date(0), now).close();
+        loanRepaymentsRepo.findByLoanId(7);
+        loanRepaymentsRepo.findByLoanIdAndPaymentStatus(7, Constants.PENDING);
+        loanRepaymentsRepo.findTopByLoanIdOrderByPaymentDateDesc(7);
+        loanRepaymentsRepo.findByPaymentDateBeforeAndPaymentStatus(now, Constants.PENDING);
+        loanRepaymentsRepo.findOverdueReminderPage(Constants.PENDING, now, 0, 0, PageRequest.of(0, 100));
+        loanApplicationRepo.findByAccountNumber(7);
+        loanApplicationRepo.findByAccountNumberAndLoanType(7, "HOME");
+        loanApplicationRepo.findByStatus(Constants.PENDING);
+        loanSanctionRepo.findByLoanId(7);
+        documentsRepo.findByAccountNumberAndDocumentName(7, Constants.PAN);
+        documentsRepo.findSummariesByAccountNumber(7);
+        documentsRepo.existsByAccountNumber(7);
+        documentsRepo.countByContentHash("0000000000000000000000000000000000000000000000000000000000000007");
+        signUpRepo.findByUsername("user7");
+        signUpRepo.findByEmail("user7@example.com");
+        emailOutboxRepo.findDueIds(List.of(Constants.PENDING), now, PageRequest.of(0, 50));
+
+        Set<String> queries = new LinkedHashSet<>(CapturedSql.STATEMENTS);
+        assertFalse(queries.isEmpty());
+        List<String> scans = new ArrayList<>();
+        for (String sql : queries) {
+            String plan = explain(sql);
+            if (plan.contains(".tableScan")) {
+                scans.add(plan);
+            }
+        }
+        assertTrue(scans.isEmpty(), "Hot-path queries scanning a table:\n" + String.join("\n\n", scans));
+    }
+
+    // Plans the statement with its parameters unbound, the way it is prepared on the hot path
+    private String explain(String sql) {
+        return jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    StringBuilder text = new StringBuilder();
+                    while (plan.next()) {
+                        text.append(plan.getString(1));
+                    }
+                    return text.toString();
+                }
+            }
+        });
+    }
+
+    /*
+     * Records every SELECT Hibernate prepares, so the plans checked are the ones
+     * the repositories really issue.
+     */
+    public static class CapturedSql implements StatementInspector {
+
+        private static final long serialVersionUID = 1L;
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.trim().toLowerCase().startsWith("select")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.demo.config.JwtService;
+import com.example.demo.model.BankTransaction;
+import com.example.demo.model.Constants;
+import com.example.demo.model.EmailOutbox;
+import com.example.demo.model.LoanRepayments;
+import com.example.demo.model.OverdueReminderView;
+import com.example.demo.model.SignUp;
+import com.example.demo.service.AmortizationKernel;
+import com.example.demo.service.AnnuityFactorCache;
+import com.example.demo.service.EmailOutboxService;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.LoanApplicationService;
+import com.example.demo.service.LoanCalculationService;
+import com.example.demo.service.SignUpDataDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Throughput and allocation per operation (GC profiler) of the service hot paths.
+ * The full JMH results are written to target/jmh-hot-paths.json, and each benchmark
+ * is compared with src/test/resources/benchmark/hot-paths-baseline.json: the run
+ * fails when one loses more than the tolerance in throughput, or allocates more
+ * than the tolerance (plus 64 bytes) per operation.
+ *
+ * Run with: mvn clean test -Pbenchmark -Dtest=ServiceHotPathBenchmark
+ * -Dbenchmark.tolerance=0.3 (the default) sets the tolerance. After an intended change, or on
+ * a new machine, -Dbenchmark.updateBaseline=true rewrites the baseline instead.
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ServiceHotPathBenchmark {
+
+    private static final Logger logger = Logger.getLogger(ServiceHotPathBenchmark.class);
+
+    private static final String RESULTS = "target/jmh-hot-paths.json";
+    private static final String BASELINE = "src/test/resources/benchmark/hot-paths-baseline.json";
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+    private static final double ALLOCATION_SLACK_BYTES = 64;
+
+    private LoanCalculationService loanCalculationService;
+    private LoanApplicationService loanApplicationService;
+    private JwtService jwtService;
+    private EmailService emailService;
+    private SignUp signUp;
+    private UserDetails userDetails;
+    private String token;
+    private Date firstDueDate;
+    private double monthlyRate;
+    private double installment;
+    private List<OverdueReminderView> overdue;
+
+    @Setup
+    public void setUp() {
+        // Measure the work, not the console appender
+        LogManager.getRootLogger().setLevel(Level.WARN);
+        AnnuityFactorCache annuityFactorCache = new AnnuityFactorCache();
+        loanCalculationService = new LoanCalculationService(annuityFactorCache, null);
+        loanApplicationService = new LoanApplicationService(null, null, null, null, null, null, annuityFactorCache);
+        jwtService = new JwtService(0, 0);
+        emailService = new EmailService(new DiscardingOutbox());
+
+        signUp = new SignUp();
+        signUp.setUsername("ravi.kumar");
+        signUp.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5Bq1Uq5vHhmyYkzEq4Zl3rG");
+        signUp.setRole("ROLE_USER,ROLE_ADMIN");
+        userDetails = new SignUpDataDetails(signUp);
+        token = jwtService.generateToken(signUp.getUsername());
+
+        firstDueDate = new Date();
+        monthlyRate = AmortizationKernel.monthlyRate(8.5);
+        installment = Math.round(AmortizationKernel.installment(2500000, monthlyRate, 240) * 100.0) / 100.0;
+        overdue = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            overdue.add(new Overdue(i, 40 + i, new Date(), 21695.5));
+        }
+    }
+
+    @Benchmark
+    public Object calculateLoan() {
+        return loanCalculationService.calculateLoan(2500000, 8.5, 20, "HOME");
+    }
+
+    @Benchmark
+    public List<LoanRepayments> acceptLoanSchedule() {
+        return loanApplicationService.buildRepaymentSchedule(1, firstDueDate, 2500000, monthlyRate, 240, installment);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(signUp.getUsername());
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtService.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public UserDetails signUpDataDetails() {
+        return new SignUpDataDetails(signUp);
+    }
+
+    @Benchmark
+    public void loanStatusEmail(Blackhole blackhole) {
+        emailService.sendLoanStatusEmail("ravi@example.com", "Ravi", "HOME", 2500000, true);
+        blackhole.consume(DiscardingOutbox.lastBody);
+    }
+
+    @Benchmark
+    public void dueRemindersEmail(Blackhole blackhole) {
+        emailService.sendLoanDueReminders(List.of(overdue));
+        blackhole.consume(DiscardingOutbox.lastBody);
+    }
+
+    @Benchmark
+    public void serializeRepayments(Payloads payloads) throws IOException {
+        payloads.mapper.writeValue(OutputStream.nullOutputStream(), payloads.repayments);
+    }
+
+    @Benchmark
+    public void serializeTransactions(Payloads payloads) throws IOException {
+        payloads.mapper.writeValue(OutputStream.nullOutputStream(), payloads.transactions);
+    }
+
+    /**
+     * Large list responses, serialized with the settings Spring Boot gives its ObjectMapper.
+     */
+    @State(Scope.Thread)
+    public static class Payloads {
+
+        @Param({ "1000", "10000" })
+        public int rows;
+
+        ObjectMapper mapper;
+        List<LoanRepayments> repayments;
+        List<BankTransaction> transactions;
+
+        @Setup
+        public void setUp() {
+            mapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            repayments = new ArrayList<>(rows);
+            transactions = new ArrayList<>(rows);
+            Date now = new Date();
+            for (int i = 0; i < rows; i++) {
+                LoanRepayments repayment = new LoanRepayments();
+                repayment.setPaymentId(i);
+                repayment.setLoanId(i / 240);
+                repayment.setPaymentDate(now);
+                repayment.setPaymentAmount(21695.5);
+                repayment.setPaymentMode("LOAN_REPAYMENT");
+                repayment.setPaymentStatus(Constants.PENDING);
+                repayment.setDueLoanAmount(2500000 - i);
+                repayments.add(repayment);
+                transactions.add(new BankTransaction(i, 1000 + i % 50, 2000, Constants.DEBIT, 100 + i, now,
+                        50000 - i, Constants.SUCCESS));
+            }
+        }
+    }
+
+    @Test
+    void runBenchmarks() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(ServiceHotPathBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .result(RESULTS)
+                .resultFormat(ResultFormatType.JSON)
+                .build()).run();
+
+        Map<String, Score> current = new TreeMap<>();
+        for (RunResult result : results) {
+            current.put(key(result), new Score(result.getPrimaryResult().getScore(), allocation(result)));
+        }
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        File baselineFile = new File(BASELINE);
+        if (Boolean.getBoolean("benchmark.updateBaseline")) {
+            baselineFile.getParentFile().mkdirs();
+            mapper.writeValue(baselineFile, current);
+            return;
+        }
+        Map<String, Score> baseline = new TreeMap<>();
+        if (baselineFile.exists()) {
+            baseline.putAll(mapper.readValue(baselineFile,
+                    mapper.getTypeFactory().constructMapType(TreeMap.class, String.class, Score.class)));
+        }
+
+        double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "0.3"));
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                logger.info("No baseline for " + entry.getKey());
+                continue;
+            }
+            logger.info(String.format("%s: %.0f ops/s (baseline %.0f), %.0f B/op (baseline %.0f)",
+                    entry.getKey(), now.opsPerSecond, before.opsPerSecond, now.bytesPerOp, before.bytesPerOp));
+            if (now.opsPerSecond < before.opsPerSecond * (1 - tolerance)) {
+                regressions.add(entry.getKey() + " throughput " + now.opsPerSecond + " < " + before.opsPerSecond);
+            }
+            if (now.bytesPerOp > before.bytesPerOp * (1 + tolerance) + ALLOCATION_SLACK_BYTES) {
+                regressions.add(entry.getKey() + " allocation " + now.bytesPerOp + " > " + before.bytesPerOp);
+            }
+        }
+        assertTrue(regressions.isEmpty(), "Regressions against " + BASELINE + ":\n" + String.join("\n", regressions));
+    }
+
+    // Benchmark method name plus its parameters, e.g. serializeRepayments[rows=1000]
+    private static String key(RunResult result) {
+        String benchmark = result.getParams().getBenchmark();
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.') + 1));
+        Collection<String> params = result.getParams().getParamsKeys();
+        if (!params.isEmpty()) {
+            List<String> values = new ArrayList<>();
+            for (String param : params) {
+                values.add(param + "=" + result.getParams().getParam(param));
+            }
+            key.append(values);
+        }
+        return key.toString();
+    }
+
+    private static double allocation(RunResult result) {
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            // Older JMH versions prefix the profiler's metrics with a middle dot
+            if (secondary.getKey().endsWith(ALLOCATION)) {
+                return secondary.getValue().getScore();
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * One entry of the baseline file.
+     */
+    public static class Score {
+        public double opsPerSecond;
+        public double bytesPerOp;
+
+        public Score() {
+        }
+
+        Score(double opsPerSecond, double bytesPerOp) {
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+
+    // Keeps the mail bodies off the database; the last body stays reachable so it is not optimized away
+    static class DiscardingOutbox extends EmailOutboxService {
+
+        static volatile String lastBody;
+
+        DiscardingOutbox() {
+            super(null, null, null, 5, 60000);
+        }
+
+        @Override
+        public void enqueue(String to, String subject, String body) {
+            lastBody = body;
+        }
+
+        @Override
+        public void enqueueAll(List<EmailOutbox> rows) {
+            lastBody = rows.get(rows.size() - 1).getBody();
+        }
+    }
+
+    static class Overdue implements OverdueReminderView {
+
+        private final int paymentId;
+        private final int loanId;
+        private final Date paymentDate;
+        private final double dueLoanAmount;
+
+        Overdue(int paymentId, int loanId, Date paymentDate, double dueLoanAmount) {
+            this.paymentId = paymentId;
+            this.loanId = loanId;
+            this.paymentDate = paymentDate;
+            this.dueLoanAmount = dueLoanAmount;
+        }
+
+        @Override
+        public int getPaymentId() {
+            return paymentId;
+        }
+
+        @Override
+        public int getLoanId() {
+            return loanId;
+        }
+
+        @Override
+        public Date getPaymentDate() {
+            return paymentDate;
+        }
+
+        @Override
+        public double getDueLoanAmount() {
+            return dueLoanAmount;
+        }
+
+        @Override
+        public int getAccountNumber() {
+            return 1000;
+        }
+
+        @Override
+        public String getEmail() {
+            return "ravi@example.com";
+        }
+
+        @Override
+        public String getFirstName() {
+            return "Ravi";
+        }
+
+        @Override
+        public String getLastName() {
+            return "Kumar";
+        }
+    }
+}
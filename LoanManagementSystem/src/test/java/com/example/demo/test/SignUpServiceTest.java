@@ -22,6 +22,7 @@ import com.example.demo.repo.SignUpRepo;
 import com.example.demo.service.EmailService;
 import com.example.demo.service.OtpService;
 import com.example.demo.service.SignUpService;
+import com.example.demo.service.UserDetailsCache;
 
 class SignUpServiceTest {
 
@@ -40,6 +41,9 @@ class SignUpServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -152,6 +156,7 @@ class SignUpServiceTest {
 
         verify(signupRepo, times(1)).save(mockSignUp);
         verify(otpService, times(1)).clearOtp("test@example.com");
+        verify(userDetailsCache, times(1)).evict(mockSignUp.getUsername());
     }
 
     @Test
@@ -276,6 +281,7 @@ class SignUpServiceTest {
 
                     // Assert
                     verify(signupRepo, times(1)).save(signUp);  // Ensure save is called once
+                    verify(userDetailsCache, times(1)).evict("testuser");
                 }
             
 
@@ -0,0 +1,106 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.demo.model.BankTransaction;
+import com.example.demo.model.Constants;
+import com.example.demo.repo.BankTransactionRepo;
+import com.example.demo.service.StatementService;
+
+/**
+ * Exports account statements from the embedded database.
+ */
+@DataJpaTest
+class StatementExportTest {
+
+    private static final int ACCOUNT = 4242;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private BankTransactionRepo bankTransactionRepo;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private StatementService statementService;
+
+    @BeforeEach
+    void setUp() {
+        statementService = new StatementService(bankTransactionRepo);
+        List<BankTransaction> transactions = new ArrayList<>();
+        // One transaction a day for 30 days, plus one for another account
+        for (int day = 0; day < 30; day++) {
+            transactions.add(transaction(ACCOUNT, day, Constants.DEBIT, 100 + day));
+        }
+        transactions.add(transaction(ACCOUNT + 1, 5, Constants.CREDIT, 999));
+        bankTransactionRepo.saveAll(transactions);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testCsvStatementHoldsOnlyTheRequestedPeriod() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = statementService.exportStatement(ACCOUNT, day(10), day(20), Constants.STATEMENT_CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(10, rows);
+        assertEquals(11, lines.length);
+        assertTrue(lines[0].startsWith("transactionId,transactionDate"));
+        assertTrue(lines[1].contains(",DEBIT,0,110.0,"));
+        assertTrue(lines[10].contains(",DEBIT,0,119.0,"));
+    }
+
+    @Test
+    void testJsonLinesStatementHasOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = statementService.exportStatement(ACCOUNT, day(0), day(3), Constants.STATEMENT_JSONL, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"transactionAmount\":100.0"));
+        assertTrue(lines[2].contains("\"transactionAmount\":102.0"));
+    }
+
+    @Test
+    void testExportLeavesNothingInThePersistenceContext() throws Exception {
+        statementService.exportStatement(ACCOUNT, day(0), day(30), Constants.STATEMENT_CSV, new ByteArrayOutputStream());
+
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        assertEquals(0, session.getStatistics().getEntityCount());
+    }
+
+    @Test
+    void testEmptyPeriodWritesOnlyTheHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = statementService.exportStatement(ACCOUNT, day(40), day(50), Constants.STATEMENT_CSV, out);
+
+        assertEquals(0, rows);
+        assertEquals(1, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    private static BankTransaction transaction(int accountNumber, int day, String type, double amount) {
+        Date date = Date.from(FIRST_DAY.plusDays(day).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+        return new BankTransaction(0, accountNumber, 0, type, amount, date, 5000, Constants.SUCCESS);
+    }
+
+    private static Date day(int day) {
+        return Date.from(FIRST_DAY.plusDays(day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.example.demo.service.UserDetailsCache;
+
+class UserDetailsCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, UserDetails> loader = username -> {
+        loads.incrementAndGet();
+        if (username.startsWith("missing")) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        return User.withUsername(username).password("x").authorities("USER").build();
+    };
+
+    @Test
+    void testRepeatLookupsAreServedFromMemory() {
+        UserDetailsCache cache = new UserDetailsCache(60000, 100);
+
+        UserDetails first = cache.get("ravi", loader);
+        assertSame(first, cache.get("ravi", loader));
+        assertEquals(1, loads.get());
+
+        Map<String, Number> stats = cache.stats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0.5, stats.get("hitRate"));
+        assertEquals(1, stats.get("entries"));
+    }
+
+    @Test
+    void testEvictForcesAReload() {
+        UserDetailsCache cache = new UserDetailsCache(60000, 100);
+        cache.get("ravi", loader);
+
+        cache.evict("ravi");
+        cache.get("ravi", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void testZeroTtlDisablesTheCache() {
+        UserDetailsCache cache = new UserDetailsCache(0, 100);
+        cache.get("ravi", loader);
+        cache.get("ravi", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().get("entries"));
+    }
+
+    @Test
+    void testUnknownUsersAreNotCached() {
+        UserDetailsCache cache = new UserDetailsCache(60000, 100);
+
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("missing", loader));
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("missing", loader));
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.stats().get("entries"));
+    }
+
+    @Test
+    void testCacheNeverHoldsMoreThanMaxEntries() {
+        UserDetailsCache cache = new UserDetailsCache(60000, 10);
+        for (int i = 0; i < 25; i++) {
+            cache.get("user" + i, loader);
+        }
+
+        assertTrue(cache.stats().get("entries").intValue() <= 10);
+    }
+}